@@ -0,0 +1,108 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End to end cost of delivering events through an {@link AsyncEventBus} on different executors. Each invocation
+ * posts a burst of events to 10 subscribers and waits until all of them are delivered, so the queues never grow
+ * beyond a burst
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncEventBusBenchmark {
+    private static final int BURST = 1_000;
+    private static final int SUBSCRIBERS = 10;
+
+    public static class Event {
+    }
+
+    public static class Listener {
+        final AtomicLong count;
+
+        Listener(AtomicLong count) {
+            this.count = count;
+        }
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onEvent(Event event) {
+            count.incrementAndGet();
+        }
+    }
+
+    @Param({"singleThread", "fixedPool", "forkJoin", "workStealing"})
+    public String executor;
+
+    @Param({"async", "immediate", "perSubscriber"})
+    public String dispatcher;
+
+    private final Event event = new Event();
+    private final AtomicLong delivered = new AtomicLong();
+    private ExecutorService executorService;
+    private EventBus bus;
+    private long expected;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executorService = executor(executor);
+        bus = new AsyncEventBus("bench", executorService, PostBenchmark.dispatcher(dispatcher));
+        for (int i = 0; i < SUBSCRIBERS; i++)
+            bus.register(new Listener(delivered));
+    }
+
+    private static ExecutorService executor(String name) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        switch (name) {
+            case "singleThread":
+                return java.util.concurrent.Executors.newSingleThreadExecutor();
+            case "fixedPool":
+                return java.util.concurrent.Executors.newFixedThreadPool(threads);
+            case "forkJoin":
+                return new ForkJoinPool(threads);
+            case "workStealing":
+                return java.util.concurrent.Executors.newWorkStealingPool(threads);
+            default:
+                throw new IllegalArgumentException("Unknown executor " + name);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executorService.shutdownNow();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void postBurst() {
+        for (int i = 0; i < BURST; i++)
+            bus.post(event);
+        expected += BURST * SUBSCRIBERS;
+        while (delivered.get() < expected)
+            Thread.yield();
+    }
+}
@@ -0,0 +1,40 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Takes the same arguments as {@link org.openjdk.jmh.Main}, but always
+ * adds the GC profiler, so every run reports the bytes allocated per operation ({@code gc.alloc.rate.norm}) next
+ * to the timings. An allocation creeping into the post path shows up there before it shows up as GC pauses.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar PostBenchmark
+ * </pre>
+ *
+ * @author Kasun Piyumal
+ */
+public class BenchmarkMain {
+    private static final List<String> INFORMATION_OPTIONS = Arrays.asList("-h", "-l", "-lp", "-lrf", "-lprof");
+
+    public static void main(String[] args) throws Exception {
+        for (String arg : args) {
+            if (INFORMATION_OPTIONS.contains(arg)) {
+                org.openjdk.jmh.Main.main(args);
+                return;
+            }
+        }
+
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,112 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivering to subscribers which block, as on a JDBC call or file I/O, on platform thread pools and on virtual
+ * threads. Each invocation posts a burst of events to {@value #SUBSCRIBERS} subscribers which each block for
+ * {@code blockMicros} per event, and waits until all of them are delivered.
+ *
+ * <p>The virtual thread modes need Java 21 or later; run the jar with such a JVM, as they fail on older ones.</p>
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlockingSubscriberBenchmark {
+    private static final int BURST = 20;
+    private static final int SUBSCRIBERS = 50;
+
+    public static class Listener {
+        final AtomicLong count;
+        final long blockNanos;
+
+        Listener(AtomicLong count, long blockNanos) {
+            this.count = count;
+            this.blockNanos = blockNanos;
+        }
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onEvent(Integer event) {
+            LockSupport.parkNanos(blockNanos);
+            count.incrementAndGet();
+        }
+    }
+
+    @Param({"fixedPool", "cachedPool", "virtualPerDelivery", "virtualPerSubscriber"})
+    public String mode;
+
+    @Param({"1000"})
+    public long blockMicros;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private ExecutorService executorService;
+    private EventBus bus;
+    private long expected;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (mode) {
+            case "fixedPool":
+                executorService = java.util.concurrent.Executors.newFixedThreadPool(
+                        Runtime.getRuntime().availableProcessors() * 2);
+                bus = new AsyncEventBus("bench", executorService, Dispatcher.immediateDispatcher());
+                break;
+            case "cachedPool":
+                executorService = java.util.concurrent.Executors.newCachedThreadPool();
+                bus = new AsyncEventBus("bench", executorService, Dispatcher.immediateDispatcher());
+                break;
+            case "virtualPerDelivery":
+                bus = new AsyncEventBus("bench", VirtualThreadMode.PER_DELIVERY);
+                break;
+            case "virtualPerSubscriber":
+                bus = new AsyncEventBus("bench", VirtualThreadMode.PER_SUBSCRIBER);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+        for (int i = 0; i < SUBSCRIBERS; i++)
+            bus.register(new Listener(delivered, TimeUnit.MICROSECONDS.toNanos(blockMicros)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST * SUBSCRIBERS)
+    public void postBurst() {
+        for (int i = 0; i < BURST; i++)
+            bus.post(i);
+        expected += BURST * SUBSCRIBERS;
+        while (delivered.get() < expected)
+            Thread.yield();
+    }
+}
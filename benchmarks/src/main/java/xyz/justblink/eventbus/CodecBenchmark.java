@@ -0,0 +1,99 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PojoCodec} next to a hand-written codec for the same event, and a {@link PojoCodec.Flyweight} reading a
+ * single field
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    public static class Trade {
+        long id;
+        long price;
+        int quantity;
+        boolean buy;
+    }
+
+    static class TradeCodec implements EventCodec<Trade> {
+        @Override
+        public void encode(Trade event, ByteBuffer buffer) {
+            buffer.putLong(event.id).putLong(event.price).putInt(event.quantity).put((byte) (event.buy ? 1 : 0));
+        }
+
+        @Override
+        public Trade decode(ByteBuffer buffer) {
+            Trade trade = new Trade();
+            trade.id = buffer.getLong();
+            trade.price = buffer.getLong();
+            trade.quantity = buffer.getInt();
+            trade.buy = buffer.get() != 0;
+            return trade;
+        }
+    }
+
+    private final Trade trade = new Trade();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+    private final TradeCodec handWritten = new TradeCodec();
+    private PojoCodec<Trade> pojo;
+    private PojoCodec.Flyweight<Trade> flyweight;
+    private int priceOffset;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        trade.id = 1;
+        trade.price = 100_25;
+        trade.quantity = 10;
+        trade.buy = true;
+        pojo = PojoCodec.of(Trade.class);
+        flyweight = pojo.flyweight();
+        priceOffset = pojo.offsetOf("price");
+        pojo.encode(trade, buffer);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeHandWritten() {
+        buffer.clear();
+        handWritten.encode(trade, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer encodePojo() {
+        buffer.clear();
+        pojo.encode(trade, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public Trade decodePojo() {
+        buffer.clear();
+        return pojo.decode(buffer);
+    }
+
+    @Benchmark
+    public long readFlyweight() {
+        return flyweight.wrap(buffer, 0).getLong(priceOffset);
+    }
+}
@@ -0,0 +1,133 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of many threads posting to one bus at the same time, to subscribers which accept concurrent events
+ * and to subscribers which do not. Run with {@code -t} to change the number of publishers
+ *
+ * <p>{@code synchronized} subscribers take a monitor around the method, as the bus used to do for every
+ * {@link AcceptConcurrentEvents} method. It is the baseline for the lock-free hand-off of {@code serialized}
+ * subscribers.</p>
+ *
+ * <p>A post to a {@code serialized} subscriber busy on another thread returns once the event is queued, so each
+ * publisher posts a burst of events and waits until all of them were delivered. The score counts delivered
+ * events rather than queued ones.</p>
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class ContentionBenchmark {
+    private static final int LISTENERS = 10;
+    private static final int BURST = 100;
+
+    public static class Event {
+        final AtomicLong deliveries = new AtomicLong();
+    }
+
+    @State(Scope.Thread)
+    public static class Publisher {
+        final Event event = new Event();
+    }
+
+    public static class ConcurrentListener {
+        private final Blackhole blackhole;
+
+        ConcurrentListener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onEvent(Event event) {
+            blackhole.consume(event);
+            event.deliveries.incrementAndGet();
+        }
+    }
+
+    public static class Listener {
+        private final Blackhole blackhole;
+
+        Listener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Subscribe
+        public void onEvent(Event event) {
+            blackhole.consume(event);
+            event.deliveries.incrementAndGet();
+        }
+    }
+
+    public static class SynchronizedListener {
+        private final Blackhole blackhole;
+
+        SynchronizedListener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public synchronized void onEvent(Event event) {
+            blackhole.consume(event);
+            event.deliveries.incrementAndGet();
+        }
+    }
+
+    @Param({"concurrent", "serialized", "synchronized"})
+    public String subscribers;
+
+    private EventBus bus;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) {
+        bus = new EventBus();
+        for (int i = 0; i < LISTENERS; i++)
+            bus.register(listener(blackhole));
+    }
+
+    private Object listener(Blackhole blackhole) {
+        switch (subscribers) {
+            case "concurrent":
+                return new ConcurrentListener(blackhole);
+            case "serialized":
+                return new Listener(blackhole);
+            default:
+                return new SynchronizedListener(blackhole);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void post(Publisher publisher) {
+        Event event = publisher.event;
+        long delivered = event.deliveries.get() + BURST * LISTENERS;
+        for (int i = 0; i < BURST; i++)
+            bus.post(event);
+        while (event.deliveries.get() < delivered)
+            Thread.yield();
+    }
+}
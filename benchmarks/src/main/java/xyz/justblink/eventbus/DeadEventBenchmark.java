@@ -0,0 +1,65 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of posting events without subscribers, with and without a {@link DeadEvent} subscriber
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeadEventBenchmark {
+
+    public static class Event {
+    }
+
+    public static class DeadEventListener {
+        private final Blackhole blackhole;
+
+        DeadEventListener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Subscribe
+        public void onDeadEvent(DeadEvent event) {
+            blackhole.consume(event);
+        }
+    }
+
+    @Param({"false", "true"})
+    public boolean deadEventSubscriber;
+
+    private final Event event = new Event();
+    private EventBus bus;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) {
+        bus = new EventBus();
+        if (deadEventSubscriber)
+            bus.register(new DeadEventListener(blackhole));
+    }
+
+    @Benchmark
+    public void postDeadEvent() {
+        bus.post(event);
+    }
+}
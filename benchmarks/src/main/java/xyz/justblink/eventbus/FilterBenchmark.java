@@ -0,0 +1,111 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posting an event to one of many subscribers of the same type, each interested in a single symbol, when the
+ * subscribers check the symbol themselves and when they declare it with {@link Subscribe#keysFrom()}
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+
+    public static class Trade {
+        @FilterKey
+        final String symbol;
+
+        Trade(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    public static class CheckingListener {
+        final String symbol;
+        final Blackhole blackhole;
+
+        CheckingListener(String symbol, Blackhole blackhole) {
+            this.symbol = symbol;
+            this.blackhole = blackhole;
+        }
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onTrade(Trade trade) {
+            if (trade.symbol.equals(symbol))
+                blackhole.consume(trade);
+        }
+    }
+
+    public static class KeyedListener {
+        final String symbol;
+        final Blackhole blackhole;
+
+        KeyedListener(String symbol, Blackhole blackhole) {
+            this.symbol = symbol;
+            this.blackhole = blackhole;
+        }
+
+        @Subscribe(keysFrom = "symbol")
+        @AcceptConcurrentEvents
+        public void onTrade(Trade trade) {
+            blackhole.consume(trade);
+        }
+    }
+
+    @Param({"10", "1000"})
+    public int subscribers;
+
+    private EventBus checkingBus;
+    private EventBus keyedBus;
+    private Trade[] trades;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) {
+        checkingBus = new EventBus("checking");
+        keyedBus = new EventBus("keyed");
+        trades = new Trade[subscribers];
+        for (int i = 0; i < subscribers; i++) {
+            String symbol = "S" + i;
+            trades[i] = new Trade(symbol);
+            checkingBus.register(new CheckingListener(symbol, blackhole));
+            keyedBus.register(new KeyedListener(symbol, blackhole));
+        }
+    }
+
+    private Trade nextTrade() {
+        Trade trade = trades[next];
+        next = next + 1 == trades.length ? 0 : next + 1;
+        return trade;
+    }
+
+    @Benchmark
+    public void checkInSubscriber() {
+        checkingBus.post(nextTrade());
+    }
+
+    @Benchmark
+    public void filterKey() {
+        keyedBus.post(nextTrade());
+    }
+}
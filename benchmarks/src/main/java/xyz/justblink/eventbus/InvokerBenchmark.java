@@ -0,0 +1,102 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways a subscriber method can be called: a plain Java call, {@link Method#invoke(Object, Object...)}
+ * and the invokers produced by {@link Invokers}
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class InvokerBenchmark {
+
+    public static class PublicEvent {
+    }
+
+    public static class PublicListener {
+        long count;
+
+        @Subscribe
+        public void on(PublicEvent event) {
+            count++;
+        }
+    }
+
+    static class HiddenListener {
+        long count;
+
+        @Subscribe
+        void on(PublicEvent event) {
+            count++;
+        }
+    }
+
+    private final PublicEvent event = new PublicEvent();
+    private final PublicListener publicListener = new PublicListener();
+    private final HiddenListener hiddenListener = new HiddenListener();
+
+    private Method method;
+    private SubscriberInvoker reflective;
+    private SubscriberInvoker generated;
+    private SubscriberInvoker methodHandle;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        method = PublicListener.class.getDeclaredMethod("on", PublicEvent.class);
+        method.setAccessible(true);
+        reflective = Invokers.reflective(method);
+        generated = Invokers.create(method);
+
+        Method hidden = HiddenListener.class.getDeclaredMethod("on", PublicEvent.class);
+        hidden.setAccessible(true);
+        methodHandle = Invokers.create(hidden);
+    }
+
+    @Benchmark
+    public long directCall() {
+        publicListener.on(event);
+        return publicListener.count;
+    }
+
+    @Benchmark
+    public long methodInvoke() throws Exception {
+        method.invoke(publicListener, event);
+        return publicListener.count;
+    }
+
+    @Benchmark
+    public long reflectiveInvoker() throws Throwable {
+        reflective.invoke(publicListener, event);
+        return publicListener.count;
+    }
+
+    @Benchmark
+    public long generatedInvoker() throws Throwable {
+        generated.invoke(publicListener, event);
+        return publicListener.count;
+    }
+
+    @Benchmark
+    public long methodHandleInvoker() throws Throwable {
+        methodHandle.invoke(hiddenListener, event);
+        return hiddenListener.count;
+    }
+}
@@ -0,0 +1,89 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append throughput of {@link EventJournal} for a small event, with and without background syncs
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+
+    public static class Trade {
+        final long id;
+        final long price;
+        final int quantity;
+
+        Trade(long id, long price, int quantity) {
+            this.id = id;
+            this.price = price;
+            this.quantity = quantity;
+        }
+    }
+
+    static class TradeCodec implements EventCodec<Trade> {
+        @Override
+        public void encode(Trade event, ByteBuffer buffer) {
+            buffer.putLong(event.id).putLong(event.price).putInt(event.quantity);
+        }
+
+        @Override
+        public Trade decode(ByteBuffer buffer) {
+            return new Trade(buffer.getLong(), buffer.getLong(), buffer.getInt());
+        }
+    }
+
+    @Param({"0", "10"})
+    public long syncIntervalMillis;
+
+    private final Trade trade = new Trade(1, 100_25, 10);
+    private Path directory;
+    private EventJournal journal;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        EventCodecs codecs = new EventCodecs();
+        codecs.register(1, Trade.class, new TradeCodec());
+        directory = Files.createTempDirectory("journal-bench");
+        journal = new EventJournal(directory, codecs, EventJournal.DEFAULT_SEGMENT_SIZE, syncIntervalMillis);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public boolean append() {
+        return journal.append(trade);
+    }
+}
@@ -0,0 +1,111 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time to deliver a burst of events spread over many keys on a thread pool, with dispatchers which keep the order
+ * of each key and with one which does not. The subscriber updates state of its own per key, which the
+ * {@code partitioned} dispatcher keeps on one thread per key
+ *
+ * <p>{@code perSubscriber} keeps the order by delivering to the subscriber one event at a time, and
+ * {@code priority} delivers on all threads in any order. Run with {@code -p threads=...} to see how each of them
+ * scales with the number of threads.</p>
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PartitionedDispatcherBenchmark {
+    private static final int KEYS = 256;
+    private static final int BURST = 10_000;
+
+    public static class Order {
+        @FilterKey
+        final int account;
+
+        Order(int account) {
+            this.account = account;
+        }
+    }
+
+    public static class Listener {
+        final long[][] positions = new long[KEYS][8];
+        final AtomicInteger remaining = new AtomicInteger();
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onOrder(Order order) {
+            long[] position = positions[order.account];
+            for (int i = 0; i < position.length; i++)
+                position[i] += i;
+            remaining.decrementAndGet();
+        }
+    }
+
+    @Param({"perSubscriber", "priority", "partitioned"})
+    public String dispatcher;
+
+    @Param({"4"})
+    public int threads;
+
+    private ExecutorService executor;
+    private EventBus bus;
+    private Listener listener;
+    private Order[] orders;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = java.util.concurrent.Executors.newFixedThreadPool(threads);
+        bus = new AsyncEventBus(dispatcher, executor, dispatcher());
+        listener = new Listener();
+        bus.register(listener);
+        orders = new Order[BURST];
+        for (int i = 0; i < BURST; i++)
+            orders[i] = new Order(i % KEYS);
+    }
+
+    private Dispatcher dispatcher() {
+        switch (dispatcher) {
+            case "perSubscriber":
+                return Dispatcher.perSubscriberDispatcher();
+            case "priority":
+                return Dispatcher.priorityDispatcher(threads);
+            default:
+                return Dispatcher.partitionedDispatcher(threads);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void deliverBurst() {
+        listener.remaining.set(BURST);
+        for (Order order : orders)
+            bus.post(order);
+        while (listener.remaining.get() > 0)
+            Thread.yield();
+    }
+}
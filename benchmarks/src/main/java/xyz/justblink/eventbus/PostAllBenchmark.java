@@ -0,0 +1,119 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Posting a batch of events one by one with {@link EventBus#post(Object)} against handing the whole batch to
+ * {@link EventBus#postAll(java.util.Collection)}. Each invocation posts {@code batch} events to 10 subscribers and
+ * waits until all of them are delivered
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostAllBenchmark {
+    private static final int BATCH = 1_000;
+    private static final int SUBSCRIBERS = 10;
+
+    public static class Event {
+    }
+
+    public static class Listener {
+        final AtomicLong count;
+
+        Listener(AtomicLong count) {
+            this.count = count;
+        }
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onEvent(Event event) {
+            count.incrementAndGet();
+        }
+    }
+
+    @Param({"perThread", "async", "ringBuffer"})
+    public String bus;
+
+    private final List<Object> events = new ArrayList<>(BATCH);
+    private final AtomicLong delivered = new AtomicLong();
+    private ExecutorService executorService;
+    private EventBus eventBus;
+    private long expected;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        for (int i = 0; i < BATCH; i++)
+            events.add(new Event());
+        switch (bus) {
+            case "perThread":
+                eventBus = new EventBus();
+                break;
+            case "async":
+                executorService = java.util.concurrent.Executors.newSingleThreadExecutor();
+                eventBus = new AsyncEventBus("bench", executorService, Dispatcher.asyncDispatcher());
+                break;
+            case "ringBuffer":
+                eventBus = new RingBufferEventBus("bench", 4096);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown bus " + bus);
+        }
+        for (int i = 0; i < SUBSCRIBERS; i++)
+            eventBus.register(new Listener(delivered));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        if (eventBus instanceof RingBufferEventBus)
+            ((RingBufferEventBus) eventBus).shutdown();
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void postEach() {
+        for (int i = 0; i < BATCH; i++)
+            eventBus.post(events.get(i));
+        awaitDelivery();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void postAll() {
+        eventBus.postAll(events);
+        awaitDelivery();
+    }
+
+    private void awaitDelivery() {
+        expected += BATCH * SUBSCRIBERS;
+        while (delivered.get() < expected)
+            Thread.yield();
+    }
+}
@@ -0,0 +1,97 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishing a window of events on an {@link AsyncEventBus} and waiting until every subscriber has handled all of
+ * them, by wrapping each event with a {@link CountDownLatch} which the subscribers count down, and by
+ * {@link EventBus#postAsync(Object)}
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostAsyncBenchmark {
+    private static final int WINDOW = 100;
+    private static final int SUBSCRIBERS = 10;
+
+    public static class Event {
+    }
+
+    public static class LatchedEvent {
+        final CountDownLatch done = new CountDownLatch(SUBSCRIBERS);
+    }
+
+    public static class Listener {
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onEvent(Event event) {
+        }
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onLatchedEvent(LatchedEvent event) {
+            event.done.countDown();
+        }
+    }
+
+    private final Event event = new Event();
+    private final LatchedEvent[] latched = new LatchedEvent[WINDOW];
+    private final CompletableFuture<?>[] futures = new CompletableFuture<?>[WINDOW];
+    private ExecutorService executorService;
+    private EventBus bus;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executorService = java.util.concurrent.Executors.newSingleThreadExecutor();
+        bus = new AsyncEventBus("bench", executorService, Dispatcher.immediateDispatcher());
+        for (int i = 0; i < SUBSCRIBERS; i++)
+            bus.register(new Listener());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executorService.shutdownNow();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public void latch() throws InterruptedException {
+        for (int i = 0; i < WINDOW; i++) {
+            latched[i] = new LatchedEvent();
+            bus.post(latched[i]);
+        }
+        for (int i = 0; i < WINDOW; i++)
+            latched[i].done.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public void postAsync() {
+        for (int i = 0; i < WINDOW; i++)
+            futures[i] = bus.postAsync(event);
+        CompletableFuture.allOf(futures).join();
+    }
+}
@@ -0,0 +1,84 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link EventBus#post(Object)} on the posting thread with each {@link Dispatcher}, fanning out to 1, 10
+ * and 100 subscribers
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PostBenchmark {
+
+    public static class Event {
+    }
+
+    public static class Listener {
+        private final Blackhole blackhole;
+
+        Listener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Subscribe
+        public void onEvent(Event event) {
+            blackhole.consume(event);
+        }
+    }
+
+    @Param({"perThread", "immediate", "async"})
+    public String dispatcher;
+
+    @Param({"1", "10", "100"})
+    public int subscribers;
+
+    private final Event event = new Event();
+    private EventBus bus;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) {
+        bus = new EventBus(dispatcher(dispatcher));
+        for (int i = 0; i < subscribers; i++)
+            bus.register(new Listener(blackhole));
+    }
+
+    static Dispatcher dispatcher(String name) {
+        switch (name) {
+            case "perThread":
+                return Dispatcher.perThreadDispatcher();
+            case "immediate":
+                return Dispatcher.immediateDispatcher();
+            case "async":
+                return Dispatcher.asyncDispatcher();
+            case "perSubscriber":
+                return Dispatcher.perSubscriberDispatcher();
+            default:
+                throw new IllegalArgumentException("Unknown dispatcher " + name);
+        }
+    }
+
+    @Benchmark
+    public void post() {
+        bus.post(event);
+    }
+}
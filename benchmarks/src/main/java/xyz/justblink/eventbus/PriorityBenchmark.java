@@ -0,0 +1,134 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency of a critical event posted behind a backlog of bulk events. Before each invocation the executor thread
+ * is held while the backlog is posted; the invocation posts the critical event, lets the executor go and waits
+ * until the critical event is delivered. The {@code deliveredAhead} counter reports how many bulk events were
+ * delivered before it, which does not depend on how quickly the machine wakes the executor thread
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriorityBenchmark {
+
+    @EventPriority(Priority.LOW)
+    public static class Telemetry {
+    }
+
+    @EventPriority(Priority.CRITICAL)
+    public static class KillSwitch {
+    }
+
+    public static class Listener {
+        final AtomicLong telemetry = new AtomicLong();
+        final AtomicLong killSwitches = new AtomicLong();
+        volatile long telemetryBeforeKillSwitch;
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onTelemetry(Telemetry event) {
+            telemetry.lazySet(telemetry.get() + 1);
+        }
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onKillSwitch(KillSwitch event) {
+            telemetryBeforeKillSwitch = telemetry.get();
+            killSwitches.lazySet(killSwitches.get() + 1);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long deliveredAhead;
+    }
+
+    @Param({"async", "priority"})
+    public String dispatcher;
+
+    @Param({"10000"})
+    public int backlog;
+
+    private final Telemetry telemetry = new Telemetry();
+    private final KillSwitch killSwitch = new KillSwitch();
+    private final Listener listener = new Listener();
+    private ExecutorService executorService;
+    private EventBus bus;
+    private CountDownLatch release;
+    private long expectedTelemetry;
+    private long expectedKillSwitches;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executorService = java.util.concurrent.Executors.newSingleThreadExecutor();
+        Dispatcher selected = dispatcher.equals("priority") ? Dispatcher.priorityDispatcher(1)
+                : PostBenchmark.dispatcher(dispatcher);
+        bus = new AsyncEventBus("bench", executorService, selected);
+        bus.register(listener);
+    }
+
+    @Setup(Level.Invocation)
+    public void postBacklog() {
+        CountDownLatch latch = new CountDownLatch(1);
+        release = latch;
+        executorService.execute(() -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < backlog; i++)
+            bus.post(telemetry);
+        expectedTelemetry += backlog;
+    }
+
+    @TearDown(Level.Invocation)
+    public void drainBacklog() {
+        while (listener.telemetry.get() < expectedTelemetry)
+            Thread.yield();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executorService.shutdownNow();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void criticalEventLatency(Counters counters) {
+        long telemetryBefore = listener.telemetry.get();
+        bus.post(killSwitch);
+        release.countDown();
+        expectedKillSwitches++;
+        while (listener.killSwitches.get() < expectedKillSwitches)
+            Thread.yield();
+        counters.deliveredAhead += listener.telemetryBeforeKillSwitch - telemetryBefore;
+    }
+}
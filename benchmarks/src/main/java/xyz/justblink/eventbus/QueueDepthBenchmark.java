@@ -0,0 +1,102 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of queueing deep backlogs in an {@link AsyncEventBus}. Each invocation posts a burst of events to a
+ * subscriber which only gets to run on the single executor thread once the whole burst is queued, then waits for
+ * all of them to be delivered. Run it with {@code -prof gc} to compare the heap allocated per queued event
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueueDepthBenchmark {
+    private static final int BURST = 100_000;
+
+    public static class Quote {
+        long instrument;
+        long timestamp;
+        double bid;
+        double ask;
+    }
+
+    public static class Listener {
+        final AtomicLong count = new AtomicLong();
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onQuote(Quote quote) {
+            count.lazySet(count.get() + 1);
+        }
+    }
+
+    @Param({"async", "perSubscriber", "offHeap"})
+    public String dispatcher;
+
+    private final Quote quote = new Quote();
+    private final Listener listener = new Listener();
+    private ExecutorService executorService;
+    private EventBus bus;
+    private long expected;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executorService = java.util.concurrent.Executors.newSingleThreadExecutor();
+        EventCodecs codecs = new EventCodecs();
+        codecs.register(1, Quote.class);
+        Dispatcher selected = dispatcher.equals("offHeap") ? Dispatcher.offHeapDispatcher(codecs)
+                : PostBenchmark.dispatcher(dispatcher);
+        bus = new AsyncEventBus("bench", executorService, selected);
+        bus.register(listener);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executorService.shutdownNow();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void postBacklog() throws InterruptedException {
+        // Holds the executor thread, so that the whole burst is queued before anything is delivered
+        java.util.concurrent.CountDownLatch posted = new java.util.concurrent.CountDownLatch(1);
+        executorService.execute(() -> {
+            try {
+                posted.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < BURST; i++) {
+            quote.instrument = i;
+            bus.post(quote);
+        }
+        posted.countDown();
+        expected += BURST;
+        while (listener.count.get() < expected)
+            Thread.yield();
+    }
+}
@@ -0,0 +1,95 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of registering and unregistering listeners on a bus with {@code listeners} other listeners, alone and
+ * while other threads keep posting
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class RegistryBenchmark {
+
+    public static class Event {
+    }
+
+    public static class OtherEvent {
+    }
+
+    public static class Listener {
+        private final Blackhole blackhole;
+
+        Listener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Subscribe
+        public void onEvent(Event event) {
+            blackhole.consume(event);
+        }
+
+        @Subscribe
+        public void onOtherEvent(OtherEvent event) {
+            blackhole.consume(event);
+        }
+    }
+
+    @Param({"100", "10000"})
+    public int listeners;
+
+    private final Event event = new Event();
+    private EventBus bus;
+    private Listener churned;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) {
+        bus = new EventBus(Dispatcher.immediateDispatcher());
+        for (int i = 0; i < listeners; i++)
+            bus.register(new Listener(blackhole));
+        churned = new Listener(blackhole);
+    }
+
+    @Benchmark
+    @Group("churn")
+    public void registerUnregister() {
+        bus.register(churned);
+        bus.unregister(churned);
+    }
+
+    @Benchmark
+    @Group("churnWhilePosting")
+    @GroupThreads(1)
+    public void churn() {
+        bus.register(churned);
+        bus.unregister(churned);
+    }
+
+    @Benchmark
+    @Group("churnWhilePosting")
+    @GroupThreads(3)
+    public void post() {
+        bus.post(event);
+    }
+}
@@ -0,0 +1,95 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Producer throughput of {@link RingBufferEventBus} with each {@link WaitStrategy}, next to an
+ * {@link AsyncEventBus} on a thread pool
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(2)
+@State(Scope.Benchmark)
+public class RingBufferBenchmark {
+
+    public static class Event {
+    }
+
+    public static class Listener {
+        final AtomicLong count = new AtomicLong();
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onEvent(Event event) {
+            count.lazySet(count.get() + 1);
+        }
+    }
+
+    @Param({"busySpin", "yielding", "parking", "blocking", "asyncEventBus"})
+    public String mode;
+
+    private final Event event = new Event();
+    private EventBus bus;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (mode) {
+            case "busySpin":
+                bus = new RingBufferEventBus("bench", 1 << 16, 1, WaitStrategy.busySpin());
+                break;
+            case "yielding":
+                bus = new RingBufferEventBus("bench", 1 << 16, 1, WaitStrategy.yielding());
+                break;
+            case "parking":
+                bus = new RingBufferEventBus("bench", 1 << 16, 1, WaitStrategy.parking());
+                break;
+            case "blocking":
+                bus = new RingBufferEventBus("bench", 1 << 16, 1, WaitStrategy.blocking());
+                break;
+            default:
+                executor = java.util.concurrent.Executors.newFixedThreadPool(1);
+                bus = new AsyncEventBus(executor);
+        }
+        bus.register(new Listener());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        if (bus instanceof RingBufferEventBus) {
+            ((RingBufferEventBus) bus).shutdown();
+            ((RingBufferEventBus) bus).awaitTermination(10, TimeUnit.SECONDS);
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Benchmark
+    public void post() {
+        bus.post(event);
+    }
+}
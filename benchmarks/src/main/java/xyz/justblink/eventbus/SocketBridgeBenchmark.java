@@ -0,0 +1,89 @@
+package xyz.justblink.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Posting events to a bus linked over loopback to another bus subscribing to them, which measures how many events
+ * per second a {@link SocketBridge} carries once frames are batched into few writes
+ *
+ * @author Kasun Piyumal
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SocketBridgeBenchmark {
+
+    public static class Tick {
+        long sequence;
+        double price;
+
+        public Tick() {
+        }
+
+        Tick(long sequence) {
+            this.sequence = sequence;
+            this.price = sequence;
+        }
+    }
+
+    public static class Counter {
+        final AtomicLong received = new AtomicLong();
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onTick(Tick tick) {
+            received.lazySet(tick.sequence);
+        }
+    }
+
+    private EventBus publisherBus;
+    private SocketBridge publisher;
+    private SocketBridge subscriber;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, InterruptedException {
+        EventCodecs codecs = new EventCodecs();
+        codecs.register(1, Tick.class);
+        publisherBus = new EventBus("publisher");
+        EventBus subscriberBus = new EventBus("subscriber");
+        subscriberBus.register(new Counter());
+
+        publisher = new SocketBridge(publisherBus, codecs);
+        subscriber = new SocketBridge(subscriberBus, codecs);
+        subscriber.connect(publisher.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)));
+        while (publisherBus.getRegistry().getSubscribers(Tick.class).length == 0)
+            Thread.sleep(5);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        publisher.close();
+        subscriber.close();
+    }
+
+    @Benchmark
+    public void postOverLoopback() {
+        publisherBus.post(new Tick(sequence++));
+    }
+}
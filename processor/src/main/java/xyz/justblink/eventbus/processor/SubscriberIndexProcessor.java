@@ -0,0 +1,410 @@
+package xyz.justblink.eventbus.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates a {@code SubscriberIndex} for every class with {@code @Subscribe} methods, so that the bus can register
+ * instances of the class without scanning it with reflection or making its methods accessible.
+ *
+ * <p>The index of {@code com.example.Outer.Listener} is written to {@code com.example.Outer_Listener_SubscriberIndex}
+ * and calls the subscriber methods through generated invoker classes, one per method. Being in the same package,
+ * they can call package-private and protected methods as well as public ones. All indexes are listed in
+ * {@code META-INF/services/xyz.justblink.eventbus.SubscriberIndex}.</p>
+ *
+ * <p>A class is left to reflection if generated code can not refer to it or to one of its subscriber methods,
+ * which is the case for anonymous and local classes, private classes and private methods. Subscriber methods which
+ * the bus would reject at runtime, such as ones with more than one parameter, are reported as compile errors.</p>
+ *
+ * @author Kasun Piyumal
+ */
+@SupportedAnnotationTypes(SubscriberIndexProcessor.SUBSCRIBE)
+public class SubscriberIndexProcessor extends AbstractProcessor {
+    static final String SUBSCRIBE = "xyz.justblink.eventbus.Subscribe";
+    private static final String BATCH_EVENTS = "xyz.justblink.eventbus.BatchEvents";
+    private static final String CONFLATE = "xyz.justblink.eventbus.Conflate";
+    private static final String ACCEPT_CONCURRENT_EVENTS = "xyz.justblink.eventbus.AcceptConcurrentEvents";
+    private static final String SUBSCRIBER_INDEX = "xyz.justblink.eventbus.SubscriberIndex";
+    private static final String INDEXED_METHOD = "xyz.justblink.eventbus.IndexedSubscriberMethod";
+    private static final String INVOKER = "xyz.justblink.eventbus.SubscriberInvoker";
+    private static final String SERVICE_FILE = "META-INF/services/" + SUBSCRIBER_INDEX;
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+
+    /** Binary names of the indexes written so far, and the ones listed by an earlier compilation */
+    private final Set<String> indexes = new TreeSet<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        filer = processingEnv.getFiler();
+        messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Map<TypeElement, List<ExecutableElement>> listeners = new LinkedHashMap<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.METHOD) {
+                    listeners.computeIfAbsent((TypeElement) element.getEnclosingElement(), type -> new ArrayList<>())
+                            .add((ExecutableElement) element);
+                }
+            }
+        }
+
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : listeners.entrySet()) {
+            TypeElement listener = entry.getKey();
+            List<ExecutableElement> methods = entry.getValue();
+            boolean valid = true;
+            for (ExecutableElement method : methods)
+                valid &= validate(method);
+            if (valid && canIndex(listener, methods))
+                writeIndex(listener, methods);
+        }
+
+        if (roundEnv.processingOver() && !indexes.isEmpty())
+            writeServiceFile();
+        return false;
+    }
+
+    /**
+     * Reports the subscriber methods the bus would reject when registering the class
+     *
+     * @return whether the method is a valid subscriber method
+     */
+    private boolean validate(ExecutableElement method) {
+        if (method.getParameters().size() != 1) {
+            error(method, "Method " + method + " has @Subscribe annotation but has " + method.getParameters().size()
+                    + " parameters. Subscriber methods must have exactly 1 parameter");
+            return false;
+        }
+        AnnotationMirror batch = annotation(method, BATCH_EVENTS);
+        if (batch == null)
+            return true;
+        if (annotation(method, CONFLATE) != null) {
+            error(method, "Method " + method + " has both @Conflate and @BatchEvents annotations");
+            return false;
+        }
+        if (batchElementType(method) == null) {
+            error(method, "Method " + method + " has @BatchEvents annotation but does not take a List with a "
+                    + "concrete element type, such as List<MyEvent>");
+            return false;
+        }
+        if ((Integer) value(batch, "maxSize") < 1) {
+            error(method, "maxSize of @BatchEvents must be at least 1 on method " + method);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return whether generated code in the package of {@code listener} can refer to the class and call all of
+     * its subscriber methods
+     */
+    private boolean canIndex(TypeElement listener, List<ExecutableElement> methods) {
+        NestingKind nesting = listener.getNestingKind();
+        if (nesting == NestingKind.ANONYMOUS || nesting == NestingKind.LOCAL)
+            return false;
+        // The bus only looks for subscriber methods in classes, not in the interfaces they implement
+        if (listener.getKind().isInterface())
+            return false;
+
+        PackageElement pkg = elements.getPackageOf(listener);
+        String reason = null;
+        if (!isAccessible(listener, pkg)) {
+            reason = "it is private or nested in a private class";
+        } else {
+            for (ExecutableElement method : methods) {
+                if (method.getModifiers().contains(Modifier.PRIVATE)) {
+                    reason = "method " + method + " is private";
+                    break;
+                }
+                if (isFiltered(method)) {
+                    reason = "method " + method + " filters events by key";
+                    break;
+                }
+                if (annotation(method, CONFLATE) != null) {
+                    reason = "method " + method + " conflates events";
+                    break;
+                }
+                if (!isAccessible(method.getParameters().get(0).asType(), pkg)) {
+                    reason = "the parameter type of method " + method + " is not visible from its package";
+                    break;
+                }
+            }
+        }
+        if (reason != null) {
+            messager.printMessage(Diagnostic.Kind.NOTE, "Not indexing " + listener.getQualifiedName() + ", "
+                    + reason + ". Its subscriber methods will be found with reflection", listener);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return whether {@code method} sets {@code keys} or {@code keysFrom} of its {@code @Subscribe}. Its keys
+     * have to be converted and read at runtime, so such methods are left to reflection
+     */
+    private static boolean isFiltered(ExecutableElement method) {
+        for (ExecutableElement element : annotation(method, SUBSCRIBE).getElementValues().keySet()) {
+            if (element.getSimpleName().contentEquals("keys") || element.getSimpleName().contentEquals("keysFrom"))
+                return true;
+        }
+        return false;
+    }
+
+    private boolean isAccessible(TypeMirror type, PackageElement pkg) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return isAccessible(((ArrayType) type).getComponentType(), pkg);
+            case DECLARED:
+                return isAccessible((TypeElement) ((DeclaredType) type).asElement(), pkg);
+            case TYPEVAR:
+                return isAccessible(types.erasure(type), pkg);
+            default:
+                return type.getKind().isPrimitive();
+        }
+    }
+
+    private boolean isAccessible(TypeElement type, PackageElement pkg) {
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            TypeElement current = (TypeElement) element;
+            if (current.getNestingKind() == NestingKind.ANONYMOUS || current.getNestingKind() == NestingKind.LOCAL)
+                return false;
+            Set<Modifier> modifiers = current.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE))
+                return false;
+            if (!modifiers.contains(Modifier.PUBLIC) && !elements.getPackageOf(current).equals(pkg))
+                return false;
+        }
+        return true;
+    }
+
+    private void writeIndex(TypeElement listener, List<ExecutableElement> methods) {
+        PackageElement pkg = elements.getPackageOf(listener);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String simpleName = indexName(listener);
+        String binaryName = packageName.isEmpty() ? simpleName : packageName + '.' + simpleName;
+        String listenerType = sourceName(listener.asType());
+
+        try (PrintWriter out = new PrintWriter(filer.createSourceFile(binaryName, listener).openWriter())) {
+            out.println("// Generated by " + SubscriberIndexProcessor.class.getName() + ", do not edit");
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ';');
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Subscriber methods of {@link " + listenerType + '}');
+            out.println(" */");
+            out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+            out.println("public final class " + simpleName + " implements " + SUBSCRIBER_INDEX + " {");
+            out.println();
+            out.println("    @Override");
+            out.println("    public java.lang.Class<?> getListenerClass() {");
+            out.println("        return " + listenerType + ".class;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + INDEXED_METHOD + "[] getSubscriberMethods() {");
+            out.println("        return new " + INDEXED_METHOD + "[]{");
+            for (int i = 0; i < methods.size(); i++) {
+                out.print("                " + indexedMethod(listenerType, methods.get(i), i));
+                out.println(i < methods.size() - 1 ? "," : "");
+            }
+            out.println("        };");
+            out.println("    }");
+            for (int i = 0; i < methods.size(); i++) {
+                out.println();
+                writeInvoker(out, listenerType, methods.get(i), i);
+            }
+            out.println("}");
+        } catch (IOException e) {
+            error(listener, "Could not write the subscriber index of " + listener.getQualifiedName() + ": " + e);
+            return;
+        }
+        indexes.add(binaryName);
+    }
+
+    /**
+     * @return the constructor call describing {@code method} to the bus
+     */
+    private String indexedMethod(String listenerType, ExecutableElement method, int index) {
+        TypeMirror parameterType = method.getParameters().get(0).asType();
+        AnnotationMirror batch = annotation(method, BATCH_EVENTS);
+        StringBuilder call = new StringBuilder("new ").append(INDEXED_METHOD).append('(')
+                .append(listenerType).append(".class, \"").append(method.getSimpleName()).append("\", ")
+                .append(sourceName(parameterType)).append(".class, ");
+        if (batch != null)
+            call.append(sourceName(batchElementType(method))).append(".class, ");
+        call.append("new Invoker").append(index).append("(), ")
+                .append(annotation(method, ACCEPT_CONCURRENT_EVENTS) != null).append(", ")
+                .append(value(annotation(method, SUBSCRIBE), "priority"));
+        if (batch != null) {
+            call.append(", ").append(value(batch, "maxSize"))
+                    .append(", ").append(value(batch, "maxLingerMillis")).append('L');
+        }
+        return call.append(')').toString();
+    }
+
+    private void writeInvoker(PrintWriter out, String listenerType, ExecutableElement method, int index) {
+        TypeMirror parameterType = method.getParameters().get(0).asType();
+        String argument = "(" + (parameterType.getKind().isPrimitive()
+                ? types.boxedClass((PrimitiveType) parameterType).getQualifiedName().toString()
+                : sourceName(parameterType)) + ") event";
+        String receiver = method.getModifiers().contains(Modifier.STATIC) ? listenerType
+                : "((" + listenerType + ") target)";
+
+        out.println("    private static final class Invoker" + index + " implements " + INVOKER + " {");
+        out.println("        @Override");
+        out.println("        public void invoke(java.lang.Object target, java.lang.Object event) "
+                + "throws java.lang.Throwable {");
+        out.println("            " + receiver + '.' + method.getSimpleName() + '(' + argument + ");");
+        out.println("        }");
+        out.println("    }");
+    }
+
+    /**
+     * Adds the indexes listed by an earlier compilation into the same output, so incremental builds compiling
+     * only some of the listener classes keep the others, and writes the service file
+     */
+    private void writeServiceFile() {
+        try {
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(existing.openReader(true))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#"))
+                        indexes.add(line);
+                }
+            }
+        } catch (IOException | IllegalArgumentException ignored) {
+            // Nothing listed yet
+        }
+
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String index : indexes)
+                    writer.write(index + '\n');
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Could not write " + SERVICE_FILE + ": " + e);
+        }
+    }
+
+    /**
+     * Resolves {@code E} of a batch subscriber method taking a {@code List<E>}, the same way the bus does
+     *
+     * @return the erased element type, or {@code null} if the parameter is not such a list
+     */
+    private TypeMirror batchElementType(ExecutableElement method) {
+        TypeMirror parameterType = method.getParameters().get(0).asType();
+        TypeMirror list = types.erasure(elements.getTypeElement(List.class.getName()).asType());
+        if (parameterType.getKind() != TypeKind.DECLARED
+                || !types.isAssignable(list, types.erasure(parameterType)))
+            return null;
+
+        List<? extends TypeMirror> arguments = ((DeclaredType) parameterType).getTypeArguments();
+        if (arguments.isEmpty())
+            return null;
+        TypeMirror elementType = arguments.get(0);
+        if (elementType.getKind() == TypeKind.WILDCARD) {
+            TypeMirror bound = ((WildcardType) elementType).getExtendsBound();
+            elementType = bound != null ? bound : elements.getTypeElement(Object.class.getName()).asType();
+        }
+        return isConcrete(elementType) ? types.erasure(elementType) : null;
+    }
+
+    private static boolean isConcrete(TypeMirror type) {
+        while (type.getKind() == TypeKind.ARRAY)
+            type = ((ArrayType) type).getComponentType();
+        return type.getKind() == TypeKind.DECLARED || type.getKind().isPrimitive();
+    }
+
+    /**
+     * @return {@code Outer_Inner_SubscriberIndex} for {@code Outer.Inner}
+     */
+    private static String indexName(TypeElement listener) {
+        StringBuilder name = new StringBuilder(listener.getSimpleName());
+        for (Element enclosing = listener.getEnclosingElement(); enclosing instanceof TypeElement;
+             enclosing = enclosing.getEnclosingElement())
+            name.insert(0, enclosing.getSimpleName() + "_");
+        return name.append("_SubscriberIndex").toString();
+    }
+
+    /**
+     * @return the erasure of {@code type} as it is written in source, such as {@code java.util.Map.Entry}
+     */
+    private String sourceName(TypeMirror type) {
+        return types.erasure(type).toString();
+    }
+
+    private static AnnotationMirror annotation(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(annotationType))
+                return mirror;
+        }
+        return null;
+    }
+
+    private Object value(AnnotationMirror annotation, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : elements.getElementValuesWithDefaults(annotation).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name))
+                return entry.getValue().getValue();
+        }
+        throw new IllegalArgumentException("No value " + name + " in " + annotation);
+    }
+
+    private void error(Element element, String message) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,174 @@
+package xyz.justblink.eventbus.processor;
+
+import org.junit.jupiter.api.Test;
+import xyz.justblink.eventbus.EventBus;
+import xyz.justblink.eventbus.SubscriberIndex;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SubscriberIndexProcessorTest {
+
+    private static final String LISTENER = String.join("\n",
+            "package listeners;",
+            "import java.util.*;",
+            "import xyz.justblink.eventbus.*;",
+            "public class Listener {",
+            "    public final List<Object> events = new ArrayList<>();",
+            "    @Subscribe(priority = 1)",
+            "    void onString(String event) { events.add(\"string:\" + event); }",
+            "    @Subscribe",
+            "    @AcceptConcurrentEvents",
+            "    protected void onCharSequence(CharSequence event) { events.add(\"chars:\" + event); }",
+            "    @Subscribe",
+            "    @BatchEvents(maxSize = 10)",
+            "    public void onIntegers(List<? extends Integer> batch) { events.addAll(batch); }",
+            "    public static class Nested extends Listener {",
+            "        @Subscribe",
+            "        public void onLong(Long event) { events.add(event); }",
+            "    }",
+            "    private static class Hidden {",
+            "        @Subscribe",
+            "        public void onString(String event) { }",
+            "    }",
+            "    public static class Filtered {",
+            "        @Subscribe(keys = \"a\")",
+            "        public void onString(String event) { }",
+            "    }",
+            "}");
+
+    private static final String INVALID = String.join("\n",
+            "package listeners;",
+            "import java.util.List;",
+            "import xyz.justblink.eventbus.*;",
+            "public class Invalid {",
+            "    @Subscribe",
+            "    public void onTwo(String first, String second) { }",
+            "    @Subscribe",
+            "    @BatchEvents",
+            "    public void onRawBatch(List batch) { }",
+            "}");
+
+    private static final class Source extends SimpleJavaFileObject {
+        private final String code;
+
+        Source(String className, String code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    private static boolean compile(Path output, DiagnosticCollector<JavaFileObject> diagnostics, Source source)
+            throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null,
+                StandardCharsets.UTF_8)) {
+            String eventBus = new File(EventBus.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                    .getPath();
+            List<String> options = Arrays.asList("-classpath", eventBus, "-d", output.toString(),
+                    "-s", output.toString());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    Collections.singletonList(source));
+            task.setProcessors(Collections.singletonList(new SubscriberIndexProcessor()));
+            return task.call();
+        }
+    }
+
+    private static List<String> lines(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void generatesAnIndexForEachAccessibleListenerClass() throws Exception {
+        Path output = Files.createTempDirectory("eventbus-processor");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(compile(output, diagnostics, new Source("listeners.Listener", LISTENER)),
+                diagnostics.getDiagnostics().toString());
+
+        assertEquals(Arrays.asList("listeners.Listener_Nested_SubscriberIndex", "listeners.Listener_SubscriberIndex"),
+                lines(output.resolve("META-INF/services/xyz.justblink.eventbus.SubscriberIndex")));
+        assertFalse(Files.exists(output.resolve("listeners/Listener_Hidden_SubscriberIndex.java")));
+        assertFalse(Files.exists(output.resolve("listeners/Listener_Filtered_SubscriberIndex.java")));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()},
+                getClass().getClassLoader())) {
+            SubscriberIndex index = (SubscriberIndex) loader.loadClass("listeners.Listener_SubscriberIndex")
+                    .getConstructor().newInstance();
+            assertEquals("listeners.Listener", index.getListenerClass().getName());
+            List<String> methods = new ArrayList<>();
+            for (Object method : index.getSubscriberMethods())
+                methods.add(method.toString());
+            assertEquals(Arrays.asList("listeners.Listener.onString(java.lang.String)",
+                    "listeners.Listener.onCharSequence(java.lang.CharSequence)",
+                    "listeners.Listener.onIntegers(java.util.List)"), methods);
+
+            Thread thread = Thread.currentThread();
+            ClassLoader previous = thread.getContextClassLoader();
+            thread.setContextClassLoader(loader);
+            try {
+                deliversThroughTheIndex(loader.loadClass("listeners.Listener$Nested"));
+            } finally {
+                thread.setContextClassLoader(previous);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void deliversThroughTheIndex(Class<?> listenerClass) throws Exception {
+        Object listener = listenerClass.getConstructor().newInstance();
+        List<Object> events = (List<Object>) listenerClass.getField("events").get(listener);
+        EventBus bus = new EventBus();
+        bus.register(listener);
+
+        bus.post("event");
+        bus.post(7L);
+        bus.post(3);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (events.size() < 4 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(Arrays.asList("string:event", "chars:event", 7L, 3), events);
+    }
+
+    @Test
+    public void reportsSubscriberMethodsTheBusWouldReject() throws Exception {
+        Path output = Files.createTempDirectory("eventbus-processor");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertFalse(compile(output, diagnostics, new Source("listeners.Invalid", INVALID)));
+
+        List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                errors.add(diagnostic.getMessage(null));
+        }
+        assertEquals(2, errors.size(), errors.toString());
+        assertTrue(errors.get(0).contains("must have exactly 1 parameter"), errors.get(0));
+        assertTrue(errors.get(1).contains("concrete element type"), errors.get(1));
+    }
+}
@@ -10,6 +10,10 @@ import java.lang.annotation.Target;
  * When this annotation is added to a method, it implies that the EventBus may call this method from multiple threads
  * and the method is made to be thread safe
  *
+ * <p>The bus then calls the method without any locking or queueing. Methods without this annotation are called
+ * by one thread at a time: a thread posting to such a method while another thread is in it leaves the event to
+ * that thread, so it may return from {@link EventBus#post(Object)} before the event is handled.</p>
+ *
  * @author Kasun Piyumal
  */
 @Retention(RetentionPolicy.RUNTIME)
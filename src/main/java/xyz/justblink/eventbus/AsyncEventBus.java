@@ -10,6 +10,8 @@ import java.util.concurrent.Executor;
  * @author Kasun Piyumal
  */
 public class AsyncEventBus extends EventBus {
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
 
     /**
      * Creates a new EventBus with the {@code executor} of your choice
@@ -20,6 +22,24 @@ public class AsyncEventBus extends EventBus {
      */
     public AsyncEventBus(String identifier, Executor executor) {
         super(identifier, executor, ExceptionLogger.INSTANCE, Dispatcher.asyncDispatcher());
+        this.capacity = Integer.MAX_VALUE;
+        this.overflowPolicy = OverflowPolicy.BLOCK;
+    }
+
+    /**
+     * Creates a new EventBus with the {@code executor} and {@link Dispatcher} of your choice. Use
+     * {@link Dispatcher#perSubscriberDispatcher()} to have each subscriber receive events in the order they were
+     * posted, even on a multi-threaded executor
+     *
+     * @param identifier Name for bus, useful in logging if there are multiple buses
+     * @param executor Executor to use to dispatch events. You should shutdown this when all events are finished
+     *                 posting to the bus.
+     * @param dispatcher Dispatcher of choice for the bus
+     */
+    public AsyncEventBus(String identifier, Executor executor, Dispatcher dispatcher) {
+        super(identifier, executor, ExceptionLogger.INSTANCE, dispatcher);
+        this.capacity = Integer.MAX_VALUE;
+        this.overflowPolicy = OverflowPolicy.BLOCK;
     }
 
     /**
@@ -31,6 +51,8 @@ public class AsyncEventBus extends EventBus {
      */
     public AsyncEventBus(Executor executor, SubscriberExceptionHandler subscriberExceptionHandler) {
         super("default", executor, subscriberExceptionHandler, Dispatcher.asyncDispatcher());
+        this.capacity = Integer.MAX_VALUE;
+        this.overflowPolicy = OverflowPolicy.BLOCK;
     }
 
     /**
@@ -41,5 +63,67 @@ public class AsyncEventBus extends EventBus {
      */
     public AsyncEventBus(Executor executor) {
         super("default", executor, ExceptionLogger.INSTANCE, Dispatcher.asyncDispatcher());
+        this.capacity = Integer.MAX_VALUE;
+        this.overflowPolicy = OverflowPolicy.BLOCK;
+    }
+
+    /**
+     * Creates a new EventBus which queues at most {@code capacity} events per subscriber. Events are delivered
+     * through a mailbox per subscriber, as with {@link Dispatcher#perSubscriberDispatcher()}, and
+     * {@code overflowPolicy} decides what happens to events for a subscriber whose mailbox is full. A slow
+     * subscriber therefore can not fill up the heap, whatever queue the {@code executor} uses, since each
+     * subscriber has at most one task queued there. Subscribers marked with {@link Conflate} keep their own
+     * mailbox, which is bounded by the number of keys instead.
+     *
+     * @param identifier Name for bus, useful in logging if there are multiple buses
+     * @param executor Executor to use to dispatch events. You should shutdown this when all events are finished
+     *                 posting to the bus.
+     * @param capacity Maximum number of events queued for each subscriber
+     * @param overflowPolicy What to do with events for a subscriber whose queue is full
+     */
+    public AsyncEventBus(String identifier, Executor executor, int capacity, OverflowPolicy overflowPolicy) {
+        super(identifier, executor, ExceptionLogger.INSTANCE, Dispatcher.perSubscriberDispatcher());
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be at least 1, was " + capacity);
+        this.capacity = capacity;
+        this.overflowPolicy = Conditions.checkNonNull(overflowPolicy);
+    }
+
+    /**
+     * Creates a new EventBus which queues events in direct memory, outside of the Java heap, as described in
+     * {@link Dispatcher#offHeapDispatcher(EventCodecs)}. Use it when millions of events may be waiting for
+     * delivery, which would otherwise keep the garbage collector busy
+     *
+     * @param identifier Name for bus, useful in logging if there are multiple buses
+     * @param executor Executor to use to dispatch events. You should shutdown this when all events are finished
+     *                 posting to the bus.
+     * @param codecs Codecs encoding the queued events. Events without a codec are queued on the heap
+     */
+    public AsyncEventBus(String identifier, Executor executor, EventCodecs codecs) {
+        this(identifier, executor, Dispatcher.offHeapDispatcher(codecs));
+    }
+
+    /**
+     * Creates a new EventBus delivering events on virtual threads, as described by {@code mode}. The threads are
+     * created as needed, so there is no executor to shut down
+     *
+     * @param identifier Name for bus, useful in logging if there are multiple buses
+     * @param mode Whether to start a virtual thread per delivery or per subscriber mailbox
+     * @throws UnsupportedOperationException if the running JVM has no virtual threads, as before Java 21
+     */
+    public AsyncEventBus(String identifier, VirtualThreadMode mode) {
+        this(identifier, Executors.virtualThreadExecutor(), dispatcherFor(mode));
+    }
+
+    private static Dispatcher dispatcherFor(VirtualThreadMode mode) {
+        return Conditions.checkNonNull(mode) == VirtualThreadMode.PER_DELIVERY ? Dispatcher.immediateDispatcher()
+                : Dispatcher.perSubscriberDispatcher();
+    }
+
+    @Override
+    Mailbox newMailbox(Subscriber subscriber) {
+        if (capacity == Integer.MAX_VALUE)
+            return super.newMailbox(subscriber);
+        return Mailbox.bounded(subscriber, getExecutor(), capacity, overflowPolicy);
     }
 }
@@ -0,0 +1,43 @@
+package xyz.justblink.eventbus;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * When this annotation is added to a {@link Subscribe} method, the EventBus delivers events to it in chunks. The
+ * method must take a single {@code List} parameter, whose element type is the subscribed event type:
+ *
+ * <pre>
+ * &#64;Subscribe
+ * &#64;BatchEvents(maxSize = 500, maxLingerMillis = 5)
+ * public void onOrders(List&lt;Order&gt; orders) { ... }
+ * </pre>
+ *
+ * <p>Events are collected per subscriber and the method is called once the batch holds {@link #maxSize()}
+ * events, or once the first event of the batch has waited {@link #maxLingerMillis()}. Batches are passed to the
+ * method one at a time and in the order the events were posted. This suits subscribers writing to databases or
+ * sockets, which save a round trip for every event they can handle together.</p>
+ *
+ * <p>Batches are delivered on the bus' executor. When the bus uses a direct executor, lingering batches are
+ * flushed on threads shared by all buses for such deferred work, so {@link EventBus#post(Object)} may return
+ * before the event is handled.</p>
+ *
+ * @author Kasun Piyumal
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface BatchEvents {
+
+    /**
+     * @return maximum number of events passed to the method at once
+     */
+    int maxSize() default 100;
+
+    /**
+     * @return maximum time in milliseconds an event waits for the batch to fill up. With 0, whatever is pending
+     * is delivered as soon as possible, so batches only form while the subscriber is busy
+     */
+    long maxLingerMillis() default 0;
+}
@@ -0,0 +1,34 @@
+package xyz.justblink.eventbus;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Makes a {@link Subscribe} method, or every subscriber of an event class, receive only the latest pending event
+ * of each key. Suits market data and status streams, where a subscriber only cares about the current state:
+ *
+ * <pre>
+ * &#64;Subscribe
+ * &#64;Conflate
+ * public void onQuote(Quote quote) { ... }
+ * </pre>
+ *
+ * <p>Events are queued in a mailbox keyed by the event's {@link FilterKey}, or by the event's class if it has
+ * none or its key is {@code null}, so events of different classes never replace each other for lack of a key. An
+ * event whose key is already pending replaces the pending event in place, keeping its turn, so a slow
+ * subscriber skips the stale states instead of falling behind. Its queue never holds more events than there are
+ * keys, however fast producers publish. Keys are delivered in the order they first became pending.</p>
+ *
+ * <p>A conflating subscriber is called by one thread at a time, like one without {@link AcceptConcurrentEvents}.
+ * The future of a replaced event posted with {@link EventBus#postAsync(Object)} counts it as delivered to the
+ * subscriber. A method can not have both {@link Conflate} and {@link BatchEvents}, and batch subscribers of a
+ * {@link Conflate} event class receive every event.</p>
+ *
+ * @author Kasun Piyumal
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Conflate {
+}
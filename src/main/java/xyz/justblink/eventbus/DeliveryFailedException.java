@@ -0,0 +1,46 @@
+package xyz.justblink.eventbus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Completes the future returned by {@link EventBus#postAsync(Object)} when subscribers failed to handle the event,
+ * either by throwing or because the event was dropped from the full queue of a bounded {@link AsyncEventBus}
+ *
+ * <p>The first failure is the cause of this exception and every later one is suppressed by it. Each failure is
+ * also passed to the bus' {@link SubscriberExceptionHandler} as usual.</p>
+ *
+ * @author Kasun Piyumal
+ */
+public class DeliveryFailedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Object event;
+
+    /**
+     * @param event The event subscribers failed to handle
+     * @param cause The first failure
+     */
+    public DeliveryFailedException(Object event, Throwable cause) {
+        super("Subscribers failed to handle event: " + event, cause);
+        this.event = event;
+    }
+
+    /**
+     * @return the event subscribers failed to handle, or {@code null} after deserialization
+     */
+    public Object getEvent() {
+        return event;
+    }
+
+    /**
+     * @return every failure, in the order they were reported
+     */
+    public List<Throwable> getFailures() {
+        List<Throwable> failures = new ArrayList<>();
+        failures.add(getCause());
+        Collections.addAll(failures, getSuppressed());
+        return failures;
+    }
+}
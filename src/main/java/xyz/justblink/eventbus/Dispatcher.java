@@ -2,9 +2,16 @@ package xyz.justblink.eventbus;
 
 
 import java.util.ArrayDeque;
-import java.util.Iterator;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import static xyz.justblink.eventbus.Conditions.checkNonNull;
 
 /**
@@ -58,56 +65,226 @@ public abstract class Dispatcher {
         return new ImmediateDispatcher();
     }
 
+    /**
+     * Returns a dispatcher that queues events in a mailbox per subscriber. Each mailbox is drained by a single
+     * task on the bus' executor, scheduled only when the mailbox goes from empty to non-empty.
+     *
+     * <p>With an {@link AsyncEventBus} on a multi-threaded executor, this guarantees that each subscriber
+     * receives events one at a time and in the order they were posted, while different subscribers still run in
+     * parallel. Events reaching a busy subscriber are added to the running task instead of creating a new
+     * executor task for each delivery.</p>
+     *
+     * @return a new per-subscriber dispatcher
+     */
+    public static Dispatcher perSubscriberDispatcher() {
+        return new PerSubscriberDispatcher();
+    }
+
+    /**
+     * Returns a dispatcher which appends every event to {@code journal} before handing it to {@code dispatcher},
+     * so that events can be {@linkplain EventJournal#replay(EventBus) replayed} if the process dies before they
+     * are delivered. Each journaled event is acknowledged once every subscriber has handled it, which lets the
+     * journal's checkpoint move past it. Events without a codec in the journal are not journaled.
+     *
+     * <p>Journaled events are tracked like those of {@link EventBus#postAsync(Object)}, so an off-heap dispatcher
+     * queues them on the heap.</p>
+     *
+     * @param journal Journal to append events to
+     * @param dispatcher Dispatcher delivering the events
+     * @return a new journaling dispatcher
+     */
+    public static Dispatcher journaled(EventJournal journal, Dispatcher dispatcher) {
+        return new JournalingDispatcher(checkNonNull(journal), checkNonNull(dispatcher));
+    }
+
+    /**
+     * Returns a dispatcher which queues events in direct memory, outside of the Java heap, encoded with the codecs
+     * in {@code codecs}. Queued events therefore cost the garbage collector next to nothing, and the depth of the
+     * queue is bounded by the memory of the machine rather than by garbage collection pauses.
+     *
+     * <p>Events are delivered in the order they were posted, by a single task on the bus' executor which calls
+     * the subscribers one after another, so subscribers never run in parallel with each other. Subscribers receive
+     * a decoded copy of each event, not the posted instance. Events without a codec are queued on the heap and
+     * delivered as they are.</p>
+     *
+     * @param codecs Codecs encoding the events
+     * @return a new off-heap dispatcher, with segments of {@value OffHeapQueue#DEFAULT_SEGMENT_SIZE} bytes
+     */
+    public static Dispatcher offHeapDispatcher(EventCodecs codecs) {
+        return offHeapDispatcher(codecs, OffHeapQueue.DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Returns a dispatcher like {@link #offHeapDispatcher(EventCodecs)}, which allocates direct memory in segments
+     * of {@code segmentSize} bytes. Events whose encoding does not fit in a segment are queued on the heap
+     *
+     * @param codecs Codecs encoding the events
+     * @param segmentSize Size in bytes of each direct memory segment
+     * @return a new off-heap dispatcher
+     */
+    public static Dispatcher offHeapDispatcher(EventCodecs codecs, int segmentSize) {
+        return new OffHeapDispatcher(new OffHeapQueue(codecs, segmentSize));
+    }
+
+    /**
+     * Returns a dispatcher which queues events by their {@link Priority}, set with {@link EventPriority}, so that
+     * urgent events skip ahead of events which are already waiting. Use it with an {@link AsyncEventBus}.
+     *
+     * <p>Events wait in a queue per priority in front of the executor, which is handed at most
+     * {@code parallelism} drain tasks. Each task takes the most urgent waiting event and delivers it to its
+     * subscribers, in order of {@link Subscribe#priority()}, before taking the next one. An urgent event
+     * therefore waits for at most the {@code parallelism} deliveries already running, however many events of
+     * lower priority are queued. Every 16th event is taken from the lowest priority with waiting events
+     * instead, so that no priority starves under sustained urgent traffic.</p>
+     *
+     * <p>Events of the same priority are taken in the order they were posted, but with a {@code parallelism}
+     * above 1 they may be delivered in parallel and finish in any order. On a direct executor, a single drain
+     * task runs on the posting thread.</p>
+     *
+     * @param parallelism Maximum number of events delivered at once, usually the number of executor threads
+     * @return a new priority dispatcher
+     */
+    public static Dispatcher priorityDispatcher(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1, was " + parallelism);
+        return new PriorityDispatcher(parallelism);
+    }
+
+    /**
+     * Returns a dispatcher like {@link #partitionedDispatcher(int, int)} with {@value
+     * PartitionedDispatcher#PARTITIONS_PER_WORKER} partitions per worker
+     *
+     * @param workers Maximum number of events delivered at once, usually the number of executor threads
+     * @return a new partitioned dispatcher
+     */
+    public static Dispatcher partitionedDispatcher(int workers) {
+        if (workers < 1)
+            throw new IllegalArgumentException("workers must be at least 1, was " + workers);
+        return partitionedDispatcher(workers, workers * PartitionedDispatcher.PARTITIONS_PER_WORKER);
+    }
+
+    /**
+     * Returns a dispatcher which keeps events of the same key in order, while delivering events of different keys
+     * in parallel. Use it with an {@link AsyncEventBus}.
+     *
+     * <p>The key of an event is the value of its {@link FilterKey}, or its class if it has none or the value is
+     * {@code null}. Events are hashed by key into {@code partitions} queues, and every partition belongs to one of
+     * {@code workers} drain tasks on the executor. A worker delivers the events of one partition at a time, to all
+     * their subscribers, so each subscriber receives the events of a key in the order they were posted, and the
+     * state of the subscribers for a key stays with the thread running its worker instead of moving between
+     * cores on every event.</p>
+     *
+     * <p>When the partitions of one worker receive most of the events, the other workers steal whole waiting
+     * partitions from it, one at a time. A partition is only ever drained by one worker at once, so stealing never
+     * reorders a key, and it goes back to its own worker once it runs empty. Throughput therefore grows with the
+     * number of workers as long as there are more busy keys than workers, even if the load is skewed. Events of a
+     * single key are never delivered in parallel.</p>
+     *
+     * <p>On a direct executor, a single worker runs on the posting thread and drains all partitions.</p>
+     *
+     * @param workers Maximum number of events delivered at once, usually the number of executor threads
+     * @param partitions Number of partitions, at least {@code workers}. More partitions let workers balance a
+     *                   skewed load more finely
+     * @return a new partitioned dispatcher
+     */
+    public static Dispatcher partitionedDispatcher(int workers, int partitions) {
+        if (workers < 1)
+            throw new IllegalArgumentException("workers must be at least 1, was " + workers);
+        if (partitions < workers)
+            throw new IllegalArgumentException("partitions must be at least workers (" + workers + "), was "
+                    + partitions);
+        return new PartitionedDispatcher(workers, partitions);
+    }
+
     /**
      * @param event Event to be dispatched
-     * @param subscribers Corresponding subscribers to the {@code event}
+     * @param subscribers Corresponding subscribers to the {@code event}. This is a snapshot shared with the
+     *                    registry, so it must not be modified
+     */
+    abstract void dispatch(Object event, Subscriber[] subscribers);
+
+    /**
+     * Dispatches the first {@code count} events of a batch posted at once. Dispatchers which can save work per
+     * event in a batch override this; by default the events are dispatched one by one
+     *
+     * @param events Events to be dispatched, in order
+     * @param subscribers Subscribers of each event, which are shared snapshots as in
+     *                    {@link #dispatch(Object, Subscriber[])}
+     * @param count Number of events in the batch
+     */
+    void dispatchAll(Object[] events, Subscriber[][] subscribers, int count) {
+        for (int i = 0; i < count; i++)
+            dispatch(events[i], subscribers[i]);
+    }
+
+    /**
+     * @return the number of events posted and not yet handed to subscribers. Only dispatchers holding events
+     * beyond the posting call report them
      */
-    abstract void dispatch(Object event, Iterator<Subscriber> subscribers);
+    int queuedEvents() {
+        return 0;
+    }
 
     /**
      * Implementing {@link #perThreadDispatcher()} dispatcher
      */
     private static final class PerThreadQueuedDispatcher extends Dispatcher {
 
-        /** Per-thread queue of events to dispatch. */
-        private final ThreadLocal<Queue<Event>> queue =
-                ThreadLocal.withInitial(ArrayDeque::new);
-
-        /** Per-thread dispatch state, used to avoid reentrant event dispatching. */
-        private final ThreadLocal<Boolean> dispatching =
-                ThreadLocal.withInitial(() -> false);
+        /**
+         * Per-thread queue of events to dispatch and dispatch state. The queue holds each event followed by its
+         * subscribers, so queueing an event does not need a wrapper object. Both are kept for the lifetime of the
+         * thread, so that steady state dispatching does not allocate.
+         */
+        private final ThreadLocal<ThreadState> state = ThreadLocal.withInitial(ThreadState::new);
 
         @Override
-        void dispatch(Object event, Iterator<Subscriber> subscribers) {
+        void dispatch(Object event, Subscriber[] subscribers) {
             checkNonNull(event);
             checkNonNull(subscribers);
-            Queue<Event> queueForThread = queue.get();
-            queueForThread.offer(new Event(event, subscribers));
+            ThreadState stateForThread = state.get();
+            ArrayDeque<Object> queueForThread = stateForThread.queue;
+            queueForThread.offer(event);
+            queueForThread.offer(subscribers);
+            drain(stateForThread);
+        }
 
-            if (!dispatching.get()) {
-                dispatching.set(true);
+        @Override
+        void dispatchAll(Object[] events, Subscriber[][] subscribers, int count) {
+            ThreadState stateForThread = state.get();
+            ArrayDeque<Object> queueForThread = stateForThread.queue;
+            for (int i = 0; i < count; i++) {
+                queueForThread.offer(events[i]);
+                queueForThread.offer(subscribers[i]);
+            }
+            drain(stateForThread);
+        }
+
+        /**
+         * Dispatches queued events, unless the thread is already doing so further up the stack
+         */
+        private void drain(ThreadState stateForThread) {
+            ArrayDeque<Object> queueForThread = stateForThread.queue;
+            if (!stateForThread.dispatching) {
+                stateForThread.dispatching = true;
                 try {
-                    Event nextEvent;
+                    Object nextEvent;
                     while ((nextEvent = queueForThread.poll()) != null) {
-                        while (nextEvent.subscribers.hasNext()) {
-                            nextEvent.subscribers.next().dispatchEvent(nextEvent.event);
+                        Subscriber[] nextSubscribers = (Subscriber[]) queueForThread.poll();
+                        for (int i = 0; i < nextSubscribers.length; i++) {
+                            nextSubscribers[i].dispatchEvent(nextEvent);
                         }
                     }
                 } finally {
-                    dispatching.remove();
-                    queue.remove();
+                    stateForThread.dispatching = false;
+                    queueForThread.clear();
                 }
             }
         }
 
-        private static final class Event {
-            private final Object event;
-            private final Iterator<Subscriber> subscribers;
-
-            private Event(Object event, Iterator<Subscriber> subscribers) {
-                this.event = event;
-                this.subscribers = subscribers;
-            }
+        private static final class ThreadState {
+            /** Used to avoid reentrant event dispatching. */
+            private boolean dispatching;
+            private final ArrayDeque<Object> queue = new ArrayDeque<>();
         }
     }
 
@@ -122,10 +299,10 @@ public abstract class Dispatcher {
                 new ConcurrentLinkedQueue<>();
 
         @Override
-        void dispatch(Object event, Iterator<Subscriber> subscribers) {
+        void dispatch(Object event, Subscriber[] subscribers) {
             checkNonNull(event);
-            while (subscribers.hasNext()) {
-                queue.add(new EventWithSubscriber(event, subscribers.next()));
+            for (Subscriber subscriber : subscribers) {
+                queue.add(new EventWithSubscriber(event, subscriber));
             }
 
             EventWithSubscriber e;
@@ -134,6 +311,22 @@ public abstract class Dispatcher {
             }
         }
 
+        /**
+         * Collects the events of each subscriber, so that each of them gets a single executor hand-off for the
+         * whole batch. A batch does not go through the common queue, which only orders events posted one by one
+         */
+        @Override
+        void dispatchAll(Object[] events, Subscriber[][] subscribers, int count) {
+            Map<Subscriber, List<Object>> eventsBySubscriber = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                for (Subscriber subscriber : subscribers[i]) {
+                    eventsBySubscriber.computeIfAbsent(subscriber, s -> new ArrayList<>()).add(events[i]);
+                }
+            }
+            for (Map.Entry<Subscriber, List<Object>> entry : eventsBySubscriber.entrySet())
+                entry.getKey().dispatchAll(entry.getValue());
+        }
+
         private static final class EventWithSubscriber {
             private final Object event;
             private final Subscriber subscriber;
@@ -145,6 +338,495 @@ public abstract class Dispatcher {
         }
     }
 
+    /**
+     * Implementing {@link #perSubscriberDispatcher()} dispatcher
+     */
+    private static final class PerSubscriberDispatcher extends Dispatcher {
+
+        /**
+         * Queues the event for every subscriber. The mailboxes are checked for room before the event is queued in
+         * any of them, so that an event rejected by a full mailbox with {@link OverflowPolicy#FAIL} reaches none
+         * of its subscribers and can be posted again without duplicates. A mailbox which another publisher fills
+         * between the check and the event still rejects it; the event is queued for the other subscribers then,
+         * and the exception names the subscribers which were skipped.
+         */
+        @Override
+        void dispatch(Object event, Subscriber[] subscribers) {
+            checkNonNull(event);
+            List<Subscriber> full = null;
+            for (int i = 0; i < subscribers.length; i++) {
+                if (subscribers[i].mailbox().rejectsEvents()) {
+                    if (full == null)
+                        full = new ArrayList<>();
+                    full.add(subscribers[i]);
+                }
+            }
+            if (full != null) {
+                reject(event, subscribers, full);
+                throw new EventRejectedException("Mailboxes of " + full + " are full, rejected event: " + event);
+            }
+
+            List<Subscriber> skipped = null;
+            for (int i = 0; i < subscribers.length; i++) {
+                try {
+                    subscribers[i].enqueue(event);
+                } catch (EventRejectedException e) {
+                    if (skipped == null)
+                        skipped = new ArrayList<>();
+                    skipped.add(subscribers[i]);
+                }
+            }
+            if (skipped != null) {
+                throw new EventRejectedException("Mailboxes of " + skipped + " are full, rejected event: " + event
+                        + ", which was queued for the other subscribers");
+            }
+        }
+
+        /**
+         * Reports the event as rejected by the {@code full} mailboxes. A tracked event is counted down for the
+         * other subscribers too, as it is not queued for them either
+         */
+        private static void reject(Object event, Subscriber[] subscribers, List<Subscriber> full) {
+            for (Subscriber subscriber : subscribers) {
+                if (full.contains(subscriber))
+                    subscriber.mailbox().reject(event);
+                else if (event instanceof TrackedEvent)
+                    ((TrackedEvent) event).delivered(null);
+            }
+        }
+    }
+
+    /**
+     * Implementing {@link #offHeapDispatcher(EventCodecs, int)} dispatcher. The dispatcher is its own drain task,
+     * of which at most one is scheduled or running at a time
+     */
+    private static final class OffHeapDispatcher extends Dispatcher implements Runnable {
+        private final OffHeapQueue queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /** Executor of the bus, known from the first dispatched event */
+        private volatile Executor executor;
+
+        private OffHeapDispatcher(OffHeapQueue queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        void dispatch(Object event, Subscriber[] subscribers) {
+            checkNonNull(event);
+            if (subscribers.length == 0)
+                return;
+            queue.offer(event, subscribers);
+            if (!scheduled.get() && scheduled.compareAndSet(false, true)) {
+                Executor executor = this.executor;
+                if (executor == null)
+                    this.executor = executor = subscribers[0].getBus().getExecutor();
+                executor.execute(this);
+            }
+        }
+
+        /**
+         * Drains the queue. On a direct executor it is drained to the end, since events posted by subscribers
+         * meanwhile are queued behind the running task instead of scheduling another one
+         */
+        @Override
+        public void run() {
+            boolean inline = executor == Executors.directExecutor();
+            while (true) {
+                try {
+                    queue.drain(inline ? Integer.MAX_VALUE : Mailbox.DRAIN_LIMIT);
+                } finally {
+                    scheduled.set(false);
+                }
+                if (queue.isEmpty() || !scheduled.compareAndSet(false, true))
+                    return;
+                if (!inline) {
+                    executor.execute(this);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        int queuedEvents() {
+            return queue.size();
+        }
+    }
+
+    /**
+     * Implementing {@link #priorityDispatcher(int)} dispatcher. The dispatcher is its own drain task, of which at
+     * most {@link #parallelism} are scheduled or running at a time
+     */
+    private static final class PriorityDispatcher extends Dispatcher implements Runnable {
+        /** Every this many events, the lowest priority with waiting events is served first */
+        static final int FAIRNESS_INTERVAL = 16;
+
+        private static final ClassValue<Priority> priorities = new ClassValue<Priority>() {
+            @Override
+            protected Priority computeValue(Class<?> type) {
+                return Priority.of(type);
+            }
+        };
+
+        private final int parallelism;
+        private final ConcurrentLinkedQueue<Delivery>[] queues;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicLong taken = new AtomicLong();
+
+        /** Executor of the bus, known from the first dispatched event */
+        private volatile Executor executor;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private PriorityDispatcher(int parallelism) {
+            this.parallelism = parallelism;
+            this.queues = new ConcurrentLinkedQueue[Priority.values().length];
+            for (int i = 0; i < queues.length; i++)
+                queues[i] = new ConcurrentLinkedQueue<>();
+        }
+
+        @Override
+        void dispatch(Object event, Subscriber[] subscribers) {
+            checkNonNull(event);
+            if (subscribers.length == 0)
+                return;
+            queues[priorities.get(TrackedEvent.unwrap(event).getClass()).ordinal()].offer(new Delivery(event, subscribers));
+            // Counted after the offer, so that a positive count always means an event can be taken. The count may
+            // be briefly negative instead, when a drain takes the event first
+            queued.incrementAndGet();
+            if (executor == null)
+                executor = subscribers[0].getBus().getExecutor();
+            startDrain();
+        }
+
+        /**
+         * Hands another drain task to the executor, unless {@link #parallelism} of them are already running
+         */
+        private void startDrain() {
+            if (acquireDrain())
+                executor.execute(this);
+        }
+
+        /**
+         * @return whether a drain slot was taken, which the caller must run a drain with
+         */
+        private boolean acquireDrain() {
+            int limit = executor == Executors.directExecutor() ? 1 : parallelism;
+            int current;
+            while ((current = running.get()) < limit) {
+                if (running.compareAndSet(current, current + 1))
+                    return true;
+            }
+            return false;
+        }
+
+        /**
+         * Delivers waiting events, most urgent first. On a direct executor it runs until the queues are empty,
+         * since events posted by subscribers meanwhile are queued behind the running task, and loops instead of
+         * starting another drain when events arrive as it finishes
+         */
+        @Override
+        public void run() {
+            boolean inline = executor == Executors.directExecutor();
+            while (true) {
+                try {
+                    Delivery delivery;
+                    for (int i = 0; (inline || i < Mailbox.DRAIN_LIMIT) && (delivery = take()) != null; i++) {
+                        for (int j = 0; j < delivery.subscribers.length; j++)
+                            delivery.subscribers[j].deliver(delivery.event);
+                    }
+                } finally {
+                    running.decrementAndGet();
+                }
+                if (queued.get() <= 0)
+                    return;
+                if (!inline) {
+                    startDrain();
+                    return;
+                }
+                if (!acquireDrain())
+                    return;
+            }
+        }
+
+        /**
+         * @return the waiting event of the highest priority or, every {@link #FAIRNESS_INTERVAL}th time, of the
+         * lowest priority, or {@code null} if nothing is waiting
+         */
+        private Delivery take() {
+            if (queued.get() <= 0)
+                return null;
+            boolean lowestFirst = taken.incrementAndGet() % FAIRNESS_INTERVAL == 0;
+            for (int i = 0; i < queues.length; i++) {
+                Delivery delivery = queues[lowestFirst ? queues.length - 1 - i : i].poll();
+                if (delivery != null) {
+                    queued.decrementAndGet();
+                    return delivery;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        int queuedEvents() {
+            return Math.max(0, queued.get());
+        }
+
+        private static final class Delivery {
+            private final Object event;
+            private final Subscriber[] subscribers;
+
+            private Delivery(Object event, Subscriber[] subscribers) {
+                this.event = event;
+                this.subscribers = subscribers;
+            }
+        }
+    }
+
+    /**
+     * Implementing {@link #partitionedDispatcher(int, int)} dispatcher. Each {@link Worker} is a drain task, of
+     * which at most one per worker is scheduled or running at a time
+     */
+    private static final class PartitionedDispatcher extends Dispatcher {
+        static final int PARTITIONS_PER_WORKER = 16;
+
+        private final Partition[] partitions;
+        private final Worker[] workers;
+        private final LongAdder queued = new LongAdder();
+
+        /** Executor of the bus, known from the first dispatched event */
+        private volatile Executor executor;
+
+        private PartitionedDispatcher(int workers, int partitions) {
+            this.workers = new Worker[workers];
+            for (int i = 0; i < workers; i++)
+                this.workers[i] = new Worker(i);
+            this.partitions = new Partition[partitions];
+            for (int i = 0; i < partitions; i++)
+                this.partitions[i] = new Partition(this.workers[i % workers]);
+        }
+
+        @Override
+        void dispatch(Object event, Subscriber[] subscribers) {
+            checkNonNull(event);
+            if (subscribers.length == 0)
+                return;
+            if (executor == null)
+                executor = subscribers[0].getBus().getExecutor();
+            queued.increment();
+            partitionOf(TrackedEvent.unwrap(event)).offer(new Delivery(event, subscribers));
+        }
+
+        private Partition partitionOf(Object event) {
+            EventKey key = EventKey.of(event.getClass());
+            Object value = key == null ? null : key.extract(event);
+            int hash = (value != null ? value : event.getClass()).hashCode();
+            return partitions[Math.floorMod(hash ^ (hash >>> 16), partitions.length)];
+        }
+
+        private boolean isInline() {
+            return executor == Executors.directExecutor();
+        }
+
+        /**
+         * Takes a waiting partition from another worker, starting with the one after {@code thief}
+         */
+        private Partition steal(Worker thief) {
+            for (int i = 1; i < workers.length; i++) {
+                Partition partition = workers[(thief.index + i) % workers.length].ready.poll();
+                if (partition != null)
+                    return partition;
+            }
+            return null;
+        }
+
+        /**
+         * Starts a worker which is not running, to steal from the busy ones
+         */
+        private void startIdleWorker() {
+            for (Worker worker : workers) {
+                if (worker.start())
+                    return;
+            }
+        }
+
+        @Override
+        int queuedEvents() {
+            return queued.intValue();
+        }
+
+        /**
+         * Events of the keys hashed to one slot, waiting in order. It is in the ready queue of at most one worker
+         * while {@link #scheduled}, and drained by that worker only
+         */
+        private final class Partition {
+            private final Worker home;
+            private final ConcurrentLinkedQueue<Delivery> queue = new ConcurrentLinkedQueue<>();
+            private final AtomicBoolean scheduled = new AtomicBoolean();
+
+            private Partition(Worker home) {
+                this.home = home;
+            }
+
+            void offer(Delivery delivery) {
+                queue.offer(delivery);
+                if (!scheduled.get() && scheduled.compareAndSet(false, true))
+                    (isInline() ? workers[0] : home).schedule(this);
+            }
+
+            /**
+             * Delivers up to {@link Mailbox#DRAIN_LIMIT} events, then queues the partition behind the other ready
+             * partitions of {@code worker} if it still has events, without starting anyone to steal it
+             *
+             * @return the number of events delivered
+             */
+            int drain(Worker worker) {
+                int drained = 0;
+                Delivery delivery;
+                while (drained < Mailbox.DRAIN_LIMIT && (delivery = queue.poll()) != null) {
+                    queued.decrement();
+                    drained++;
+                    for (int i = 0; i < delivery.subscribers.length; i++)
+                        delivery.subscribers[i].deliver(delivery.event);
+                }
+                if (drained == Mailbox.DRAIN_LIMIT) {
+                    worker.ready.offer(this);
+                } else {
+                    scheduled.set(false);
+                    if (!queue.isEmpty() && scheduled.compareAndSet(false, true))
+                        worker.ready.offer(this);
+                }
+                return drained;
+            }
+        }
+
+        private final class Worker implements Runnable {
+            private final int index;
+            private final ConcurrentLinkedQueue<Partition> ready = new ConcurrentLinkedQueue<>();
+            private final AtomicBoolean running = new AtomicBoolean();
+
+            private Worker(int index) {
+                this.index = index;
+            }
+
+            /**
+             * Queues a partition with waiting events, starting this worker if it is idle, or another one to steal if
+             * this one is busy
+             */
+            void schedule(Partition partition) {
+                ready.offer(partition);
+                if (!start() && !isInline() && running.get())
+                    startIdleWorker();
+            }
+
+            /**
+             * @return whether this worker was idle and has been handed to the executor
+             */
+            boolean start() {
+                if (running.get() || !running.compareAndSet(false, true))
+                    return false;
+                executor.execute(this);
+                return true;
+            }
+
+            /**
+             * Drains its own partitions first and then steals from the other workers. On a direct executor it runs
+             * until nothing is waiting, since events posted by subscribers meanwhile are queued behind it
+             */
+            @Override
+            public void run() {
+                boolean inline = isInline();
+                while (true) {
+                    try {
+                        for (int drained = 0; inline || drained < Mailbox.DRAIN_LIMIT; ) {
+                            Partition partition = ready.poll();
+                            if (partition == null && (partition = steal(this)) == null)
+                                break;
+                            drained += partition.drain(this);
+                        }
+                    } finally {
+                        running.set(false);
+                    }
+                    if (ready.isEmpty() || !running.compareAndSet(false, true))
+                        return;
+                    if (!inline) {
+                        executor.execute(this);
+                        return;
+                    }
+                }
+            }
+        }
+
+        private static final class Delivery {
+            private final Object event;
+            private final Subscriber[] subscribers;
+
+            private Delivery(Object event, Subscriber[] subscribers) {
+                this.event = event;
+                this.subscribers = subscribers;
+            }
+        }
+    }
+
+    /**
+     * Implementing {@link #journaled(EventJournal, Dispatcher)} dispatcher
+     */
+    private static final class JournalingDispatcher extends Dispatcher {
+        private final EventJournal journal;
+        private final Dispatcher dispatcher;
+
+        private JournalingDispatcher(EventJournal journal, Dispatcher dispatcher) {
+            this.journal = journal;
+            this.dispatcher = dispatcher;
+        }
+
+        @Override
+        void dispatch(Object event, Subscriber[] subscribers) {
+            EventJournal.Record record = journal.appendUndelivered(TrackedEvent.unwrap(checkNonNull(event)));
+            if (record == null) {
+                dispatcher.dispatch(event, subscribers);
+                return;
+            }
+            try {
+                dispatcher.dispatch(record.track(event, subscribers.length), subscribers);
+            } catch (RuntimeException | Error e) {
+                // The publisher learns that the event was not dispatched, so it is not replayed either
+                journal.acknowledge(record);
+                throw e;
+            }
+        }
+
+        @Override
+        void dispatchAll(Object[] events, Subscriber[][] subscribers, int count) {
+            EventJournal.Record[] records = null;
+            for (int i = 0; i < count; i++) {
+                EventJournal.Record record = journal.appendUndelivered(TrackedEvent.unwrap(checkNonNull(events[i])));
+                if (record != null) {
+                    if (records == null)
+                        records = new EventJournal.Record[count];
+                    records[i] = record;
+                    events[i] = record.track(events[i], subscribers[i].length);
+                }
+            }
+            try {
+                dispatcher.dispatchAll(events, subscribers, count);
+            } catch (RuntimeException | Error e) {
+                if (records != null) {
+                    for (EventJournal.Record record : records) {
+                        if (record != null)
+                            journal.acknowledge(record);
+                    }
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        int queuedEvents() {
+            return dispatcher.queuedEvents();
+        }
+    }
+
     /**
      * Implementing {@link #immediateDispatcher()} dispatcher
      */
@@ -152,10 +834,10 @@ public abstract class Dispatcher {
         private static final ImmediateDispatcher INSTANCE = new ImmediateDispatcher();
 
         @Override
-        void dispatch(Object event, Iterator<Subscriber> subscribers) {
+        void dispatch(Object event, Subscriber[] subscribers) {
             checkNonNull(event);
-            while (subscribers.hasNext()) {
-                subscribers.next().dispatchEvent(event);
+            for (int i = 0; i < subscribers.length; i++) {
+                subscribers[i].dispatchEvent(event);
             }
         }
     }
@@ -1,7 +1,10 @@
 package xyz.justblink.eventbus;
 
 import java.lang.reflect.Method;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -13,8 +16,9 @@ import java.util.logging.Logger;
  * <a href="https://github.com/google/guava/wiki/EventBusExplained">Guava EventBus</a>. The EventBus makes use of
  * a publisher-subscriber style event handling mechanism. This features enables components to have a loose coupling
  * between them. That is, components which initiate the event and the components which receives the events don't have
- * to be aware of each other. This is intended for communication only within the particular process (Not for
- * inter-process communication).</p>
+ * to be aware of each other. This is intended for communication within the particular process. To share events
+ * with other processes on the same machine, connect their buses with a {@link SharedMemoryBridge}, or link them
+ * across machines with a {@link SocketBridge}.</p>
  *
  * <h2>Receive events</h2>
  *
@@ -29,10 +33,19 @@ import java.util.logging.Logger;
  *
  * <h2>Posting events</h2>
  *
- * <p>Pass the desired event to EventBus instance's {@link #post(Object)} method.</p>
+ * <p>Pass the desired event to EventBus instance's {@link #post(Object)} method. To publish many events at once,
+ * pass them to {@link #postAll(Collection)}, which costs less than posting them one by one. To learn when all
+ * subscribers have handled an event, post it with {@link #postAsync(Object)}.</p>
  *
- * <p>Currently this will only dispatch the event to the subscribers with exact class match. (Not for subscribers of
- * superclasses and interfaces which that class implements)</p>
+ * <p>The event is dispatched to the subscribers of its class and to the subscribers of every superclass and
+ * interface of that class. For example, a subscriber of {@code Object} receives every event posted to the bus.
+ * Subscribers of the supertypes of each event class are merged once and cached until the next
+ * {@link #register(Object)} or {@link #unregister(Object)}, so this costs nothing extra per post.</p>
+ *
+ * <p>A subscriber can also ask for only the events whose {@link FilterKey} has certain values, with
+ * {@link Subscribe#keys()} or {@link Subscribe#keysFrom()}. Such subscribers are hashed by key, so a post only
+ * visits the ones accepting its key, however many others there are. An event which only filtered subscribers
+ * turn down is not dead.</p>
  *
  * <p>When an event is posted to bus, it will begin calling subscribers in sequence. Because of that, subscriber
  * methods should be quick. If you want a subscriber method to run for a long time, spawn it in a different thread.
@@ -47,8 +60,16 @@ import java.util.logging.Logger;
  *  AcceptConcurrentEvents} annotation. If this annotation is not present, subscriber methods need not
  *  worry about being reentrant, unless also called from outside the EventBus.</p>
  *
- *  <p>To override this behavior (allow subscriber method to be reentrant), provide
- *  {@link Dispatcher#immediateDispatcher()} as the dispatcher of choice.</p>
+ *  <p>This is done without locks. A thread posting to a subscriber method which is busy on another thread
+ *  queues the event for that thread and moves on, instead of waiting for the method. Methods bearing
+ *  {@link AcceptConcurrentEvents} are called right away on whichever thread delivers the event.</p>
+ *
+ *  <p>As a consequence, {@link #post(Object)} is not synchronous when several threads post at once: it may
+ *  return before such a busy subscriber has handled the event, which is then delivered on another posting
+ *  thread. A thread delivering queued events for others hands them to a shared daemon thread after about a
+ *  thousand, so that it gets back to its own work, and a subscriber with about a thousand events queued makes
+ *  further publishers wait for room. Use {@link #postAsync(Object)} to find out when an event has been
+ *  handled.</p>
  *
  *  <h2>Dead Events</h2>
  *
@@ -68,6 +89,12 @@ public class EventBus {
 
     private final SubscriberRegistry registry = new SubscriberRegistry(this);
 
+    /** Told about changes to the subscribers, by {@link SocketBridge}s linking this bus to other processes */
+    private final List<Runnable> subscriptionListeners = new CopyOnWriteArrayList<>();
+
+    /** {@code null} unless set, so that an uninstrumented bus only pays a null check */
+    private volatile EventBusInstrumentation instrumentation;
+
     /**
      * Creates an EventBus named "default"
      */
@@ -129,20 +156,184 @@ public class EventBus {
         return executor;
     }
 
+    /**
+     * @return whether subscribers are called on the posting thread, without handing them to an executor
+     */
+    boolean isDirectExecutor() {
+        return executor == Executors.directExecutor();
+    }
+
     public void register(Object object) {
         registry.register(object);
+        subscriptionsChanged();
     }
 
     public void unregister(Object object) {
         registry.unregister(object);
+        subscriptionsChanged();
+    }
+
+    private void subscriptionsChanged() {
+        for (Runnable listener : subscriptionListeners)
+            listener.run();
+    }
+
+    /**
+     * @param listener Called on the registering thread after every {@link #register(Object)} and
+     *                 {@link #unregister(Object)}
+     */
+    void addSubscriptionListener(Runnable listener) {
+        subscriptionListeners.add(listener);
+    }
+
+    void removeSubscriptionListener(Runnable listener) {
+        subscriptionListeners.remove(listener);
+    }
+
+    SubscriberRegistry getRegistry() {
+        return registry;
     }
 
     public void post(Object event) {
-        Iterator<Subscriber> allSubscribers = registry.getAllSubscribers(event);
-        if (allSubscribers.hasNext())
+        Subscriber[] allSubscribers = registry.getAllSubscribers(event);
+        EventBusInstrumentation instrumentation = this.instrumentation;
+        if (instrumentation != null)
+            instrumentation.posted(event.getClass());
+
+        if (allSubscribers.length > 0) {
             dispatcher.dispatch(event, allSubscribers);
-        else if (!(event instanceof DeadEvent))
-            post(new DeadEvent(this, event));
+        } else if (allSubscribers != SubscriberRegistry.NO_MATCHING_SUBSCRIBERS && !(event instanceof DeadEvent)) {
+            if (instrumentation != null)
+                instrumentation.deadEvent(event.getClass());
+            if (registry.getSubscribers(DeadEvent.class).length > 0)
+                post(new DeadEvent(this, event));
+        }
+    }
+
+    /**
+     * Posts {@code event} like {@link #post(Object)} and returns a future which completes once every subscriber
+     * has handled it. This lets a publisher of an {@link AsyncEventBus} wait for its events, or limit how many of
+     * them are in flight, without wrapping them in latches of its own.
+     *
+     * <p>The future completes exceptionally with a {@link DeliveryFailedException} if any subscriber throws, after
+     * the exception has been passed to the bus' {@link SubscriberExceptionHandler}, or if the event is dropped from
+     * a full subscriber queue. It completes right away if nothing subscribes to the event. Tracking costs one
+     * object per event, which is the returned future itself.</p>
+     *
+     * <p>The future is completed on the thread which delivers the event to the last subscriber, which runs
+     * dependent stages added with non-async methods such as {@code thenRun}. Keep such stages short or use their
+     * async variants. An off-heap dispatcher queues tracked events on the heap, as they can not be encoded.</p>
+     *
+     * @param event Event to post
+     * @return a future completing once every subscriber has handled {@code event}
+     */
+    public CompletableFuture<Void> postAsync(Object event) {
+        Subscriber[] allSubscribers = registry.getAllSubscribers(event);
+        if (allSubscribers.length == 0) {
+            post(event);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        EventBusInstrumentation instrumentation = this.instrumentation;
+        if (instrumentation != null)
+            instrumentation.posted(event.getClass());
+        TrackedEvent tracked = new TrackedEvent(event, allSubscribers.length);
+        dispatcher.dispatch(tracked, allSubscribers);
+        return tracked;
+    }
+
+    /**
+     * Posts all {@code events}, in iteration order, as if by calling {@link #post(Object)} for each of them, but
+     * at a lower cost per event. Subscribers are looked up once for each run of events of the same class, and
+     * the whole batch is handed to the dispatcher at once: per-thread state is looked up once, a ring buffer is
+     * claimed once, and an {@link AsyncEventBus} hands the executor a single task per subscriber instead of one
+     * per event and subscriber.
+     *
+     * <p>Each subscriber still receives its events in iteration order. Through such a single task, a subscriber
+     * with {@link AcceptConcurrentEvents} receives the events of a batch one after another rather than in
+     * parallel. Events without subscribers are replaced by {@link DeadEvent}s in place.</p>
+     *
+     * @param events Events to post, none of which may be {@code null}
+     */
+    public void postAll(Collection<?> events) {
+        int size = events.size();
+        if (size == 0)
+            return;
+
+        Object[] batch = new Object[size];
+        Subscriber[][] batchSubscribers = new Subscriber[size][];
+        EventBusInstrumentation instrumentation = this.instrumentation;
+        Class<?> lastType = null;
+        Subscriber[] lastSubscribers = null;
+        boolean lastFiltered = false;
+        int count = 0;
+        for (Object event : events) {
+            Class<?> type = event.getClass();
+            if (type != lastType) {
+                lastType = type;
+                lastFiltered = registry.hasFilteredSubscribers(type);
+                lastSubscribers = registry.getSubscribers(type);
+            }
+            if (instrumentation != null)
+                instrumentation.posted(type);
+
+            Subscriber[] eventSubscribers = lastFiltered ? registry.getAllSubscribers(event) : lastSubscribers;
+            if (eventSubscribers.length > 0) {
+                batch[count] = event;
+                batchSubscribers[count++] = eventSubscribers;
+            } else if (eventSubscribers != SubscriberRegistry.NO_MATCHING_SUBSCRIBERS
+                    && !(event instanceof DeadEvent)) {
+                if (instrumentation != null)
+                    instrumentation.deadEvent(type);
+                Subscriber[] deadEventSubscribers = registry.getSubscribers(DeadEvent.class);
+                if (deadEventSubscribers.length > 0) {
+                    batch[count] = new DeadEvent(this, event);
+                    batchSubscribers[count++] = deadEventSubscribers;
+                }
+            }
+        }
+        if (count > 0)
+            dispatcher.dispatchAll(batch, batchSubscribers, count);
+    }
+
+    /**
+     * Starts reporting what happens inside this bus to {@code instrumentation}, such as {@link JmxInstrumentation}.
+     * Subscribers which are already registered are reported right away. Replaces and
+     * {@linkplain EventBusInstrumentation#detached() detaches} any instrumentation set before
+     *
+     * @param instrumentation Instrumentation to report to, or {@code null} to stop reporting
+     */
+    public synchronized void setInstrumentation(EventBusInstrumentation instrumentation) {
+        EventBusInstrumentation previous = this.instrumentation;
+        if (instrumentation != null)
+            instrumentation.attached(this, dispatcher::queuedEvents);
+        this.instrumentation = instrumentation;
+        registry.instrument(instrumentation);
+        if (previous != null)
+            previous.detached();
+    }
+
+    /**
+     * @return the instrumentation set with {@link #setInstrumentation(EventBusInstrumentation)}, or {@code null}
+     */
+    EventBusInstrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    /**
+     * @param subscriber Subscriber owning the mailbox
+     * @return a new mailbox for {@code subscriber}, drained on this bus' executor
+     */
+    Mailbox newMailbox(Subscriber subscriber) {
+        return Mailbox.unbounded(subscriber, executor);
+    }
+
+    /**
+     * Posts {@code overflow}, if anything subscribes to {@link OverflowEvent}s
+     */
+    void reportOverflow(OverflowEvent overflow) {
+        if (registry.getSubscribers(OverflowEvent.class).length > 0)
+            post(overflow);
     }
 
     void handleSubscriberException(Throwable e, SubscriberExceptionContext context) {
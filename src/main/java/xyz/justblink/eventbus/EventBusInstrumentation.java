@@ -0,0 +1,61 @@
+package xyz.justblink.eventbus;
+
+import java.lang.reflect.Method;
+import java.util.function.IntSupplier;
+
+/**
+ * Receives measurements of what happens inside an {@link EventBus}: posted and dead events, and deliveries,
+ * latencies, exceptions and queue depths of each subscriber
+ *
+ * <p>Set it with {@link EventBus#setInstrumentation(EventBusInstrumentation)}. See
+ * {@link JmxInstrumentation} for an implementation exposing everything over JMX.</p>
+ *
+ * <p>A bus without instrumentation only pays a {@code null} check per post and per delivery. Once set, these
+ * methods are called on the posting and delivering threads, so they must be thread safe and quick, and should
+ * not allocate.</p>
+ *
+ * @author Kasun Piyumal
+ */
+public interface EventBusInstrumentation {
+
+    /**
+     * Called when this instrumentation is set on a bus. An instance should only be set on one bus
+     *
+     * @param bus The instrumented bus
+     * @param queuedEvents Number of events posted to the bus and not yet handed to subscribers, such as the events
+     *                     waiting in the ring of a {@link RingBufferEventBus}
+     */
+    void attached(EventBus bus, IntSupplier queuedEvents);
+
+    /**
+     * Called when this instrumentation is replaced or removed. Recorders of all subscribers have already been
+     * {@linkplain SubscriberRecorder#removed() removed}
+     */
+    void detached();
+
+    /**
+     * Called for every event posted to the bus, including {@link DeadEvent}s and {@link OverflowEvent}s
+     *
+     * @param eventType Class of the posted event
+     */
+    void posted(Class<?> eventType);
+
+    /**
+     * Called for every posted event without subscribers, whether or not anything subscribes to {@link DeadEvent}
+     *
+     * @param eventType Class of the dead event
+     */
+    void deadEvent(Class<?> eventType);
+
+    /**
+     * Called for every subscriber method of a registered object, and for subscribers already registered when this
+     * instrumentation is set
+     *
+     * @param subscriber The registered object
+     * @param method The subscriber method
+     * @param queuedEvents Number of events waiting in the subscriber's own queue, when the bus delivers through
+     *                     per-subscriber mailboxes
+     * @return the recorder for deliveries to this subscriber, or {@code null} to not measure it
+     */
+    SubscriberRecorder subscriberAdded(Object subscriber, Method method, IntSupplier queuedEvents);
+}
@@ -0,0 +1,49 @@
+package xyz.justblink.eventbus;
+
+import java.util.Map;
+
+/**
+ * Statistics of an {@link EventBus}, registered by {@link JmxInstrumentation} as
+ * {@code xyz.justblink.eventbus:type=EventBus,name=<identifier>}
+ *
+ * @author Kasun Piyumal
+ */
+public interface EventBusMXBean {
+
+    String getIdentifier();
+
+    /**
+     * @return number of events posted to the bus
+     */
+    long getPostedCount();
+
+    /**
+     * @return number of events posted to the bus, by class name of the event
+     */
+    Map<String, Long> getPostedCountByEventType();
+
+    /**
+     * @return number of posted events which had no subscribers
+     */
+    long getDeadEventCount();
+
+    /**
+     * @return number of exceptions thrown by subscriber methods
+     */
+    long getExceptionCount();
+
+    /**
+     * @return number of events dropped because a subscriber's queue was full
+     */
+    long getDroppedCount();
+
+    /**
+     * @return number of events waiting in the bus' own queue, such as the ring of a {@link RingBufferEventBus}
+     */
+    int getQueuedEvents();
+
+    /**
+     * @return number of registered subscriber methods
+     */
+    int getSubscriberCount();
+}
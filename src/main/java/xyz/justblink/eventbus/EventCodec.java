@@ -0,0 +1,33 @@
+package xyz.justblink.eventbus;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts events of one type to and from bytes, for {@link EventJournal}s and other stages which keep events
+ * outside the heap. Register codecs with an {@link EventCodecs} under a type id.
+ *
+ * <p>Buffers may be heap, direct or memory-mapped. Codecs should read and write them in place, without copying
+ * through a {@code byte[]}. {@link PojoCodec} does so for flat events with primitive fields.</p>
+ *
+ * @param <T> Type of the events
+ * @author Kasun Piyumal
+ */
+public interface EventCodec<T> {
+
+    /**
+     * Writes {@code event} to {@code buffer}, starting at its position and advancing it past the written bytes
+     *
+     * @param event Event to write
+     * @param buffer Buffer to write to. Writing past its limit throws {@link java.nio.BufferOverflowException},
+     *               after which the caller retries with a larger buffer
+     */
+    void encode(T event, ByteBuffer buffer);
+
+    /**
+     * Reads an event written by {@link #encode(Object, ByteBuffer)}
+     *
+     * @param buffer Buffer positioned at the start of the event, with its limit at the end of it
+     * @return the decoded event
+     */
+    T decode(ByteBuffer buffer);
+}
@@ -0,0 +1,102 @@
+package xyz.justblink.eventbus;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static xyz.justblink.eventbus.Conditions.checkNonNull;
+
+/**
+ * Registry of {@link EventCodec}s, by event class and by a numeric type id written next to each encoded event
+ *
+ * <p>Type ids identify event types in journals and on the wire, so they must stay the same across processes and
+ * restarts. Codecs are looked up by the exact class of an event; subclasses need their own registration.</p>
+ *
+ * <p>This class is thread safe</p>
+ *
+ * @author Kasun Piyumal
+ */
+public final class EventCodecs {
+    private final Map<Class<?>, Registration<?>> byType = new ConcurrentHashMap<>();
+    private final Map<Integer, Registration<?>> byId = new ConcurrentHashMap<>();
+
+    /**
+     * @param typeId Id written with every encoded event of {@code type}
+     * @param type Class of the events
+     * @param codec Codec for events of {@code type}
+     * @param <T> Type of the events
+     * @throws IllegalArgumentException if {@code type} or {@code typeId} is already registered
+     */
+    public synchronized <T> void register(int typeId, Class<T> type, EventCodec<T> codec) {
+        Registration<T> registration = new Registration<>(typeId, checkNonNull(type), checkNonNull(codec));
+        if (byType.containsKey(type))
+            throw new IllegalArgumentException("A codec is already registered for " + type.getName());
+        if (byId.containsKey(typeId))
+            throw new IllegalArgumentException("Type id " + typeId + " is already registered for "
+                    + byId.get(typeId).type.getName());
+        byType.put(type, registration);
+        byId.put(typeId, registration);
+    }
+
+    /**
+     * Registers a {@link PojoCodec} for {@code type}, whose fields must all be primitives
+     *
+     * @param typeId Id written with every encoded event of {@code type}
+     * @param type Class of the events
+     * @param <T> Type of the events
+     * @throws IllegalArgumentException if {@code type} or {@code typeId} is already registered, or {@code type} is
+     * not a flat event with primitive fields
+     */
+    public <T> void register(int typeId, Class<T> type) {
+        register(typeId, type, PojoCodec.of(type));
+    }
+
+    /**
+     * @param type Class of the events
+     * @param <T> Type of the events
+     * @return the codec registered for events of exactly {@code type}, or {@code null} if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public <T> EventCodec<T> codecFor(Class<T> type) {
+        Registration<?> registration = byType.get(type);
+        return registration == null ? null : (EventCodec<T>) registration.codec;
+    }
+
+    /**
+     * @return the registration for events of exactly {@code type}, or {@code null} if there is none
+     */
+    Registration<?> forType(Class<?> type) {
+        return byType.get(type);
+    }
+
+    /**
+     * @return the registration with {@code typeId}, or {@code null} if there is none
+     */
+    Registration<?> forId(int typeId) {
+        return byId.get(typeId);
+    }
+
+    /**
+     * @return a live view of all registrations
+     */
+    Collection<Registration<?>> registrations() {
+        return byType.values();
+    }
+
+    static final class Registration<T> {
+        final int typeId;
+        final Class<T> type;
+        final EventCodec<T> codec;
+
+        private Registration(int typeId, Class<T> type, EventCodec<T> codec) {
+            this.typeId = typeId;
+            this.type = type;
+            this.codec = codec;
+        }
+
+        void encode(Object event, ByteBuffer buffer) {
+            codec.encode(type.cast(event), buffer);
+        }
+    }
+}
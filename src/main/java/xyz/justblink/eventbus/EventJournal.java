@@ -0,0 +1,630 @@
+package xyz.justblink.eventbus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import static xyz.justblink.eventbus.Conditions.checkNonNull;
+
+/**
+ * Write-ahead log of posted events, kept in memory-mapped segment files, so that events can be posted again after
+ * the process dies before delivering them
+ *
+ * <p>Put it in front of a bus' dispatcher with {@link Dispatcher#journaled(EventJournal, Dispatcher)}. Every
+ * event with a codec in the journal's {@link EventCodecs} is then appended before it is dispatched, and
+ * acknowledged once every subscriber has handled it. Events without a codec are dispatched without being
+ * journaled.</p>
+ *
+ * <pre>
+ * EventJournal journal = new EventJournal(Paths.get("journal"), codecs);
+ * EventBus bus = new EventBus(Dispatcher.journaled(journal, Dispatcher.immediateDispatcher()));
+ * bus.register(listener);
+ * journal.replay(bus);
+ * </pre>
+ *
+ * <h2>Segments</h2>
+ *
+ * <p>Each segment is a file of a fixed size, mapped into memory when it is created. An append copies the encoded
+ * event into the mapping and takes no system call, so a process crash loses nothing which was appended. Mapped
+ * pages are written to disk by the operating system, and every {@code syncIntervalMillis} by a background
+ * {@link MappedByteBuffer#force()}, which commits all appends since the previous one at once. Only events
+ * appended since the last sync can be lost when the machine itself fails.</p>
+ *
+ * <p>Each record is the length of the encoded event, a CRC32 of it, the type id and the encoded event. A record
+ * torn by a crash fails the checksum and ends the segment on replay.</p>
+ *
+ * <h2>Checkpoint</h2>
+ *
+ * <p>A small mapped {@code checkpoint} file holds the position of the oldest event which has not been
+ * acknowledged yet. It moves forward as events are delivered, in any order, and segments entirely before it are
+ * deleted and unmapped as it leaves them. {@link #close()} deletes every segment and the checkpoint once all
+ * events are acknowledged, so a clean restart has nothing to replay. Events appended with {@link #append(Object)}
+ * are never acknowledged, which holds the checkpoint at the first of them.</p>
+ *
+ * <h2>Replay</h2>
+ *
+ * <p>Segments found when the journal is opened belong to a previous run. {@link #replay(EventBus)} posts their
+ * events from the checkpoint on, in the order they were appended, without appending them again. They are
+ * acknowledged like new events, so a crash during replay only replays what is still undelivered. Events which
+ * were delivered but not yet acknowledged before the crash are posted again, so subscribers must tolerate
+ * duplicates. New events always go to new segments.</p>
+ *
+ * <p>This class is thread safe</p>
+ *
+ * @author Kasun Piyumal
+ */
+public final class EventJournal implements Closeable {
+    private static final Logger logger = Logger.getLogger(EventJournal.class.getName());
+
+    /** Default size of a segment file, 64 MiB */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    /** Default time between background syncs, in milliseconds */
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 10;
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    /** Length, checksum and type id */
+    private static final int HEADER_SIZE = 12;
+
+    /** Position past every record, while nothing holds the checkpoint */
+    private static final long NONE = Long.MAX_VALUE;
+
+    /** Unmaps a buffer right away, or {@code null} if the running JVM offers no way to */
+    private static final MethodHandle UNMAP = unmapper();
+
+    private final Path directory;
+    private final EventCodecs codecs;
+    private final int segmentSize;
+    private final CRC32 checksum = new CRC32();
+    private final ScheduledFuture<?> syncTask;
+    private final MappedByteBuffer checkpoint;
+
+    /** Segments of previous runs, not replayed yet */
+    private final List<Path> recoveredSegments;
+
+    /** Records appended in this run and not acknowledged yet, in append order */
+    private final ArrayDeque<Record> undelivered = new ArrayDeque<>();
+
+    /** Records replayed and not acknowledged yet, in replay order */
+    private final ArrayDeque<Record> replayed = new ArrayDeque<>();
+
+    /** Event being posted by {@link #replay(EventBus)}, which is not appended again */
+    private volatile Object replaying;
+
+    /** Position of the next record of a previous run to replay, or {@link #NONE} once all are replayed */
+    private long replayPosition;
+
+    /** Position of the first event appended by {@link #append(Object)}, or {@link #NONE} */
+    private long firstUntracked = NONE;
+
+    /** Index of the oldest segment which may still exist */
+    private long firstSegmentIndex;
+
+    private long nextSegmentIndex;
+    private MappedByteBuffer segment;
+    private long checkpointPosition;
+    private boolean dirty;
+    private boolean closed;
+
+    /**
+     * Opens a journal with segments of {@link #DEFAULT_SEGMENT_SIZE}, synced every
+     * {@link #DEFAULT_SYNC_INTERVAL_MILLIS}
+     *
+     * @param directory Directory of the segment files, created if missing
+     * @param codecs Codecs of the events to journal
+     * @throws IOException if the directory can not be read or the first segment can not be created
+     */
+    public EventJournal(Path directory, EventCodecs codecs) throws IOException {
+        this(directory, codecs, DEFAULT_SEGMENT_SIZE, DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param directory Directory of the segment files, created if missing
+     * @param codecs Codecs of the events to journal
+     * @param segmentSize Size of each segment file in bytes. An encoded event must fit in a single segment
+     * @param syncIntervalMillis Time between background syncs of the current segment to disk. With 0, the
+     *                           journal never syncs by itself and leaves writing to the operating system, unless
+     *                           {@link #sync()} is called
+     * @throws IOException if the directory can not be read or the first segment can not be created
+     */
+    public EventJournal(Path directory, EventCodecs codecs, int segmentSize, long syncIntervalMillis)
+            throws IOException {
+        if (segmentSize <= HEADER_SIZE)
+            throw new IllegalArgumentException("segmentSize must be larger than " + HEADER_SIZE + ", was "
+                    + segmentSize);
+        if (syncIntervalMillis < 0)
+            throw new IllegalArgumentException("syncIntervalMillis must not be negative, was " + syncIntervalMillis);
+
+        this.directory = Files.createDirectories(checkNonNull(directory));
+        this.codecs = checkNonNull(codecs);
+        this.segmentSize = segmentSize;
+        this.checkpoint = mapCheckpoint(directory.resolve(CHECKPOINT_FILE));
+        this.recoveredSegments = listSegments(directory);
+        recover(checkpoint.getLong(0));
+        this.segment = createSegment();
+        advanceCheckpoint();
+        this.syncTask = syncIntervalMillis == 0 ? null : Executors.scheduler().scheduleWithFixedDelay(
+                this::syncQuietly, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Deletes the segments of a previous run which lie entirely before its checkpoint, and starts replay at the
+     * checkpoint. A checkpoint of 0, as in a new file, replays every segment
+     */
+    private void recover(long previousCheckpoint) throws IOException {
+        while (!recoveredSegments.isEmpty()
+                && segmentIndex(recoveredSegments.get(0)) < segmentOf(previousCheckpoint)) {
+            Files.delete(recoveredSegments.remove(0));
+        }
+        if (recoveredSegments.isEmpty()) {
+            replayPosition = NONE;
+            nextSegmentIndex = segmentOf(previousCheckpoint);
+        } else {
+            long first = segmentIndex(recoveredSegments.get(0));
+            replayPosition = first == segmentOf(previousCheckpoint) ? previousCheckpoint : position(first, 0);
+            nextSegmentIndex = segmentIndex(recoveredSegments.get(recoveredSegments.size() - 1)) + 1;
+        }
+        firstSegmentIndex = recoveredSegments.isEmpty() ? nextSegmentIndex
+                : segmentIndex(recoveredSegments.get(0));
+    }
+
+    /**
+     * Appends {@code event} to the current segment, moving on to a new segment if it is full. The event is never
+     * acknowledged, so it and every event after it are kept and replayed after a restart. A journaling
+     * {@link Dispatcher} acknowledges the events it appends by itself
+     *
+     * @param event Event to append
+     * @return {@code true} if the event was appended, {@code false} if there is no codec for its class
+     * @throws IllegalStateException if the journal is closed
+     * @throws IllegalArgumentException if the encoded event does not fit in a segment
+     * @throws UncheckedIOException if a new segment can not be created
+     */
+    public boolean append(Object event) {
+        EventCodecs.Registration<?> registration = codecs.forType(event.getClass());
+        if (registration == null)
+            return false;
+
+        synchronized (this) {
+            long position = appendLocked(registration, event);
+            if (firstUntracked == NONE)
+                firstUntracked = position;
+        }
+        return true;
+    }
+
+    /**
+     * Appends {@code event} like {@link #append(Object)}, but keeps it only until the returned record is
+     * {@linkplain #acknowledge(Record) acknowledged}
+     *
+     * @return the record to acknowledge once {@code event} is delivered, or {@code null} if it was not appended,
+     *         as it has no codec or is being replayed
+     */
+    Record appendUndelivered(Object event) {
+        if (event == replaying)
+            return null;
+        EventCodecs.Registration<?> registration = codecs.forType(event.getClass());
+        if (registration == null)
+            return null;
+
+        synchronized (this) {
+            Record record = new Record(this, appendLocked(registration, event));
+            undelivered.add(record);
+            return record;
+        }
+    }
+
+    /**
+     * @return the position of the appended record
+     */
+    private long appendLocked(EventCodecs.Registration<?> registration, Object event) {
+        if (closed)
+            throw new IllegalStateException("Journal in " + directory + " is closed");
+        long position = currentPosition();
+        if (!tryAppend(registration, event)) {
+            rollSegment();
+            position = currentPosition();
+            if (!tryAppend(registration, event))
+                throw new IllegalArgumentException("Event does not fit in a segment of " + segmentSize
+                        + " bytes: " + event);
+        }
+        dirty = true;
+        return position;
+    }
+
+    /**
+     * Marks {@code record} as delivered, moving the checkpoint past it once every record before it is delivered
+     * too. Acknowledging a record again, or after the journal is closed, does nothing
+     */
+    synchronized void acknowledge(Record record) {
+        if (record.delivered || closed)
+            return;
+        record.delivered = true;
+        boolean moved = false;
+        while (!undelivered.isEmpty() && undelivered.peek().delivered) {
+            undelivered.poll();
+            moved = true;
+        }
+        while (!replayed.isEmpty() && replayed.peek().delivered) {
+            replayed.poll();
+            moved = true;
+        }
+        if (moved)
+            advanceCheckpoint();
+    }
+
+    /**
+     * Writes the position of the oldest event which is not delivered yet to the checkpoint, and deletes the
+     * segments before it
+     */
+    private void advanceCheckpoint() {
+        long position = Math.min(Math.min(replayPosition, firstUntracked),
+                Math.min(replayed.isEmpty() ? NONE : replayed.peek().position,
+                        undelivered.isEmpty() ? currentPosition() : undelivered.peek().position));
+        if (position <= checkpointPosition)
+            return;
+        checkpoint.putLong(0, position);
+        checkpointPosition = position;
+        dirty = true;
+        for (; firstSegmentIndex < segmentOf(position); firstSegmentIndex++) {
+            try {
+                Files.deleteIfExists(segmentFile(firstSegmentIndex));
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not delete delivered segment " + segmentFile(firstSegmentIndex), e);
+            }
+        }
+    }
+
+    /**
+     * Writes a record at the position of the current segment, leaving the position after it. Leaves the segment
+     * untouched and returns {@code false} if the record does not fit
+     */
+    private boolean tryAppend(EventCodecs.Registration<?> registration, Object event) {
+        MappedByteBuffer segment = this.segment;
+        // Buffer's methods, as ByteBuffer's covariant overrides do not exist on Java 8
+        Buffer bounds = segment;
+        int start = segment.position();
+        if (segmentSize - start <= HEADER_SIZE)
+            return false;
+
+        bounds.position(start + HEADER_SIZE);
+        try {
+            registration.encode(event, segment);
+        } catch (BufferOverflowException e) {
+            bounds.position(start);
+            return false;
+        } catch (RuntimeException e) {
+            bounds.position(start);
+            throw e;
+        }
+        int end = segment.position();
+
+        segment.putInt(start + 8, registration.typeId);
+        bounds.limit(end).position(start + 8);
+        checksum.reset();
+        checksum.update(segment);
+        bounds.limit(segmentSize).position(end);
+        segment.putInt(start + 4, (int) checksum.getValue());
+        // Written last, as a non-zero length marks the record as complete
+        segment.putInt(start, end - start - HEADER_SIZE);
+        return true;
+    }
+
+    private void rollSegment() {
+        MappedByteBuffer full = segment;
+        full.force();
+        try {
+            segment = createSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create a segment in " + directory, e);
+        }
+        unmap(full);
+    }
+
+    private MappedByteBuffer createSegment() throws IOException {
+        Path file = segmentFile(nextSegmentIndex++);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private Path segmentFile(long index) {
+        return directory.resolve(String.format("%016d%s", index, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * @return the position the next record is appended at, unless the current segment is full
+     */
+    private long currentPosition() {
+        return position(nextSegmentIndex - 1, segment.position());
+    }
+
+    /**
+     * Writes everything appended and acknowledged so far to disk
+     */
+    public synchronized void sync() {
+        if (dirty && !closed) {
+            segment.force();
+            checkpoint.force();
+            dirty = false;
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Could not sync journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Posts the events of segments left by a previous run to {@code bus}, oldest first, starting at the
+     * checkpoint. Each event is posted with {@link EventBus#postAsync(Object)} and acknowledged once every
+     * subscriber has handled it, without being appended to the journal again. Records for which no codec is
+     * registered are skipped. Later calls only replay events which could not be posted before
+     *
+     * @param bus Bus to post the events to
+     * @return the number of events posted
+     * @throws IOException if a segment can not be read
+     * @throws IllegalStateException if the journal is closed
+     */
+    public long replay(EventBus bus) throws IOException {
+        checkNonNull(bus);
+        long posted = 0;
+        synchronized (recoveredSegments) {
+            synchronized (this) {
+                if (closed)
+                    throw new IllegalStateException("Journal in " + directory + " is closed");
+            }
+            while (!recoveredSegments.isEmpty()) {
+                Path file = recoveredSegments.get(0);
+                posted += replaySegment(file, bus);
+                recoveredSegments.remove(0);
+                synchronized (this) {
+                    replayPosition = recoveredSegments.isEmpty() ? NONE
+                            : position(segmentIndex(recoveredSegments.get(0)), 0);
+                    if (!closed)
+                        advanceCheckpoint();
+                }
+            }
+        }
+        return posted;
+    }
+
+    private long replaySegment(Path file, EventBus bus) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        long index = segmentIndex(file);
+        Buffer bounds = buffer;
+        CRC32 crc = new CRC32();
+        long posted = 0;
+        int capacity = buffer.capacity();
+        int position;
+        synchronized (this) {
+            position = segmentOf(replayPosition) == index ? offsetOf(replayPosition) : 0;
+        }
+        while (capacity - position > HEADER_SIZE) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > capacity - position - HEADER_SIZE)
+                break;
+
+            int expectedChecksum = buffer.getInt(position + 4);
+            int end = position + HEADER_SIZE + length;
+            bounds.limit(end).position(position + 8);
+            crc.reset();
+            crc.update(buffer);
+            if ((int) crc.getValue() != expectedChecksum) {
+                logger.log(Level.WARNING, "Ignoring torn record at " + position + " and after it in " + file);
+                break;
+            }
+
+            EventCodecs.Registration<?> registration = codecs.forId(buffer.getInt(position + 8));
+            Record record = null;
+            synchronized (this) {
+                if (registration != null) {
+                    record = new Record(this, position(index, position));
+                    replayed.add(record);
+                }
+                replayPosition = position(index, end);
+            }
+            if (record != null) {
+                bounds.limit(end).position(position + HEADER_SIZE);
+                Object event = registration.codec.decode(buffer.slice());
+                replaying = event;
+                try {
+                    bus.postAsync(event).whenComplete(record);
+                } catch (RuntimeException | Error e) {
+                    synchronized (this) {
+                        replayed.remove(record);
+                        replayPosition = record.position;
+                    }
+                    throw e;
+                } finally {
+                    replaying = null;
+                }
+                posted++;
+            } else {
+                logger.log(Level.WARNING, "Skipping record of unknown type id " + buffer.getInt(position + 8)
+                        + " in " + file);
+            }
+            bounds.limit(capacity);
+            position = end;
+        }
+        return posted;
+    }
+
+    /**
+     * Closes the journal. If every event is acknowledged, its segments and checkpoint are deleted, so that the
+     * next run has nothing to replay. Otherwise they are synced and kept for replay. Appending afterwards throws
+     * {@link IllegalStateException}, and acknowledgements arriving afterwards are ignored
+     */
+    @Override
+    public void close() {
+        if (syncTask != null)
+            syncTask.cancel(false);
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            boolean delivered = undelivered.isEmpty() && replayed.isEmpty() && replayPosition == NONE
+                    && firstUntracked == NONE;
+            if (!delivered) {
+                segment.force();
+                checkpoint.force();
+            }
+            unmap(segment);
+            unmap(checkpoint);
+            if (delivered)
+                deleteAll();
+        }
+    }
+
+    private void deleteAll() {
+        try {
+            for (; firstSegmentIndex < nextSegmentIndex; firstSegmentIndex++)
+                Files.deleteIfExists(segmentFile(firstSegmentIndex));
+            Files.deleteIfExists(directory.resolve(CHECKPOINT_FILE));
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not delete delivered segments in " + directory, e);
+        }
+    }
+
+    private static MappedByteBuffer mapCheckpoint(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files)
+                segments.add(file);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static long segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * @return the position of the record at {@code offset} of segment {@code index}, which orders records by
+     *         segment first
+     */
+    private static long position(long index, int offset) {
+        return index << 32 | offset;
+    }
+
+    private static long segmentOf(long position) {
+        return position >>> 32;
+    }
+
+    private static int offsetOf(long position) {
+        return (int) position;
+    }
+
+    /**
+     * Releases the mapping of {@code buffer} now rather than once it is garbage collected, which would keep
+     * every rolled segment mapped until then. The buffer must not be used afterwards
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (UNMAP == null)
+            return;
+        try {
+            UNMAP.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable e) {
+            logger.log(Level.FINE, "Could not unmap a journal segment", e);
+        }
+    }
+
+    /**
+     * Looks up {@code Unsafe.invokeCleaner} on Java 9 and later, or the buffer's cleaner on Java 8
+     */
+    private static MethodHandle unmapper() {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodType type = MethodType.methodType(void.class, ByteBuffer.class);
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            MethodHandle invokeCleaner = lookup.findVirtual(unsafeClass, "invokeCleaner", type);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return invokeCleaner.bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 8 has no invokeCleaner
+        }
+        try {
+            MethodHandle cleaner = lookup.unreflect(Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner"));
+            MethodHandle clean = lookup.unreflect(Class.forName("sun.misc.Cleaner").getMethod("clean"));
+            return MethodHandles.filterReturnValue(cleaner, clean).asType(type);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.log(Level.FINE, "Journal segments are unmapped once garbage collected", e);
+            return null;
+        }
+    }
+
+    /**
+     * An appended event which has not been delivered yet. Completing the {@link TrackedEvent} it is attached to
+     * acknowledges it
+     */
+    static final class Record implements BiConsumer<Object, Throwable> {
+        private final EventJournal journal;
+        final long position;
+
+        /** Guarded by the journal */
+        boolean delivered;
+
+        private Record(EventJournal journal, long position) {
+            this.journal = journal;
+            this.position = position;
+        }
+
+        /**
+         * Returns {@code event} tracked, so that this record is acknowledged once its {@code subscribers} have all
+         * handled it
+         */
+        Object track(Object event, int subscribers) {
+            TrackedEvent tracked = event instanceof TrackedEvent ? (TrackedEvent) event
+                    : new TrackedEvent(event, subscribers);
+            tracked.whenComplete(this);
+            return tracked;
+        }
+
+        @Override
+        public void accept(Object result, Throwable failure) {
+            journal.acknowledge(this);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package xyz.justblink.eventbus;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Reads the {@link FilterKey} of events of a class through a method handle, which is resolved once per class
+ *
+ * @author Kasun Piyumal
+ */
+final class EventKey {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /** Cached for classes without a key */
+    private static final EventKey NONE = new EventKey(null, null, null);
+
+    private static final ClassValue<EventKey> keys = new ClassValue<EventKey>() {
+        @Override
+        protected EventKey computeValue(Class<?> type) {
+            return find(type);
+        }
+    };
+
+    private final Member member;
+    private final Class<?> type;
+    private final MethodHandle getter;
+
+    private EventKey(Member member, Class<?> type, MethodHandle getter) {
+        this.member = member;
+        this.type = type;
+        this.getter = getter;
+    }
+
+    /**
+     * @param eventType Class of the events
+     * @return the key of events of {@code eventType}, or {@code null} if neither the class nor its supertypes
+     * declare a {@link FilterKey}
+     * @throws IllegalArgumentException if a class declares more than one key, or a key method takes arguments
+     */
+    static EventKey of(Class<?> eventType) {
+        EventKey key = keys.get(eventType);
+        return key == NONE ? null : key;
+    }
+
+    /**
+     * @return the key of {@code event}, which may be {@code null}
+     */
+    Object extract(Object event) {
+        try {
+            return (Object) getter.invokeExact(event);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Reading " + member + " of event " + event + " failed", e);
+        }
+    }
+
+    /**
+     * Converts a key listed in {@link Subscribe#keys()} to the type of this key
+     *
+     * @throws IllegalArgumentException if the value can not be converted, or this key is not of a type which can
+     * be listed in an annotation
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Object parse(String value) {
+        Class<?> wrapper = MethodType.methodType(type).wrap().returnType();
+        if (wrapper == String.class || wrapper == Object.class || wrapper == CharSequence.class)
+            return value;
+        if (wrapper.isEnum())
+            return Enum.valueOf((Class<Enum>) wrapper, value);
+        if (wrapper == Integer.class)
+            return Integer.valueOf(value);
+        if (wrapper == Long.class)
+            return Long.valueOf(value);
+        if (wrapper == Short.class)
+            return Short.valueOf(value);
+        if (wrapper == Byte.class)
+            return Byte.valueOf(value);
+        if (wrapper == Double.class)
+            return Double.valueOf(value);
+        if (wrapper == Float.class)
+            return Float.valueOf(value);
+        if (wrapper == Boolean.class) {
+            if (value.equals("true") || value.equals("false"))
+                return Boolean.valueOf(value);
+        } else if (wrapper == Character.class) {
+            if (value.length() == 1)
+                return value.charAt(0);
+        } else {
+            throw new IllegalArgumentException("Keys of type " + type.getName() + ", as of " + member
+                    + ", can not be listed in @Subscribe(keys = ...). Give them with keysFrom instead");
+        }
+        throw new IllegalArgumentException("Can not convert \"" + value + "\" to the " + type.getName()
+                + " key " + member);
+    }
+
+    @Override
+    public String toString() {
+        return member.toString();
+    }
+
+    private static EventKey find(Class<?> type) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> currentClass = type; currentClass != null; currentClass = currentClass.getSuperclass()) {
+            EventKey key = declaredKey(currentClass);
+            if (key != null)
+                return key;
+            addInterfaces(currentClass, interfaces);
+        }
+        for (Class<?> implemented : interfaces) {
+            EventKey key = declaredKey(implemented);
+            if (key != null)
+                return key;
+        }
+        return NONE;
+    }
+
+    private static void addInterfaces(Class<?> type, Set<Class<?>> interfaces) {
+        for (Class<?> implemented : type.getInterfaces()) {
+            if (interfaces.add(implemented))
+                addInterfaces(implemented, interfaces);
+        }
+    }
+
+    private static EventKey declaredKey(Class<?> type) {
+        Member found = null;
+        for (Method method : type.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(FilterKey.class) && !method.isSynthetic()) {
+                if (method.getParameterCount() != 0 || method.getReturnType() == void.class)
+                    throw new IllegalArgumentException("Method " + method + " has @FilterKey annotation but "
+                            + "does not return a value without arguments");
+                found = only(found, method);
+            }
+        }
+        for (Field field : type.getDeclaredFields()) {
+            if (field.isAnnotationPresent(FilterKey.class))
+                found = only(found, field);
+        }
+        if (found == null)
+            return null;
+        if (Modifier.isStatic(found.getModifiers()))
+            throw new IllegalArgumentException(found + " has @FilterKey annotation but is static");
+
+        ((AccessibleObject) found).setAccessible(true);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            MethodHandle getter = found instanceof Method ? lookup.unreflect((Method) found)
+                    : lookup.unreflectGetter((Field) found);
+            Class<?> keyType = found instanceof Method ? ((Method) found).getReturnType()
+                    : ((Field) found).getType();
+            return new EventKey(found, keyType, getter.asType(GETTER_TYPE));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Can not read @FilterKey " + found, e);
+        }
+    }
+
+    private static Member only(Member found, Member member) {
+        if (found != null)
+            throw new IllegalArgumentException(member.getDeclaringClass() + " has more than one @FilterKey: "
+                    + found + " and " + member);
+        return member;
+    }
+}
@@ -0,0 +1,32 @@
+package xyz.justblink.eventbus;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sets the {@link Priority} of an event class and its subclasses:
+ *
+ * <pre>
+ * &#64;EventPriority(Priority.CRITICAL)
+ * public class KillSwitch { ... }
+ * </pre>
+ *
+ * <p>The priority only matters to a bus using a {@link Dispatcher#priorityDispatcher(int)}, which lets waiting
+ * events of a higher priority skip ahead of the others. The order of subscribers to a single event is set with
+ * {@link Subscribe#priority()} instead.</p>
+ *
+ * @author Kasun Piyumal
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface EventPriority {
+
+    /**
+     * @return priority of the events
+     */
+    Priority value();
+}
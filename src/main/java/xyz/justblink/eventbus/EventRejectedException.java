@@ -0,0 +1,18 @@
+package xyz.justblink.eventbus;
+
+/**
+ * Thrown by {@link EventBus#post(Object)} when a subscriber's queue is full and the bus uses
+ * {@link OverflowPolicy#FAIL}
+ *
+ * @author Kasun Piyumal
+ */
+public class EventRejectedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param message Description of the rejected event
+     */
+    public EventRejectedException(String message) {
+        super(message);
+    }
+}
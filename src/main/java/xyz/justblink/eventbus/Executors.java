@@ -1,6 +1,14 @@
 package xyz.justblink.eventbus;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Executors that are used to dispatch events. Must be used in cases where external executor is not
@@ -19,6 +27,126 @@ abstract class Executors {
         return DirectExecutor.INSTANCE;
     }
 
+    /**
+     * Returns an Executor which runs every task in a new virtual thread. Virtual threads are cheap enough to
+     * create one per task, and a task blocking in I/O does not hold on to an operating system thread, so
+     * subscribers making blocking calls do not starve each other.
+     *
+     * <p>Virtual threads are looked up at runtime, so that the library keeps running on Java 8.</p>
+     *
+     * @return the shared virtual thread executor
+     * @throws UnsupportedOperationException if the running JVM has no virtual threads, as before Java 21
+     */
+    static Executor virtualThreadExecutor() {
+        Executor executor = VirtualThreadExecutor.INSTANCE;
+        if (executor == null)
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later, running on Java "
+                    + System.getProperty("java.version"));
+        return executor;
+    }
+
+    /**
+     * @return whether the running JVM supports {@link #virtualThreadExecutor()}
+     */
+    static boolean hasVirtualThreads() {
+        return VirtualThreadExecutor.INSTANCE != null;
+    }
+
+    /**
+     * Returns the timer shared by all buses for delayed work, such as flushing batches which have lingered long
+     * enough. Its single daemon thread is started on first use. Tasks run on it must be short
+     *
+     * @return the shared scheduler
+     */
+    static ScheduledExecutorService scheduler() {
+        return SchedulerHolder.INSTANCE;
+    }
+
+    /**
+     * Returns the executor shared by all buses with a direct executor for deliveries which the thread triggering
+     * them should not run itself, such as batches flushed by the {@link #scheduler()}. It starts a daemon thread
+     * per task running at the same time and lets idle threads go after a minute, so a slow subscriber only holds
+     * up itself
+     *
+     * @return the shared executor for deferred deliveries
+     */
+    static Executor deferredExecutor() {
+        return DeferredExecutorHolder.INSTANCE;
+    }
+
+    private static final class SchedulerHolder {
+        static final ScheduledExecutorService INSTANCE = createScheduler();
+
+        private static ScheduledExecutorService createScheduler() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "eventbus-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+
+    private static final class DeferredExecutorHolder {
+        static final Executor INSTANCE = createDeferredExecutor();
+
+        private static Executor createDeferredExecutor() {
+            AtomicInteger count = new AtomicInteger();
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(() -> {
+                            Mailbox.markDeliveringThread();
+                            runnable.run();
+                        }, "eventbus-deferred-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    private static final class VirtualThreadExecutor implements Executor {
+
+        /** {@code null} if the JVM has no virtual threads */
+        static final VirtualThreadExecutor INSTANCE = create();
+
+        private final ThreadFactory factory;
+
+        private VirtualThreadExecutor(ThreadFactory factory) {
+            this.factory = factory;
+        }
+
+        /**
+         * Calls {@code Thread.ofVirtual().name("eventbus-virtual-", 0).factory()}
+         */
+        private static VirtualThreadExecutor create() {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                builder = builderType.getMethod("name", String.class, long.class)
+                        .invoke(builder, "eventbus-virtual-", 0L);
+                return new VirtualThreadExecutor((ThreadFactory) builderType.getMethod("factory").invoke(builder));
+            } catch (NoSuchMethodException | ClassNotFoundException | IllegalAccessException e) {
+                return null;
+            } catch (InvocationTargetException e) {
+                // Virtual threads are a preview feature on Java 19 and 20, and disabled unless asked for
+                if (e.getCause() instanceof UnsupportedOperationException)
+                    return null;
+                throw new IllegalStateException("Could not create virtual thread factory", e.getCause());
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            factory.newThread(command).start();
+        }
+
+        @Override
+        public String toString() {
+            return "Executors.virtualThreadExecutor()";
+        }
+    }
+
     private static final class DirectExecutor implements Executor {
 
         static final DirectExecutor INSTANCE = new DirectExecutor();
@@ -0,0 +1,33 @@
+package xyz.justblink.eventbus;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the field or no-argument method of an event class whose value subscribers can filter on with
+ * {@link Subscribe#keys()} or {@link Subscribe#keysFrom()}:
+ *
+ * <pre>
+ * public class Trade {
+ *     &#64;FilterKey
+ *     public String getSymbol() { ... }
+ * }
+ *
+ * &#64;Subscribe(keys = {"AAPL", "MSFT"})
+ * public void onTrade(Trade trade) { ... }
+ * </pre>
+ *
+ * <p>The key may be declared by the event class, a superclass or an interface, and is read from every posted
+ * event which has filtered subscribers. The bus keeps filtered subscribers in a hash table by event type and key,
+ * so posting an event costs a single lookup however many subscribers filter on other keys. Keys are compared with
+ * {@link Object#equals(Object)}, so they should be immutable. An event whose key is {@code null} matches no
+ * filtered subscriber, and is conflated and partitioned by its class instead.</p>
+ *
+ * @author Kasun Piyumal
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.FIELD})
+public @interface FilterKey {
+}
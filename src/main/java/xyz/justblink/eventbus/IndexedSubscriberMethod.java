@@ -0,0 +1,78 @@
+package xyz.justblink.eventbus;
+
+/**
+ * A {@link Subscribe} method of a listener class as described by a generated {@link SubscriberIndex}, carrying
+ * everything the bus would otherwise read from the method and its annotations with reflection
+ *
+ * @author Kasun Piyumal
+ */
+public final class IndexedSubscriberMethod {
+    final Class<?> declaringClass;
+    final String name;
+    final Class<?> parameterType;
+    final Class<?> eventType;
+    final SubscriberInvoker invoker;
+    final boolean threadSafe;
+    final int priority;
+    final boolean batch;
+    final int batchSize;
+    final long batchLingerMillis;
+
+    /**
+     * Describes a method receiving one event at a time
+     *
+     * @param declaringClass Class declaring the method
+     * @param name Name of the method
+     * @param parameterType Type of the only parameter of the method, which is also the subscribed event type
+     * @param invoker Calls the method directly
+     * @param threadSafe Whether the method is marked with {@link AcceptConcurrentEvents}
+     * @param priority {@link Subscribe#priority()} of the method
+     */
+    public IndexedSubscriberMethod(Class<?> declaringClass, String name, Class<?> parameterType,
+                                   SubscriberInvoker invoker, boolean threadSafe, int priority) {
+        this(declaringClass, name, parameterType, parameterType, invoker, threadSafe, priority, false, 0, 0);
+    }
+
+    /**
+     * Describes a method marked with {@link BatchEvents}
+     *
+     * @param declaringClass Class declaring the method
+     * @param name Name of the method
+     * @param parameterType Type of the only parameter of the method, such as {@code List}
+     * @param eventType Element type of the batches, which is the subscribed event type
+     * @param invoker Calls the method directly
+     * @param threadSafe Whether the method is marked with {@link AcceptConcurrentEvents}
+     * @param priority {@link Subscribe#priority()} of the method
+     * @param batchSize {@link BatchEvents#maxSize()} of the method
+     * @param batchLingerMillis {@link BatchEvents#maxLingerMillis()} of the method
+     * @throws IllegalArgumentException if {@code batchSize} is less than 1
+     */
+    public IndexedSubscriberMethod(Class<?> declaringClass, String name, Class<?> parameterType, Class<?> eventType,
+                                   SubscriberInvoker invoker, boolean threadSafe, int priority, int batchSize,
+                                   long batchLingerMillis) {
+        this(declaringClass, name, parameterType, eventType, invoker, threadSafe, priority, true, batchSize,
+                batchLingerMillis);
+        if (batchSize < 1)
+            throw new IllegalArgumentException("maxSize of @BatchEvents must be at least 1 on method " + this);
+    }
+
+    private IndexedSubscriberMethod(Class<?> declaringClass, String name, Class<?> parameterType,
+                                    Class<?> eventType, SubscriberInvoker invoker, boolean threadSafe, int priority,
+                                    boolean batch, int batchSize, long batchLingerMillis) {
+        this.declaringClass = Conditions.checkNonNull(declaringClass);
+        this.name = Conditions.checkNonNull(name);
+        this.parameterType = Conditions.checkNonNull(parameterType);
+        this.eventType = Conditions.checkNonNull(eventType);
+        this.invoker = Conditions.checkNonNull(invoker);
+        this.threadSafe = threadSafe;
+        this.priority = priority;
+        this.batch = batch;
+        this.batchSize = batchSize;
+        this.batchLingerMillis = batchLingerMillis;
+    }
+
+    @Override
+    public String toString() {
+        return declaringClass.getName() + '.' + name + '(' + parameterType.getName() + ')';
+    }
+}
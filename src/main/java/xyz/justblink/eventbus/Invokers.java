@@ -0,0 +1,141 @@
+package xyz.justblink.eventbus;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Builds {@link SubscriberInvoker}s for subscriber methods
+ *
+ * <p>The fastest strategy available for a method is picked once, when the subscriber is created:</p>
+ *
+ * <ol>
+ *     <li>A class spun by {@link LambdaMetafactory} that calls the method directly. Used for public instance
+ *     methods of public classes which are visible from the class loader of this library. The JIT treats the call
+ *     like any other virtual call and can inline it</li>
+ *     <li>A {@link MethodHandle} to the method. Used for non-public classes and methods, and for static methods</li>
+ *     <li>Plain reflection through {@link Method#invoke(Object, Object...)}, if a method handle can not be
+ *     created</li>
+ * </ol>
+ *
+ * @author Kasun Piyumal
+ */
+abstract class Invokers {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(SubscriberInvoker.class);
+
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * Returns the fastest invoker which can be created for {@code method}. The method is expected to have exactly
+     * one parameter and to be made accessible already
+     *
+     * @param method Subscriber method
+     * @return an invoker calling {@code method}
+     */
+    static SubscriberInvoker create(Method method) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle handle;
+        try {
+            handle = lookup.unreflect(method);
+        } catch (IllegalAccessException | RuntimeException e) {
+            return reflective(method);
+        }
+
+        if (canSpinLambda(method)) {
+            try {
+                return lambda(lookup, method, handle);
+            } catch (Throwable ignored) {
+                // Fall through to the method handle invoker
+            }
+        }
+
+        if (Modifier.isStatic(method.getModifiers()))
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        return new MethodHandleInvoker(handle.asType(INVOKE_TYPE));
+    }
+
+    /**
+     * Returns an invoker which always goes through {@link Method#invoke(Object, Object...)}
+     *
+     * @param method Subscriber method, already made accessible
+     * @return a reflective invoker calling {@code method}
+     */
+    static SubscriberInvoker reflective(Method method) {
+        return new ReflectiveInvoker(method);
+    }
+
+    private static SubscriberInvoker lambda(MethodHandles.Lookup lookup, Method method, MethodHandle handle)
+            throws Throwable {
+        MethodType instantiatedType = MethodType.methodType(void.class, method.getDeclaringClass(),
+                method.getParameterTypes()[0]);
+        CallSite site = LambdaMetafactory.metafactory(lookup, "invoke", INVOKER_TYPE, INVOKE_TYPE, handle,
+                instantiatedType);
+        return (SubscriberInvoker) site.getTarget().invoke();
+    }
+
+    /**
+     * The spun class lives next to this one, so it can only link against public types this class loader can see
+     */
+    private static boolean canSpinLambda(Method method) {
+        Class<?> parameterType = method.getParameterTypes()[0];
+        return Modifier.isPublic(method.getModifiers())
+                && !Modifier.isStatic(method.getModifiers())
+                && !parameterType.isPrimitive()
+                && isLinkable(method.getDeclaringClass())
+                && isLinkable(parameterType);
+    }
+
+    private static boolean isLinkable(Class<?> type) {
+        while (type.isArray())
+            type = type.getComponentType();
+        if (type.isPrimitive())
+            return true;
+        if (!Modifier.isPublic(type.getModifiers()))
+            return false;
+        try {
+            return Class.forName(type.getName(), false, Invokers.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static final class MethodHandleInvoker implements SubscriberInvoker {
+        private final MethodHandle handle;
+
+        private MethodHandleInvoker(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public void invoke(Object target, Object event) throws Throwable {
+            handle.invokeExact(target, event);
+        }
+    }
+
+    private static final class ReflectiveInvoker implements SubscriberInvoker {
+        private final Method method;
+
+        private ReflectiveInvoker(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public void invoke(Object target, Object event) throws Throwable {
+            try {
+                method.invoke(target, event);
+            } catch (IllegalArgumentException e) {
+                throw new Error("Method rejected target/argument: " + event, e);
+            } catch (IllegalAccessException e) {
+                throw new Error("Method became inaccessible: " + event, e);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
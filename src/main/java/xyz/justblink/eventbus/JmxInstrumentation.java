@@ -0,0 +1,266 @@
+package xyz.justblink.eventbus;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static xyz.justblink.eventbus.Conditions.checkNonNull;
+
+/**
+ * {@link EventBusInstrumentation} exposing the statistics of a bus as an {@link EventBusMXBean}, and of each of
+ * its subscribers as a {@link SubscriberMXBean}
+ *
+ * <pre>
+ * EventBus bus = new AsyncEventBus("orders", executor);
+ * bus.setInstrumentation(new JmxInstrumentation());
+ * </pre>
+ *
+ * <p>The beans are registered when the instrumentation is set and when subscribers are registered, and removed
+ * when subscribers are unregistered and when the instrumentation is replaced. Counters are {@link LongAdder}s
+ * and latencies go to a lock-free histogram per subscriber, so recording scales with the number of delivering
+ * threads.</p>
+ *
+ * <p>Use a new instance for every bus.</p>
+ *
+ * @author Kasun Piyumal
+ */
+public class JmxInstrumentation implements EventBusInstrumentation {
+    private static final Logger logger = Logger.getLogger(JmxInstrumentation.class.getName());
+    private static final String DOMAIN = "xyz.justblink.eventbus";
+
+    private final MBeanServer server;
+    private final AtomicLong subscriberIds = new AtomicLong();
+    private final Set<SubscriberStats> subscribers = ConcurrentHashMap.newKeySet();
+    private final Map<Class<?>, LongAdder> postedByType = new ConcurrentHashMap<>();
+    private final LongAdder posted = new LongAdder();
+    private final LongAdder deadEvents = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile String identifier;
+    private volatile IntSupplier queuedEvents = () -> 0;
+    private volatile ObjectName busName;
+
+    /**
+     * Registers the beans with the platform MBean server
+     */
+    public JmxInstrumentation() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * @param server Server to register the beans with
+     */
+    public JmxInstrumentation(MBeanServer server) {
+        this.server = checkNonNull(server);
+    }
+
+    @Override
+    public void attached(EventBus bus, IntSupplier queuedEvents) {
+        this.identifier = bus.getIdentifier();
+        this.queuedEvents = queuedEvents;
+        this.busName = register(new BusStats(), "type=EventBus,name=" + ObjectName.quote(identifier));
+    }
+
+    @Override
+    public void detached() {
+        unregister(busName);
+        busName = null;
+    }
+
+    @Override
+    public void posted(Class<?> eventType) {
+        posted.increment();
+        LongAdder counter = postedByType.get(eventType);
+        if (counter == null)
+            counter = postedByType.computeIfAbsent(eventType, type -> new LongAdder());
+        counter.increment();
+    }
+
+    @Override
+    public void deadEvent(Class<?> eventType) {
+        deadEvents.increment();
+    }
+
+    @Override
+    public SubscriberRecorder subscriberAdded(Object subscriber, Method method, IntSupplier queuedEvents) {
+        SubscriberStats stats = new SubscriberStats(subscriber.getClass().getName(), method, queuedEvents);
+        stats.name = register(stats, "type=Subscriber,bus=" + ObjectName.quote(identifier)
+                + ",name=" + ObjectName.quote(subscriber.getClass().getSimpleName() + '.' + method.getName())
+                + ",id=" + subscriberIds.incrementAndGet());
+        subscribers.add(stats);
+        return stats;
+    }
+
+    private ObjectName register(Object bean, String properties) {
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ':' + properties);
+            server.registerMBean(bean, name);
+            return name;
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Could not register " + properties + " with the MBean server", e);
+            return null;
+        }
+    }
+
+    private void unregister(ObjectName name) {
+        if (name == null)
+            return;
+        try {
+            server.unregisterMBean(name);
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Could not unregister " + name + " from the MBean server", e);
+        }
+    }
+
+    private final class BusStats implements EventBusMXBean {
+
+        @Override
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public long getPostedCount() {
+            return posted.sum();
+        }
+
+        @Override
+        public Map<String, Long> getPostedCountByEventType() {
+            Map<String, Long> counts = new TreeMap<>();
+            for (Map.Entry<Class<?>, LongAdder> entry : postedByType.entrySet())
+                counts.merge(entry.getKey().getName(), entry.getValue().sum(), Long::sum);
+            return counts;
+        }
+
+        @Override
+        public long getDeadEventCount() {
+            return deadEvents.sum();
+        }
+
+        @Override
+        public long getExceptionCount() {
+            return exceptions.sum();
+        }
+
+        @Override
+        public long getDroppedCount() {
+            return dropped.sum();
+        }
+
+        @Override
+        public int getQueuedEvents() {
+            return queuedEvents.getAsInt();
+        }
+
+        @Override
+        public int getSubscriberCount() {
+            return subscribers.size();
+        }
+    }
+
+    private final class SubscriberStats implements SubscriberRecorder, SubscriberMXBean {
+        private final String subscriberClass;
+        private final String method;
+        private final IntSupplier queuedEvents;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder drops = new LongAdder();
+        private volatile ObjectName name;
+
+        private SubscriberStats(String subscriberClass, Method method, IntSupplier queuedEvents) {
+            this.subscriberClass = subscriberClass;
+            this.method = method.toGenericString();
+            this.queuedEvents = queuedEvents;
+        }
+
+        @Override
+        public void delivered(long latencyNanos) {
+            latencies.record(latencyNanos);
+        }
+
+        @Override
+        public void failed(long latencyNanos) {
+            failures.increment();
+            exceptions.increment();
+        }
+
+        @Override
+        public void dropped() {
+            drops.increment();
+            dropped.increment();
+        }
+
+        @Override
+        public void removed() {
+            subscribers.remove(this);
+            unregister(name);
+        }
+
+        @Override
+        public String getSubscriberClass() {
+            return subscriberClass;
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public long getDeliveredCount() {
+            return latencies.count();
+        }
+
+        @Override
+        public long getExceptionCount() {
+            return failures.sum();
+        }
+
+        @Override
+        public long getDroppedCount() {
+            return drops.sum();
+        }
+
+        @Override
+        public int getQueuedEvents() {
+            return queuedEvents.getAsInt();
+        }
+
+        @Override
+        public double getMeanLatencyNanos() {
+            return latencies.mean();
+        }
+
+        @Override
+        public long getMedianLatencyNanos() {
+            return latencies.percentile(50);
+        }
+
+        @Override
+        public long get99thPercentileLatencyNanos() {
+            return latencies.percentile(99);
+        }
+
+        @Override
+        public long get999thPercentileLatencyNanos() {
+            return latencies.percentile(99.9);
+        }
+
+        @Override
+        public long getMaxLatencyNanos() {
+            return latencies.max();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package xyz.justblink.eventbus;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds, recorded without locks or allocation
+ *
+ * <p>Buckets are laid out log-linearly, in the style of
+ * <a href="http://hdrhistogram.org/">HdrHistogram</a>: values below 64 get a bucket each, and every following
+ * power of two range is split into 32 buckets of equal width. Any value from 0 to {@code Long.MAX_VALUE} is
+ * therefore recorded with a relative error below 1/32, in a fixed array of under 2000 counters.</p>
+ *
+ * @author Kasun Piyumal
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS >> 1;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * HALF_SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long value) {
+        if (value < 0)
+            value = 0;
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    double mean() {
+        long count = count();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100
+     * @return the highest value equivalent to the value at {@code percentile}, or 0 if nothing was recorded
+     */
+    long percentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            total += counts.get(i);
+        if (total == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(highestEquivalentValue(i), max());
+        }
+        return max();
+    }
+
+    /**
+     * Values below {@link #SUB_BUCKETS} are their own index. Larger values keep their top {@link #SUB_BUCKET_BITS}
+     * bits, shifted down by {@code shift}, which falls between {@link #HALF_SUB_BUCKETS} and {@link #SUB_BUCKETS}.
+     * Each shift thereby gets its own run of {@link #HALF_SUB_BUCKETS} indexes.
+     */
+    static int index(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int shift = index / HALF_SUB_BUCKETS - 1;
+        long subBucket = index - shift * HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,595 @@
+package xyz.justblink.eventbus;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Queue of events waiting for a single {@link Subscriber}, drained by at most one thread at a time
+ *
+ * <p>Any number of threads may {@link #offer(Object)} events. The first event arriving in an idle mailbox
+ * schedules a drain task on the executor; events arriving while the task is scheduled or running are picked up
+ * by that same task. The subscriber therefore sees events one at a time and in the order they were offered,
+ * and an executor task is created per burst of events instead of per event.</p>
+ *
+ * <p>On a direct executor, the thread which finds the mailbox idle drains it, along with whatever other threads
+ * offer meanwhile. Those threads hand their events over and return instead of waiting for the subscriber, which
+ * makes the mailbox a combining queue. So that the draining thread gets back to its own work, it delivers about
+ * {@link #COMBINE_LIMIT} events at most and then hands the rest of the queue to
+ * {@link Executors#deferredExecutor()}. An unbounded mailbox drained that way holds about
+ * {@link #INLINE_CAPACITY} events at most, after which producers wait for room. The draining thread wakes one
+ * waiting producer for each event it takes out, and all of them when the mailbox goes idle. The limit is only
+ * approximate: the check for room is not atomic with queueing, so producers arriving together may each queue one
+ * event beyond it.</p>
+ *
+ * @author Kasun Piyumal
+ */
+abstract class Mailbox implements Runnable {
+    /** Events delivered by one drain task before it gives the executor thread to other tasks */
+    static final int DRAIN_LIMIT = 64;
+
+    /** Events a thread drains on a direct executor, in rounds of {@link #DRAIN_LIMIT}, before handing off */
+    static final int COMBINE_LIMIT = 16 * DRAIN_LIMIT;
+
+    /** Events an unbounded mailbox drained on a direct executor holds before producers wait for room */
+    static final int INLINE_CAPACITY = 1024;
+
+    /**
+     * Number of drains running on the current thread, and whether it is a dedicated thread delivering events.
+     * Either way, the thread never waits for room in a mailbox, since the thread draining that one may be waiting
+     * for it. A dedicated thread also drains to the end instead of handing off after {@link #COMBINE_LIMIT}
+     */
+    private static final ThreadLocal<int[]> DELIVERING = ThreadLocal.withInitial(() -> new int[2]);
+    private static final int DRAINS = 0;
+    private static final int DEDICATED = 1;
+
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+
+    final Subscriber subscriber;
+    private final Executor executor;
+    private final boolean inline;
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Thread running the drain task, if any. Like {@link #releasingThread}, it is only ever compared with the
+     * current thread, which always sees its own writes, so it need not be volatile
+     */
+    Thread drainingThread;
+
+    /** Thread which just went idle and is finding out whether to drain again, on a direct executor */
+    private Thread releasingThread;
+
+    /** Set by the {@link #releasingThread} when it schedules another drain, which it then runs in a loop */
+    private boolean rescheduled;
+
+    /** Queued events beyond which producers wait for room, unless they are delivering events themselves */
+    private final int roomLimit;
+
+    /** Guards waiting for room, or {@code null} if the mailbox has no {@link #roomLimit} */
+    private final ReentrantLock roomLock;
+    private final Condition hasRoom;
+
+    /** Producers waiting for room. Written under {@link #roomLock}, read by the draining thread without it */
+    private volatile int roomWaiters;
+
+    private Mailbox(Subscriber subscriber, Executor executor, int roomLimit) {
+        this.subscriber = subscriber;
+        this.executor = executor;
+        this.inline = executor == Executors.directExecutor();
+        this.roomLimit = roomLimit;
+        this.roomLock = roomLimit < Integer.MAX_VALUE ? new ReentrantLock() : null;
+        this.hasRoom = roomLock != null ? roomLock.newCondition() : null;
+    }
+
+    /**
+     * Returns a mailbox without a limit on the number of queued events. It is an intrusive multi-producer
+     * single-consumer linked queue after Dmitry Vyukov's design: offering costs one node allocation and one atomic
+     * swap, and never blocks.
+     *
+     * @param subscriber Subscriber draining the mailbox
+     * @param executor Executor running the drain tasks
+     * @return a new unbounded mailbox
+     */
+    static Mailbox unbounded(Subscriber subscriber, Executor executor) {
+        return new LinkedMailbox(subscriber, executor);
+    }
+
+    /**
+     * Returns a mailbox which holds at most {@code capacity} events and applies {@code policy} to events arriving
+     * when it is full
+     *
+     * @param subscriber Subscriber draining the mailbox
+     * @param executor Executor running the drain tasks
+     * @param capacity Maximum number of queued events
+     * @param policy What to do with events arriving when the mailbox is full
+     * @return a new bounded mailbox
+     */
+    static Mailbox bounded(Subscriber subscriber, Executor executor, int capacity, OverflowPolicy policy) {
+        return new BoundedMailbox(subscriber, executor, capacity, policy);
+    }
+
+    /**
+     * Returns a mailbox holding only the latest event of each key. An event whose key is pending replaces the
+     * pending event in its place in the queue
+     *
+     * @param subscriber Subscriber draining the mailbox
+     * @param executor Executor running the drain tasks
+     * @param key Key of the events, or {@code null} to key them by class
+     * @return a new conflating mailbox
+     */
+    static Mailbox conflating(Subscriber subscriber, Executor executor, EventKey key) {
+        return new ConflatingMailbox(subscriber, executor, key);
+    }
+
+    /**
+     * Marks the current thread as dedicated to delivering events for the rest of its life, so that it never waits
+     * for room in a mailbox and drains mailboxes to the end. Threads which others wait for, such as the consumers
+     * of a ring buffer, call this first
+     */
+    static void markDeliveringThread() {
+        DELIVERING.get()[DEDICATED] = 1;
+    }
+
+    /**
+     * Queues {@code event} for the subscriber, scheduling a drain task if the mailbox was idle
+     */
+    void offer(Object event) {
+        if (size() >= roomLimit)
+            awaitRoom();
+        if (enqueue(event) > 0)
+            schedule();
+    }
+
+    /**
+     * Waits until the draining thread takes an event out or the mailbox goes idle, so that this thread drains it.
+     * A thread delivering events queues its event beyond the limit instead, as the thread draining this mailbox
+     * may be waiting for it
+     */
+    private void awaitRoom() {
+        int[] delivering = DELIVERING.get();
+        if (delivering[DRAINS] > 0 || delivering[DEDICATED] > 0)
+            return;
+        roomLock.lock();
+        try {
+            // Counted before checking, so that the draining thread either sees this waiter or leaves room
+            roomWaiters++;
+            while (size() >= roomLimit && state.get() != IDLE)
+                hasRoom.awaitUninterruptibly();
+        } finally {
+            roomWaiters--;
+            roomLock.unlock();
+        }
+    }
+
+    /**
+     * Wakes a producer waiting for room, if any, once the draining thread took an event out of a mailbox which
+     * holds {@code remaining} events now
+     */
+    final void tookEvent(int remaining) {
+        if (roomWaiters > 0 && remaining < roomLimit)
+            signalRoom(false);
+    }
+
+    /**
+     * Marks the mailbox idle and wakes every producer waiting for room, as the first of them will drain it
+     */
+    private void goIdle() {
+        state.set(IDLE);
+        if (roomWaiters > 0)
+            signalRoom(true);
+    }
+
+    private void signalRoom(boolean all) {
+        roomLock.lock();
+        try {
+            if (all)
+                hasRoom.signalAll();
+            else
+                hasRoom.signal();
+        } finally {
+            roomLock.unlock();
+        }
+    }
+
+    /**
+     * Delivers {@code event} to the subscriber on the calling thread if the mailbox is idle and empty, or else
+     * queues it like {@link #offer(Object)}. Either way, the subscriber still sees one event at a time and in order
+     */
+    void deliverOrOffer(Object event) {
+        if (state.get() == IDLE && state.compareAndSet(IDLE, SCHEDULED)) {
+            int[] delivering = DELIVERING.get();
+            delivering[DRAINS]++;
+            drainingThread = Thread.currentThread();
+            try {
+                try {
+                    if (isEmpty()) {
+                        subscriber.invokeAndHandle(event);
+                    } else {
+                        enqueue(event);
+                        subscriber.drain(this);
+                    }
+                } finally {
+                    release();
+                }
+            } finally {
+                delivering[DRAINS]--;
+            }
+        } else {
+            offer(event);
+        }
+    }
+
+    /**
+     * Queues {@code event} without scheduling a drain task
+     *
+     * @return the number of events queued, including this one, or 0 if the event was not queued
+     */
+    abstract int enqueue(Object event);
+
+    /**
+     * @return the next queued event, or {@code null} if there is none. Only called by the draining thread
+     */
+    abstract Object poll();
+
+    abstract boolean isEmpty();
+
+    /**
+     * @return the number of queued events
+     */
+    abstract int size();
+
+    /**
+     * @return the number of events dropped because the mailbox was full
+     */
+    long droppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return whether an event offered now would be rejected, because the mailbox is full and
+     * {@link OverflowPolicy#FAIL} applies to it
+     */
+    boolean rejectsEvents() {
+        return false;
+    }
+
+    /**
+     * Counts and reports {@code event} as dropped under {@link OverflowPolicy#FAIL}, without queueing it. A
+     * dispatcher calls this for the mailboxes which {@linkplain #rejectsEvents() reject} an event it does not
+     * queue for any subscriber
+     */
+    void reject(Object event) {
+        reportDropped(event, OverflowPolicy.FAIL);
+    }
+
+    /**
+     * Counts {@code event} as dropped and reports it to the subscriber's bus
+     */
+    final void reportDropped(Object event, OverflowPolicy policy) {
+        subscriber.reportOverflow(event, policy, dropped.incrementAndGet());
+    }
+
+    /**
+     * Schedules a drain task on the executor, unless one is already scheduled or running
+     */
+    void schedule() {
+        if (state.get() == IDLE && state.compareAndSet(IDLE, SCHEDULED)) {
+            if (inline && releasingThread == Thread.currentThread())
+                rescheduled = true;
+            else
+                executor.execute(this);
+        }
+    }
+
+    /**
+     * Lets the subscriber drain queued events
+     */
+    @Override
+    public void run() {
+        int[] delivering = DELIVERING.get();
+        delivering[DRAINS]++;
+        drainingThread = Thread.currentThread();
+        try {
+            try {
+                subscriber.drain(this);
+            } finally {
+                release();
+            }
+        } finally {
+            delivering[DRAINS]--;
+        }
+    }
+
+    /**
+     * Goes idle after a drain, letting the subscriber decide what to do with events which are still queued.
+     *
+     * <p>A direct executor would run the next drain task inside this one, so a mailbox which never runs empty
+     * would grow the stack without bounds. That drain is run in a loop here instead, until about
+     * {@link #COMBINE_LIMIT} events were delivered. The next drain is then run by
+     * {@link Executors#deferredExecutor()}, so that the thread, which may be a publisher which found the mailbox
+     * idle, does not stay here for as long as other threads keep offering. Dedicated delivering threads keep
+     * draining, as that is all they are for.</p>
+     */
+    private void release() {
+        drainingThread = null;
+        goIdle();
+        if (isEmpty())
+            return;
+        if (!inline) {
+            subscriber.drainPending(this);
+            return;
+        }
+
+        Thread current = Thread.currentThread();
+        releasingThread = current;
+        try {
+            rescheduled = false;
+            subscriber.drainPending(this);
+            boolean dedicated = DELIVERING.get()[DEDICATED] > 0;
+            for (int delivered = DRAIN_LIMIT; rescheduled; delivered += DRAIN_LIMIT) {
+                rescheduled = false;
+                if (delivered >= COMBINE_LIMIT && !dedicated) {
+                    // Still scheduled, so the mailbox stays busy until the handed off drain runs
+                    Executors.deferredExecutor().execute(this);
+                    return;
+                }
+                drainingThread = current;
+                try {
+                    subscriber.drain(this);
+                } finally {
+                    drainingThread = null;
+                    goIdle();
+                }
+                if (!isEmpty())
+                    subscriber.drainPending(this);
+            }
+        } finally {
+            releasingThread = null;
+        }
+    }
+
+    private static final class LinkedMailbox extends Mailbox {
+        private final AtomicInteger size = new AtomicInteger();
+
+        /** Last node handed out, only touched by the thread draining the mailbox */
+        private Node head = new Node(null);
+
+        /** Last node offered, swapped by producers */
+        private final AtomicReference<Node> tail = new AtomicReference<>(head);
+
+        private LinkedMailbox(Subscriber subscriber, Executor executor) {
+            super(subscriber, executor,
+                    executor == Executors.directExecutor() ? INLINE_CAPACITY : Integer.MAX_VALUE);
+        }
+
+        @Override
+        int enqueue(Object event) {
+            Node node = new Node(event);
+            int pending = size.incrementAndGet();
+            tail.getAndSet(node).next = node;
+            return pending;
+        }
+
+        @Override
+        Object poll() {
+            Node next = head.next;
+            if (next == null)
+                return null;
+            Object event = next.event;
+            next.event = null;
+            head = next;
+            tookEvent(size.decrementAndGet());
+            return event;
+        }
+
+        @Override
+        boolean isEmpty() {
+            return head.next == null;
+        }
+
+        @Override
+        int size() {
+            return Math.max(0, size.get());
+        }
+
+        private static final class Node {
+            private Object event;
+
+            /** Volatile, so that a producer linking a node and a drain task going idle always see each other */
+            private volatile Node next;
+
+            private Node(Object event) {
+                this.event = event;
+            }
+        }
+    }
+
+    /**
+     * Mailbox holding at most {@code capacity} events. Dropping the oldest or coalescing events means producers
+     * take events out of the queue, so unlike {@link LinkedMailbox} this one is guarded by a lock, which is only
+     * held for the queue operation itself.
+     */
+    private static final class BoundedMailbox extends Mailbox {
+        private final int capacity;
+        private final OverflowPolicy policy;
+        private final ArrayDeque<Object> queue;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notFull = lock.newCondition();
+        private volatile int size;
+
+        private BoundedMailbox(Subscriber subscriber, Executor executor, int capacity, OverflowPolicy policy) {
+            super(subscriber, executor, Integer.MAX_VALUE);
+            if (capacity < 1)
+                throw new IllegalArgumentException("capacity must be at least 1, was " + capacity);
+            this.capacity = capacity;
+            this.policy = policy;
+            this.queue = new ArrayDeque<>(Math.min(capacity, 1024));
+        }
+
+        @Override
+        int enqueue(Object event) {
+            Object droppedEvent = null;
+            int pending;
+            lock.lock();
+            try {
+                if (queue.size() >= capacity) {
+                    switch (policy) {
+                        case BLOCK:
+                            // The draining thread posting to its own full mailbox would wait for itself forever,
+                            // so it exceeds the capacity instead
+                            if (drainingThread != Thread.currentThread()) {
+                                while (queue.size() >= capacity)
+                                    notFull.awaitUninterruptibly();
+                            }
+                            break;
+                        case DROP_OLDEST:
+                            droppedEvent = queue.poll();
+                            break;
+                        case COALESCE:
+                            droppedEvent = containsEqual(event) ? event : queue.poll();
+                            break;
+                        default:
+                            droppedEvent = event;
+                    }
+                }
+                if (droppedEvent != event)
+                    queue.offer(event);
+                pending = size = queue.size();
+            } finally {
+                lock.unlock();
+            }
+
+            if (droppedEvent == null)
+                return pending;
+
+            reportDropped(droppedEvent, policy);
+            if (policy == OverflowPolicy.FAIL)
+                throw new EventRejectedException("Mailbox of " + subscriber + " is full, rejected event: " + event);
+            return droppedEvent == event ? 0 : pending;
+        }
+
+        /**
+         * Like {@code queue.contains(event)}, but compares events posted with {@link EventBus#postAsync(Object)} by
+         * the events they carry. Guarded by the lock
+         */
+        private boolean containsEqual(Object event) {
+            Object unwrapped = TrackedEvent.unwrap(event);
+            for (Object queued : queue) {
+                if (unwrapped.equals(TrackedEvent.unwrap(queued)))
+                    return true;
+            }
+            return false;
+        }
+
+        @Override
+        Object poll() {
+            lock.lock();
+            try {
+                Object event = queue.poll();
+                if (event != null) {
+                    size = queue.size();
+                    if (policy == OverflowPolicy.BLOCK)
+                        notFull.signal();
+                }
+                return event;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        boolean rejectsEvents() {
+            return policy == OverflowPolicy.FAIL && size >= capacity;
+        }
+    }
+
+    /**
+     * Mailbox keeping the latest event of each key in a {@link LinkedHashMap}, which keeps a replaced key in its
+     * place. Like {@link BoundedMailbox}, it is guarded by a lock held only for the map operation.
+     */
+    private static final class ConflatingMailbox extends Mailbox {
+        private final EventKey key;
+        private final Map<Object, Object> pending = new LinkedHashMap<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile int size;
+
+        private ConflatingMailbox(Subscriber subscriber, Executor executor, EventKey key) {
+            super(subscriber, executor, Integer.MAX_VALUE);
+            this.key = key;
+        }
+
+        /**
+         * @return the number of pending events, or 0 if {@code event} replaced one. A drain task is on its way
+         * to the replaced key then, as it was still pending
+         */
+        @Override
+        int enqueue(Object event) {
+            Object unwrapped = TrackedEvent.unwrap(event);
+            Object eventKey = key != null ? key.extract(unwrapped) : null;
+            // Like the partitioned dispatcher, events without a key value are keyed by class, so that unrelated
+            // events with a null key do not replace each other
+            if (eventKey == null)
+                eventKey = unwrapped.getClass();
+            Object replaced;
+            int queued;
+            lock.lock();
+            try {
+                replaced = pending.put(eventKey, event);
+                queued = size = pending.size();
+            } finally {
+                lock.unlock();
+            }
+
+            if (replaced == null)
+                return queued;
+            if (replaced instanceof TrackedEvent)
+                ((TrackedEvent) replaced).delivered(null);
+            return 0;
+        }
+
+        @Override
+        Object poll() {
+            lock.lock();
+            try {
+                if (pending.isEmpty())
+                    return null;
+                Iterator<Object> iterator = pending.values().iterator();
+                Object event = iterator.next();
+                iterator.remove();
+                size = pending.size();
+                return event;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package xyz.justblink.eventbus;
+
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Queue of posted events and their subscribers which keeps the events encoded in direct memory, outside of the
+ * Java heap
+ *
+ * <p>Encoded events are appended to a chain of fixed size segments allocated with
+ * {@link ByteBuffer#allocateDirect(int)}. The only thing kept on the heap for each queued event is a reference to
+ * the {@code Subscriber[]} snapshot it was posted to, in a ring of references which is shared by all events. As
+ * snapshots are shared with the registry, queueing an encoded event allocates nothing on the heap, and a deep
+ * queue costs the garbage collector one array instead of millions of objects.</p>
+ *
+ * <p>Events without a codec in the queue's {@link EventCodecs}, and events too large for a segment, are kept on the
+ * heap in a wrapper, in the same order as the rest.</p>
+ *
+ * <p>Any number of threads may {@link #offer(Object, Subscriber[])} events; appending is guarded by a lock which is
+ * held while the event is encoded. Only one thread at a time may {@link #drain(int)} the queue. A few drained
+ * segments are kept for reuse, the others are left to the garbage collector, which frees their memory.</p>
+ *
+ * @author Kasun Piyumal
+ */
+final class OffHeapQueue {
+    private static final Logger logger = Logger.getLogger(OffHeapQueue.class.getName());
+
+    /** Default size of a segment, 1 MiB */
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+
+    /** Length and type id */
+    private static final int HEADER_SIZE = 8;
+
+    private static final int MAX_POOLED_SEGMENTS = 4;
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+    private final EventCodecs codecs;
+    private final int segmentSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Segment> pool = new ArrayDeque<>(MAX_POOLED_SEGMENTS);
+
+    /** Segment being drained. Guarded by the lock, like everything below */
+    private Segment head;
+
+    /** Segment being appended to */
+    private Segment tail;
+
+    /** Index of the next record in {@link #head}, only moved by the draining thread */
+    private int readIndex;
+
+    /**
+     * For each queued event, its {@code Subscriber[]} if it is encoded, or else its {@link OnHeapEvent}. Grows
+     * with the queue and keeps its size afterwards, so that bursts do not allocate it again
+     */
+    private Object[] index = new Object[INITIAL_INDEX_CAPACITY];
+    private int indexHead;
+    private volatile int size;
+
+    /**
+     * @param codecs Codecs encoding the events
+     * @param segmentSize Size in bytes of each direct memory segment
+     */
+    OffHeapQueue(EventCodecs codecs, int segmentSize) {
+        if (segmentSize <= HEADER_SIZE)
+            throw new IllegalArgumentException("segmentSize must be more than " + HEADER_SIZE + ", was "
+                    + segmentSize);
+        this.codecs = Conditions.checkNonNull(codecs);
+        this.segmentSize = segmentSize;
+        this.head = this.tail = new Segment(segmentSize);
+    }
+
+    /**
+     * Queues {@code event} for delivery to {@code subscribers}
+     */
+    void offer(Object event, Subscriber[] subscribers) {
+        EventCodecs.Registration<?> registration = codecs.forType(event.getClass());
+        lock.lock();
+        try {
+            if (registration != null && append(registration, event))
+                addToIndex(subscribers);
+            else
+                addToIndex(new OnHeapEvent(event, subscribers));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Encodes {@code event} at the end of the tail segment, moving to a new segment if it does not fit
+     *
+     * @return {@code false} if the event does not even fit in an empty segment
+     */
+    private boolean append(EventCodecs.Registration<?> registration, Object event) {
+        while (true) {
+            ByteBuffer buffer = tail.buffer;
+            int start = buffer.position();
+            if (buffer.remaining() > HEADER_SIZE) {
+                ((Buffer) buffer).position(start + HEADER_SIZE);
+                try {
+                    registration.encode(event, buffer);
+                    buffer.putInt(start, buffer.position() - start - HEADER_SIZE);
+                    buffer.putInt(start + 4, registration.typeId);
+                    return true;
+                } catch (BufferOverflowException e) {
+                    ((Buffer) buffer).position(start);
+                } catch (RuntimeException e) {
+                    ((Buffer) buffer).position(start);
+                    throw e;
+                }
+            }
+            if (start == 0)
+                return false;
+            tail = tail.next = newSegment();
+        }
+    }
+
+    private void addToIndex(Object entry) {
+        int size = this.size;
+        if (size == index.length)
+            index = copyIndex(index.length * 2);
+        index[(indexHead + size) & (index.length - 1)] = entry;
+        this.size = size + 1;
+    }
+
+    /**
+     * @return the queued index entries from the first one on, in an array of {@code capacity}
+     */
+    private Object[] copyIndex(int capacity) {
+        Object[] copy = new Object[capacity];
+        int firstPart = Math.min(size, index.length - indexHead);
+        System.arraycopy(index, indexHead, copy, 0, firstPart);
+        System.arraycopy(index, 0, copy, firstPart, size - firstPart);
+        indexHead = 0;
+        return copy;
+    }
+
+    /**
+     * Delivers up to {@code limit} queued events to their subscribers on the calling thread. The lock is only held
+     * to take each event out of the queue; events are decoded and delivered without it
+     *
+     * @return the number of events delivered
+     */
+    int drain(int limit) {
+        int delivered = 0;
+        while (delivered < limit) {
+            Object entry;
+            Segment segment = null;
+            int start = 0;
+            int length = 0;
+            int typeId = 0;
+            lock.lock();
+            try {
+                int size = this.size;
+                if (size == 0)
+                    break;
+                entry = index[indexHead];
+                index[indexHead] = null;
+                indexHead = (indexHead + 1) & (index.length - 1);
+                this.size = --size;
+                if (!(entry instanceof OnHeapEvent)) {
+                    if (readIndex == head.buffer.position())
+                        nextSegment();
+                    segment = head;
+                    length = segment.buffer.getInt(readIndex);
+                    typeId = segment.buffer.getInt(readIndex + 4);
+                    start = readIndex + HEADER_SIZE;
+                    readIndex = start + length;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            delivered++;
+            if (segment == null) {
+                OnHeapEvent onHeap = (OnHeapEvent) entry;
+                deliver(onHeap.event, onHeap.subscribers);
+            } else {
+                Object event = decode(segment.reader, start, length, typeId);
+                if (event != null)
+                    deliver(event, (Subscriber[]) entry);
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Moves the draining thread to the segment after {@link #head}, keeping the drained one for reuse
+     */
+    private void nextSegment() {
+        Segment drained = head;
+        head = drained.next;
+        readIndex = 0;
+        drained.next = null;
+        if (pool.size() < MAX_POOLED_SEGMENTS) {
+            ((Buffer) drained.buffer).clear();
+            pool.push(drained);
+        }
+    }
+
+    private Segment newSegment() {
+        Segment pooled = pool.poll();
+        return pooled != null ? pooled : new Segment(segmentSize);
+    }
+
+    private Object decode(ByteBuffer reader, int start, int length, int typeId) {
+        EventCodecs.Registration<?> registration = codecs.forId(typeId);
+        try {
+            ((Buffer) reader).limit(start + length);
+            ((Buffer) reader).position(start);
+            return registration.codec.decode(reader);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Could not decode queued event of type " + registration.type.getName()
+                    + ", dropping it", e);
+            return null;
+        }
+    }
+
+    private static void deliver(Object event, Subscriber[] subscribers) {
+        for (int i = 0; i < subscribers.length; i++)
+            subscribers[i].deliver(event);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of queued events
+     */
+    int size() {
+        return size;
+    }
+
+    private static final class Segment {
+        /** Appended to by producers, holding the lock */
+        private final ByteBuffer buffer;
+
+        /** View of {@link #buffer} with a position and limit of its own, used by the draining thread */
+        private final ByteBuffer reader;
+
+        private Segment next;
+
+        private Segment(int size) {
+            this.buffer = ByteBuffer.allocateDirect(size);
+            this.reader = buffer.duplicate();
+        }
+    }
+
+    private static final class OnHeapEvent {
+        private final Object event;
+        private final Subscriber[] subscribers;
+
+        private OnHeapEvent(Object event, Subscriber[] subscribers) {
+            this.event = event;
+            this.subscribers = subscribers;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package xyz.justblink.eventbus;
+
+/**
+ * This event is posted when an event could not be queued for a subscriber of a bounded {@link AsyncEventBus},
+ * because the subscriber's queue was full
+ *
+ * <p>Like {@link DeadEvent}, it is only posted when something subscribes to it. Overflowing
+ * {@code OverflowEvent}s are counted but not reported again.</p>
+ *
+ * @author Kasun Piyumal
+ */
+public class OverflowEvent {
+    private final Object source;
+    private final Object event;
+    private final Object subscriber;
+    private final OverflowPolicy policy;
+    private final long droppedCount;
+
+    /**
+     * @param source The bus which dropped the event
+     * @param event The event which was dropped
+     * @param subscriber The object whose subscriber method did not receive the event
+     * @param policy The policy applied when the queue was full
+     * @param droppedCount Number of events dropped for this subscriber so far, including this one
+     */
+    OverflowEvent(Object source, Object event, Object subscriber, OverflowPolicy policy, long droppedCount) {
+        this.source = source;
+        this.event = event;
+        this.subscriber = subscriber;
+        this.policy = policy;
+        this.droppedCount = droppedCount;
+    }
+
+    /**
+     * @return the bus which dropped the event
+     */
+    public Object getSource() {
+        return source;
+    }
+
+    /**
+     * @return the event which was not delivered to the subscriber
+     */
+    public Object getEvent() {
+        return event;
+    }
+
+    /**
+     * @return the object whose subscriber method did not receive the event
+     */
+    public Object getSubscriber() {
+        return subscriber;
+    }
+
+    /**
+     * @return the policy applied when the queue was full
+     */
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return the number of events dropped for this subscriber so far, including this one
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+}
@@ -0,0 +1,41 @@
+package xyz.justblink.eventbus;
+
+/**
+ * What a bounded {@link AsyncEventBus} does with an event for a subscriber whose queue is already full
+ *
+ * <p>Except for {@link #BLOCK}, every event which is not queued is counted and, if anything subscribes to it,
+ * reported to the bus as an {@link OverflowEvent}.</p>
+ *
+ * @author Kasun Piyumal
+ */
+public enum OverflowPolicy {
+    /**
+     * The publisher waits until the subscriber takes an event from its queue. Keeps every event, but a slow
+     * subscriber slows publishers down. A subscriber posting to its own full queue does not wait, as nobody else
+     * would drain it
+     */
+    BLOCK,
+
+    /**
+     * The new event is dropped for this subscriber
+     */
+    DROP_NEWEST,
+
+    /**
+     * The oldest queued event is dropped to make room for the new one
+     */
+    DROP_OLDEST,
+
+    /**
+     * The new event is dropped if an {@linkplain Object#equals(Object) equal} event is already queued. Otherwise
+     * the oldest queued event is dropped to make room for it
+     */
+    COALESCE,
+
+    /**
+     * {@link EventBus#post(Object)} throws {@link EventRejectedException}. The event is queued for none of its
+     * subscribers, so that it can be posted again, unless another publisher fills a queue at the same moment; the
+     * exception then names the subscribers which did not get it
+     */
+    FAIL
+}
@@ -0,0 +1,354 @@
+package xyz.justblink.eventbus;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link EventCodec} for flat events whose fields are all primitives, such as
+ *
+ * <pre>
+ * public class Trade {
+ *     private long id;
+ *     private double price;
+ *     private int quantity;
+ * }
+ * </pre>
+ *
+ * <p>Every event takes the same number of bytes, {@link #size()}. Fields are laid out by size, largest first and
+ * then by name, so the layout only changes when fields are added, removed or renamed. Fields are read and written
+ * directly from and to the buffer by a single {@link MethodHandle} per direction, composed once from the field
+ * accessors, without reflection or intermediate arrays. Static and transient fields are left out. Decoding needs
+ * a constructor without parameters, which may be private.</p>
+ *
+ * <p>A {@link Flyweight} reads single fields of an encoded event right from the buffer, without decoding the rest
+ * of it:</p>
+ *
+ * <pre>
+ * PojoCodec&lt;Trade&gt; codec = PojoCodec.of(Trade.class);
+ * int price = codec.offsetOf("price");
+ * PojoCodec.Flyweight&lt;Trade&gt; trade = codec.flyweight();
+ * double total = trade.wrap(buffer, position).getDouble(price) * ...;
+ * </pre>
+ *
+ * @param <T> Type of the events
+ * @author Kasun Piyumal
+ */
+public final class PojoCodec<T> implements EventCodec<T> {
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    private final MethodHandle writer;
+    private final MethodHandle reader;
+    private final Map<String, Integer> offsets;
+    private final int size;
+
+    private PojoCodec(Class<T> type, MethodHandle constructor, MethodHandle writer, MethodHandle reader,
+                      Map<String, Integer> offsets, int size) {
+        this.type = type;
+        this.constructor = constructor;
+        this.writer = writer;
+        this.reader = reader;
+        this.offsets = offsets;
+        this.size = size;
+    }
+
+    /**
+     * @param type Class of the events, including fields of its superclasses
+     * @param <T> Type of the events
+     * @return a codec for events of {@code type}
+     * @throws IllegalArgumentException if {@code type} has a field which is not a primitive, or has no
+     * constructor without parameters
+     */
+    public static <T> PojoCodec<T> of(Class<T> type) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic())
+                    continue;
+                if (!field.getType().isPrimitive())
+                    throw new IllegalArgumentException(MessageFormat.format("Field {0} of {1} is not a primitive. "
+                            + "PojoCodec only encodes flat events with primitive fields", field.getName(),
+                            type.getName()));
+                fields.add(field);
+            }
+        }
+        fields.sort(Comparator.comparingInt((Field field) -> -sizeOf(field.getType())).thenComparing(Field::getName));
+
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            MethodHandle newInstance = lookup.unreflectConstructor(constructor)
+                    .asType(MethodType.methodType(Object.class));
+
+            List<MethodHandle> writers = new ArrayList<>(fields.size());
+            List<MethodHandle> readers = new ArrayList<>(fields.size());
+            Map<String, Integer> offsets = new HashMap<>(fields.size() * 2);
+            int offset = 0;
+            for (Field field : fields) {
+                field.setAccessible(true);
+                writers.add(Accessors.writer(field.getType(), offset, lookup.unreflectGetter(field)));
+                readers.add(Accessors.reader(field.getType(), offset, lookup.unreflectSetter(field)));
+                offsets.put(field.getName(), offset);
+                offset += sizeOf(field.getType());
+            }
+            return new PojoCodec<>(type, newInstance, Accessors.chain(writers), Accessors.chain(readers), offsets,
+                    offset);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(type.getName() + " has no constructor without parameters", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Could not access fields of " + type.getName(), e);
+        }
+    }
+
+    private static int sizeOf(Class<?> primitive) {
+        if (primitive == long.class || primitive == double.class)
+            return 8;
+        if (primitive == int.class || primitive == float.class)
+            return 4;
+        if (primitive == short.class || primitive == char.class)
+            return 2;
+        return 1;
+    }
+
+    /**
+     * @return the number of bytes of every encoded event
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param field Name of a field
+     * @return the offset of {@code field} from the start of an encoded event, to read it with a {@link Flyweight}
+     * @throws IllegalArgumentException if there is no such field
+     */
+    public int offsetOf(String field) {
+        Integer offset = offsets.get(field);
+        if (offset == null)
+            throw new IllegalArgumentException(type.getName() + " has no encoded field " + field);
+        return offset;
+    }
+
+    /**
+     * @return a new flyweight, to be reused for reading any number of encoded events
+     */
+    public Flyweight<T> flyweight() {
+        return new Flyweight<>(this);
+    }
+
+    @Override
+    public void encode(T event, ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.limit() - start < size)
+            throw new BufferOverflowException();
+        try {
+            writer.invokeExact((Object) event, buffer, start);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not encode " + event, e);
+        }
+        ((Buffer) buffer).position(start + size);
+    }
+
+    @Override
+    public T decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        T event = decode(buffer, start);
+        ((Buffer) buffer).position(start + size);
+        return event;
+    }
+
+    private T decode(ByteBuffer buffer, int start) {
+        if (buffer.limit() - start < size)
+            throw new BufferUnderflowException();
+        try {
+            Object event = constructor.invokeExact();
+            reader.invokeExact(event, buffer, start);
+            return type.cast(event);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not decode " + type.getName(), e);
+        }
+    }
+
+    /**
+     * View of an event encoded by a {@link PojoCodec}, reading fields from the buffer as they are asked for.
+     * {@link #wrap(ByteBuffer, int)} points it at another event without allocating, so a single flyweight can read
+     * a whole stream of events. Fields are addressed by their {@linkplain PojoCodec#offsetOf(String) offset}.
+     *
+     * <p>A flyweight is not thread safe</p>
+     *
+     * @param <T> Type of the events
+     */
+    public static final class Flyweight<T> {
+        private final PojoCodec<T> codec;
+        private ByteBuffer buffer;
+        private int start;
+
+        private Flyweight(PojoCodec<T> codec) {
+            this.codec = codec;
+        }
+
+        /**
+         * @param buffer Buffer holding the encoded event
+         * @param start Index of the first byte of the event in {@code buffer}
+         * @return this flyweight
+         */
+        public Flyweight<T> wrap(ByteBuffer buffer, int start) {
+            this.buffer = buffer;
+            this.start = start;
+            return this;
+        }
+
+        public boolean getBoolean(int offset) {
+            return buffer.get(start + offset) != 0;
+        }
+
+        public byte getByte(int offset) {
+            return buffer.get(start + offset);
+        }
+
+        public char getChar(int offset) {
+            return buffer.getChar(start + offset);
+        }
+
+        public short getShort(int offset) {
+            return buffer.getShort(start + offset);
+        }
+
+        public int getInt(int offset) {
+            return buffer.getInt(start + offset);
+        }
+
+        public float getFloat(int offset) {
+            return buffer.getFloat(start + offset);
+        }
+
+        public long getLong(int offset) {
+            return buffer.getLong(start + offset);
+        }
+
+        public double getDouble(int offset) {
+            return buffer.getDouble(start + offset);
+        }
+
+        /**
+         * @return a new event decoded from the wrapped bytes
+         */
+        public T get() {
+            return codec.decode(buffer, start);
+        }
+    }
+
+    /**
+     * Builds a handle of type {@code (Object event, ByteBuffer buffer, int start)void} for every field and chains
+     * them into one, so that encoding or decoding an event is a single handle invocation which the JIT can inline
+     * through, instead of a virtual call per field
+     */
+    private static final class Accessors {
+        private static final MethodType ACCESSOR = MethodType.methodType(void.class, Object.class, ByteBuffer.class,
+                int.class);
+        private static final MethodHandle ADD;
+        private static final MethodHandle TO_BYTE;
+        private static final MethodHandle TO_BOOLEAN;
+        private static final MethodHandle NOTHING;
+
+        static {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                ADD = lookup.findStatic(Accessors.class, "add", MethodType.methodType(int.class, int.class, int.class));
+                TO_BYTE = lookup.findStatic(Accessors.class, "toByte",
+                        MethodType.methodType(byte.class, boolean.class));
+                TO_BOOLEAN = lookup.findStatic(Accessors.class, "toBoolean",
+                        MethodType.methodType(boolean.class, byte.class));
+                NOTHING = lookup.findStatic(Accessors.class, "nothing", ACCESSOR);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private static int add(int start, int offset) {
+            return start + offset;
+        }
+
+        private static byte toByte(boolean value) {
+            return value ? (byte) 1 : (byte) 0;
+        }
+
+        private static boolean toBoolean(byte value) {
+            return value != 0;
+        }
+
+        @SuppressWarnings("unused")
+        private static void nothing(Object event, ByteBuffer buffer, int start) {
+        }
+
+        /**
+         * @return {@code buffer.putX(start + offset, getter(event))}
+         */
+        static MethodHandle writer(Class<?> fieldType, int offset, MethodHandle getter)
+                throws ReflectiveOperationException {
+            Class<?> bufferType = fieldType == boolean.class ? byte.class : fieldType;
+            MethodHandle put = MethodHandles.lookup().findVirtual(ByteBuffer.class, putterName(bufferType),
+                    MethodType.methodType(ByteBuffer.class, int.class, bufferType));
+            put = put.asType(MethodType.methodType(void.class, ByteBuffer.class, int.class, bufferType));
+            if (fieldType == boolean.class)
+                put = MethodHandles.filterArguments(put, 2, TO_BYTE);
+            put = MethodHandles.filterArguments(put, 1, MethodHandles.insertArguments(ADD, 1, offset));
+            put = MethodHandles.filterArguments(put, 2,
+                    getter.asType(MethodType.methodType(fieldType, Object.class)));
+            return MethodHandles.permuteArguments(put, ACCESSOR, 1, 2, 0);
+        }
+
+        /**
+         * @return {@code setter(event, buffer.getX(start + offset))}
+         */
+        static MethodHandle reader(Class<?> fieldType, int offset, MethodHandle setter)
+                throws ReflectiveOperationException {
+            Class<?> bufferType = fieldType == boolean.class ? byte.class : fieldType;
+            MethodHandle get = MethodHandles.lookup().findVirtual(ByteBuffer.class, getterName(bufferType),
+                    MethodType.methodType(bufferType, int.class));
+            if (fieldType == boolean.class)
+                get = MethodHandles.filterReturnValue(get, TO_BOOLEAN);
+            get = MethodHandles.filterArguments(get, 1, MethodHandles.insertArguments(ADD, 1, offset));
+            MethodHandle set = setter.asType(MethodType.methodType(void.class, Object.class, fieldType));
+            return MethodHandles.collectArguments(set, 1, get);
+        }
+
+        /**
+         * @return a handle running all {@code accessors} in order
+         */
+        static MethodHandle chain(List<MethodHandle> accessors) {
+            MethodHandle chain = NOTHING;
+            for (int i = accessors.size() - 1; i >= 0; i--)
+                chain = MethodHandles.foldArguments(chain, accessors.get(i));
+            return chain;
+        }
+
+        private static String putterName(Class<?> type) {
+            return type == byte.class ? "put" : "put" + capitalize(type);
+        }
+
+        private static String getterName(Class<?> type) {
+            return type == byte.class ? "get" : "get" + capitalize(type);
+        }
+
+        private static String capitalize(Class<?> type) {
+            String name = type.getName();
+            return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package xyz.justblink.eventbus;
+
+/**
+ * Urgency of an event type, set with {@link EventPriority}. A {@link Dispatcher#priorityDispatcher(int)} keeps a
+ * queue for each priority and delivers waiting events of a higher priority first
+ *
+ * @author Kasun Piyumal
+ */
+public enum Priority {
+    /**
+     * Events which must get through even when the bus is saturated, such as risk limits and kill switches
+     */
+    CRITICAL,
+
+    /**
+     * Events which should skip ahead of ordinary traffic
+     */
+    HIGH,
+
+    /**
+     * Events without an {@link EventPriority}
+     */
+    NORMAL,
+
+    /**
+     * Bulk traffic, such as telemetry, which may wait while anything else is queued
+     */
+    LOW;
+
+    /**
+     * @return the priority given to {@code eventType} or its closest superclass with {@link EventPriority}, or
+     * {@link #NORMAL} if there is none
+     */
+    static Priority of(Class<?> eventType) {
+        EventPriority annotation = eventType.getAnnotation(EventPriority.class);
+        return annotation == null ? NORMAL : annotation.value();
+    }
+}
@@ -0,0 +1,71 @@
+package xyz.justblink.eventbus;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Events received from other processes by a {@link SharedMemoryBridge} or a {@link SocketBridge}, while they are
+ * being delivered on the bus. Bridges of this process do not forward them, so that they are not sent back where
+ * they came from
+ *
+ * @author Kasun Piyumal
+ */
+final class ReceivedEvents {
+    private static final Logger logger = Logger.getLogger(ReceivedEvents.class.getName());
+
+    /** Events being delivered, by identity. Guarded by itself */
+    private static final Map<Object, Object> received = new IdentityHashMap<>();
+
+    /** Size of {@link #received}, read by bridges without taking the lock while this process receives nothing */
+    private static volatile int receivedCount;
+
+    private ReceivedEvents() {
+    }
+
+    /**
+     * Posts {@code event} on {@code bus}, remembering it until all subscribers have handled it
+     *
+     * @param source Where the event came from, for logging
+     */
+    static void post(EventBus bus, Object event, Object source) {
+        mark(event);
+        try {
+            CompletableFuture<Void> delivered = bus.postAsync(event);
+            if (delivered.isDone())
+                unmark(event);
+            else
+                delivered.whenComplete((ignored, e) -> unmark(event));
+        } catch (RuntimeException e) {
+            unmark(event);
+            logger.log(Level.WARNING, "Could not post event received from " + source + ": " + event, e);
+        }
+    }
+
+    /**
+     * @return whether {@code event} was received from another process and is still being delivered
+     */
+    static boolean contains(Object event) {
+        if (receivedCount == 0)
+            return false;
+        synchronized (received) {
+            return received.containsKey(event);
+        }
+    }
+
+    private static void mark(Object event) {
+        synchronized (received) {
+            received.put(event, event);
+            receivedCount = received.size();
+        }
+    }
+
+    private static void unmark(Object event) {
+        synchronized (received) {
+            received.remove(event);
+            receivedCount = received.size();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package xyz.justblink.eventbus;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static xyz.justblink.eventbus.Conditions.checkNonNull;
+
+/**
+ * Dispatcher backed by a preallocated ring of slots, in the style of the
+ * <a href="https://lmax-exchange.github.io/disruptor/">LMAX Disruptor</a>
+ *
+ * <p>Producers claim a slot by incrementing a shared sequence, store the event and its subscribers in the slot
+ * and publish it by writing the slot's round number to an availability array. Publishing never allocates and
+ * never takes a lock. When the ring is full, producers wait until the slowest consumer has moved on.</p>
+ *
+ * <p>Each consumer thread claims the next sequence from a shared work sequence and delivers that event to all of
+ * its subscribers. The sequence each consumer has finished gates the producers, so a slot is never overwritten
+ * before it is processed.</p>
+ *
+ * <p>A claimed slot must always be published, or consumers would wait for it forever. A producer which finds the
+ * ring halted after claiming publishes its slots empty, which consumers skip, and consumers only exit once every
+ * claimed slot has been published.</p>
+ *
+ * @author Kasun Piyumal
+ */
+final class RingBuffer extends Dispatcher {
+    private static final Logger logger = Logger.getLogger(RingBuffer.class.getName());
+
+    private final int bufferSize;
+    private final int mask;
+    private final int indexShift;
+    private final Object[] events;
+    private final Subscriber[][] subscribers;
+
+    /** Round number of the event published in each slot, -1 while nothing is published there */
+    private final AtomicIntegerArray published;
+
+    /** Next sequence to be claimed by a producer */
+    private final Sequence claimSequence = new Sequence(0);
+
+    /** Last sequence claimed by a consumer */
+    private final Sequence workSequence = new Sequence(-1);
+
+    /** Lowest consumer sequence seen by producers, so they rarely have to scan all consumers */
+    private final Sequence gatingCache = new Sequence(-1);
+
+    private final Sequence[] consumerSequences;
+    private final Thread[] consumers;
+    private final WaitStrategy waitStrategy;
+    private final boolean signalling;
+
+    private volatile boolean halted;
+
+    /**
+     * @param bufferSize Number of slots, must be a power of two
+     * @param consumerCount Number of consumer threads
+     * @param waitStrategy What the consumers do while waiting for events
+     * @param threadFactory Creates the consumer threads
+     */
+    RingBuffer(int bufferSize, int consumerCount, WaitStrategy waitStrategy, ThreadFactory threadFactory) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1)
+            throw new IllegalArgumentException("bufferSize must be a power of 2, was " + bufferSize);
+        if (consumerCount < 1)
+            throw new IllegalArgumentException("consumerCount must be at least 1, was " + consumerCount);
+
+        this.bufferSize = bufferSize;
+        this.mask = bufferSize - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+        this.events = new Object[bufferSize];
+        this.subscribers = new Subscriber[bufferSize][];
+        this.published = new AtomicIntegerArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++)
+            published.lazySet(i, -1);
+
+        this.waitStrategy = checkNonNull(waitStrategy);
+        this.signalling = waitStrategy.isSignalling();
+        this.consumerSequences = new Sequence[consumerCount];
+        this.consumers = new Thread[consumerCount];
+        for (int i = 0; i < consumerCount; i++) {
+            Sequence sequence = new Sequence(-1);
+            consumerSequences[i] = sequence;
+            consumers[i] = threadFactory.newThread(new Consumer(sequence));
+        }
+    }
+
+    void start() {
+        for (Thread consumer : consumers)
+            consumer.start();
+    }
+
+    @Override
+    void dispatch(Object event, Subscriber[] subscribers) {
+        checkNonNull(event);
+        if (halted)
+            throw new IllegalStateException("Ring buffer has been shut down, event rejected: " + event);
+
+        long sequence = claim(1, event);
+        if (halted) {
+            publishEmpty(sequence, 1);
+            throw new IllegalStateException("Ring buffer has been shut down, event rejected: " + event);
+        }
+
+        int index = (int) sequence & mask;
+        this.events[index] = event;
+        this.subscribers[index] = subscribers;
+        int round = (int) (sequence >>> indexShift);
+        if (signalling) {
+            published.set(index, round);
+            waitStrategy.signalAll();
+        } else {
+            published.lazySet(index, round);
+        }
+    }
+
+    /**
+     * Claims slots for the whole batch at once, up to the size of the ring at a time, and wakes consumers once
+     * per claim instead of once per event. The events were checked for {@code null} by the bus, as a claimed slot
+     * must be published
+     */
+    @Override
+    void dispatchAll(Object[] events, Subscriber[][] subscribers, int count) {
+        for (int start = 0; start < count; start += bufferSize) {
+            if (halted)
+                throw new IllegalStateException("Ring buffer has been shut down, event rejected: " + events[start]);
+
+            int claimed = Math.min(bufferSize, count - start);
+            long first = claim(claimed, events[start]);
+            if (halted) {
+                publishEmpty(first, claimed);
+                throw new IllegalStateException("Ring buffer has been shut down, event rejected: " + events[start]);
+            }
+
+            for (int i = 0; i < claimed; i++) {
+                long sequence = first + i;
+                int index = (int) sequence & mask;
+                this.events[index] = events[start + i];
+                this.subscribers[index] = subscribers[start + i];
+                if (signalling && i == claimed - 1)
+                    published.set(index, (int) (sequence >>> indexShift));
+                else
+                    published.lazySet(index, (int) (sequence >>> indexShift));
+            }
+            if (signalling)
+                waitStrategy.signalAll();
+        }
+    }
+
+    /**
+     * Claims {@code count} slots and waits until they have been processed in the previous round.
+     *
+     * <p>A consumer thread posting to the ring, from a subscriber, can not wait for a slot which it has yet to
+     * process itself, as nobody else would. It only claims slots it could get without that, and otherwise fails
+     * before claiming anything.</p>
+     *
+     * @return the first claimed sequence
+     */
+    private long claim(int count, Object event) {
+        Sequence consumerSequence = consumerSequence(Thread.currentThread());
+        long first;
+        if (consumerSequence == null) {
+            first = claimSequence.getAndAdd(count);
+        } else {
+            do {
+                first = claimSequence.get();
+                if (first + count - 1 - bufferSize > consumerSequence.get()) {
+                    throw new IllegalStateException("Ring buffer is full and a consumer thread can not wait for "
+                            + "itself to free a slot, event rejected: " + event);
+                }
+            } while (!claimSequence.compareAndSet(first, first + count));
+        }
+        awaitCapacity(first + count - 1);
+        return first;
+    }
+
+    /**
+     * @return the sequence of the consumer running on {@code thread}, or {@code null} if it is not a consumer
+     */
+    private Sequence consumerSequence(Thread thread) {
+        for (int i = 0; i < consumers.length; i++) {
+            if (consumers[i] == thread)
+                return consumerSequences[i];
+        }
+        return null;
+    }
+
+    /**
+     * Waits until the slot for {@code sequence} has been processed in the previous round. Consumers keep running
+     * until every claimed slot is published, and a consumer which exited no longer gates producers, so this
+     * never waits forever after a halt
+     */
+    private void awaitCapacity(long sequence) {
+        long wrapPoint = sequence - bufferSize;
+        if (wrapPoint <= gatingCache.get())
+            return;
+
+        long minimum;
+        while (wrapPoint > (minimum = minimumConsumerSequence()))
+            LockSupport.parkNanos(1);
+        gatingCache.setOrdered(minimum);
+    }
+
+    /**
+     * Publishes {@code count} slots claimed from {@code first} without an event, for consumers to skip
+     */
+    private void publishEmpty(long first, int count) {
+        for (int i = 0; i < count; i++) {
+            long sequence = first + i;
+            published.set((int) sequence & mask, (int) (sequence >>> indexShift));
+        }
+        if (signalling)
+            waitStrategy.signalAll();
+    }
+
+    private long minimumConsumerSequence() {
+        long minimum = Long.MAX_VALUE;
+        for (Sequence sequence : consumerSequences)
+            minimum = Math.min(minimum, sequence.get());
+        return minimum;
+    }
+
+    boolean isPublished(long sequence) {
+        return published.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+
+    boolean isHalted() {
+        return halted;
+    }
+
+    /**
+     * @return number of events published but not yet taken by a consumer
+     */
+    @Override
+    int queuedEvents() {
+        return size();
+    }
+
+    int size() {
+        return (int) Math.max(0, claimSequence.get() - 1 - workSequence.get());
+    }
+
+    /**
+     * Stops accepting events. Consumers deliver every event already published and then exit. An event posted at
+     * the same time is either delivered or rejected by its producer, never dropped silently
+     */
+    void halt() {
+        halted = true;
+        if (signalling)
+            waitStrategy.signalAll();
+    }
+
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread consumer : consumers) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                return false;
+            TimeUnit.NANOSECONDS.timedJoin(consumer, remaining);
+            if (consumer.isAlive())
+                return false;
+        }
+        return true;
+    }
+
+    private final class Consumer implements Runnable {
+        private final Sequence sequence;
+
+        private Consumer(Sequence sequence) {
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            Mailbox.markDeliveringThread();
+            boolean processed = true;
+            long nextSequence = sequence.get();
+            while (true) {
+                if (processed) {
+                    processed = false;
+                    do {
+                        nextSequence = workSequence.get() + 1;
+                        sequence.set(nextSequence - 1);
+                    } while (!workSequence.compareAndSet(nextSequence - 1, nextSequence));
+                }
+
+                if (isPublished(nextSequence)) {
+                    process(nextSequence);
+                    processed = true;
+                    continue;
+                }
+
+                if (halted) {
+                    // A producer which claimed the slot before seeing the halt is about to publish it
+                    if (nextSequence >= claimSequence.get())
+                        break;
+                    Thread.yield();
+                    continue;
+                }
+
+                try {
+                    waitStrategy.waitFor(RingBuffer.this, nextSequence);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            sequence.set(Long.MAX_VALUE);
+        }
+
+        private void process(long nextSequence) {
+            int index = (int) nextSequence & mask;
+            Object event = events[index];
+            Subscriber[] eventSubscribers = subscribers[index];
+            events[index] = null;
+            subscribers[index] = null;
+            if (event == null)
+                return;
+
+            for (Subscriber subscriber : eventSubscribers) {
+                try {
+                    subscriber.deliver(event);
+                } catch (Throwable e) {
+                    logger.log(Level.SEVERE, "Error thrown while delivering event: " + event, e);
+                }
+            }
+        }
+    }
+}
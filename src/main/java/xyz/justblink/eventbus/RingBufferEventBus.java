@@ -0,0 +1,99 @@
+package xyz.justblink.eventbus;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link EventBus} which hands posted events to dedicated consumer threads through a preallocated ring buffer
+ *
+ * <p>Compared to {@link AsyncEventBus}, posting does not allocate a queue node or a task per delivery and does not
+ * contend on an executor queue. Each event takes one slot of the ring, and a consumer thread delivers it to all
+ * of its subscribers. This sustains millions of events per second per producer with predictable latency, which is
+ * tuned by picking a {@link WaitStrategy}.</p>
+ *
+ * <p>When the ring is full, {@link #post(Object)} waits until consumers free a slot, so a slow subscriber slows
+ * producers down instead of growing a queue without bounds. A subscriber posting to this bus runs on a consumer
+ * thread, which may be the one that has to free the slot, so such a post throws {@link IllegalStateException}
+ * when the ring is full instead of waiting for itself forever.</p>
+ *
+ * <p>With a single consumer thread, events are delivered in the order they were posted. With more consumer
+ * threads, subscriber methods may be called from several threads at the same time, as with an
+ * {@link AsyncEventBus} on a thread pool.</p>
+ *
+ * <p>The consumer threads run until {@link #shutdown()} is called.</p>
+ *
+ * @author Kasun Piyumal
+ */
+public class RingBufferEventBus extends EventBus {
+    private final RingBuffer ringBuffer;
+
+    /**
+     * Creates a bus with a single consumer thread which blocks while idle
+     *
+     * @param identifier Name for bus, useful in logging if there are multiple buses
+     * @param bufferSize Number of events the ring can hold, must be a power of two
+     */
+    public RingBufferEventBus(String identifier, int bufferSize) {
+        this(identifier, bufferSize, 1, WaitStrategy.blocking());
+    }
+
+    /**
+     * @param identifier Name for bus, useful in logging if there are multiple buses
+     * @param bufferSize Number of events the ring can hold, must be a power of two
+     * @param consumerThreads Number of threads delivering events to subscribers
+     * @param waitStrategy What consumer threads do while there are no events. Use a new instance for every bus
+     */
+    public RingBufferEventBus(String identifier, int bufferSize, int consumerThreads, WaitStrategy waitStrategy) {
+        this(identifier, bufferSize, consumerThreads, waitStrategy, ExceptionLogger.INSTANCE);
+    }
+
+    /**
+     * @param identifier Name for bus, useful in logging if there are multiple buses
+     * @param bufferSize Number of events the ring can hold, must be a power of two
+     * @param consumerThreads Number of threads delivering events to subscribers
+     * @param waitStrategy What consumer threads do while there are no events. Use a new instance for every bus
+     * @param subscriberExceptionHandler Handler for exceptions thrown by subscribers methods
+     */
+    public RingBufferEventBus(String identifier, int bufferSize, int consumerThreads, WaitStrategy waitStrategy,
+                              SubscriberExceptionHandler subscriberExceptionHandler) {
+        this(identifier, subscriberExceptionHandler,
+                new RingBuffer(bufferSize, consumerThreads, waitStrategy, consumerThreadFactory(identifier)));
+    }
+
+    private RingBufferEventBus(String identifier, SubscriberExceptionHandler subscriberExceptionHandler,
+                               RingBuffer ringBuffer) {
+        super(identifier, Executors.directExecutor(), subscriberExceptionHandler, ringBuffer);
+        this.ringBuffer = ringBuffer;
+        ringBuffer.start();
+    }
+
+    /**
+     * Stops accepting new events. Events already posted are still delivered, after which the consumer threads
+     * exit. Posting after this throws {@link IllegalStateException}, and so may a post racing with this call
+     */
+    public void shutdown() {
+        ringBuffer.halt();
+    }
+
+    /**
+     * Waits for the consumer threads to exit after {@link #shutdown()}
+     *
+     * @param timeout Maximum time to wait
+     * @param unit Unit of {@code timeout}
+     * @return {@code true} if all consumer threads exited, {@code false} if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return ringBuffer.awaitTermination(timeout, unit);
+    }
+
+    private static ThreadFactory consumerThreadFactory(String identifier) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "eventbus-" + identifier + "-consumer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
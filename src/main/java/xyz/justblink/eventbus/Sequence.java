@@ -0,0 +1,55 @@
+package xyz.justblink.eventbus;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+class LeftPadding {
+    long p1, p2, p3, p4, p5, p6, p7;
+}
+
+class SequenceValue extends LeftPadding {
+    volatile long value;
+}
+
+/**
+ * A position in a {@link RingBuffer}. Padded on both sides so that sequences updated by different threads never
+ * share a cache line
+ *
+ * @author Kasun Piyumal
+ */
+final class Sequence extends SequenceValue {
+    private static final AtomicLongFieldUpdater<SequenceValue> VALUE =
+            AtomicLongFieldUpdater.newUpdater(SequenceValue.class, "value");
+
+    long p9, p10, p11, p12, p13, p14, p15;
+
+    Sequence(long initialValue) {
+        value = initialValue;
+    }
+
+    long get() {
+        return value;
+    }
+
+    void set(long newValue) {
+        value = newValue;
+    }
+
+    /**
+     * Store with release semantics only, cheaper than {@link #set(long)}
+     */
+    void setOrdered(long newValue) {
+        VALUE.lazySet(this, newValue);
+    }
+
+    boolean compareAndSet(long expected, long newValue) {
+        return VALUE.compareAndSet(this, expected, newValue);
+    }
+
+    long getAndIncrement() {
+        return VALUE.getAndIncrement(this);
+    }
+
+    long getAndAdd(long delta) {
+        return VALUE.getAndAdd(this, delta);
+    }
+}
@@ -0,0 +1,541 @@
+package xyz.justblink.eventbus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static xyz.justblink.eventbus.Conditions.checkNonNull;
+
+/**
+ * Carries events between processes on the same machine through a ring buffer in a memory-mapped file, without
+ * sockets or a broker
+ *
+ * <p>Every process opens a bridge on the same file. Any number of them {@linkplain #forward(EventBus) forward}
+ * the events posted on their bus, and one of them {@linkplain #receive(EventBus) receives} the events and posts
+ * them again on its own bus:</p>
+ *
+ * <pre>
+ * // Publishing processes
+ * SharedMemoryBridge bridge = new SharedMemoryBridge(Paths.get("/dev/shm/quotes"), codecs);
+ * bridge.forward(bus);
+ *
+ * // Receiving process
+ * SharedMemoryBridge bridge = new SharedMemoryBridge(Paths.get("/dev/shm/quotes"), codecs);
+ * bridge.receive(bus);
+ * </pre>
+ *
+ * <h2>Ring</h2>
+ *
+ * <p>The file starts with a header holding the claimed and the consumed position of the ring, each on a cache
+ * line of its own, followed by {@code capacity} bytes of records. A publisher encodes the event, claims room for
+ * it with a compare-and-set on the claimed position, copies it in, and publishes it by writing the length of the
+ * record last, with release semantics. The receiver reads the length of the next record with acquire semantics,
+ * posts the decoded event, zeroes the record and moves the consumed position past it. Publishing takes neither
+ * a lock nor a system call, so an event crosses processes in little more than the time it takes to encode and
+ * decode it.</p>
+ *
+ * <p>Events are identified by the type ids of the bridge's {@link EventCodecs}, which must be the same in every
+ * process. Events without a codec are not forwarded. When the ring is full, publishers wait for the receiver to
+ * make room, like {@link OverflowPolicy#BLOCK}. Events still in the ring when the receiver stops are received by
+ * the next receiver of the file. A publisher dying between claiming and publishing a record leaves a gap which
+ * stalls the receiver, after which the file has to be deleted. Put the file on a memory file system such as
+ * {@code /dev/shm}, so that it is never written to disk.</p>
+ *
+ * <p>Events received by a bridge are not forwarded by any bridge of the same process, including a
+ * {@link SocketBridge}, so two processes can bridge their buses both ways through two files without echoing events
+ * back and forth.</p>
+ *
+ * <p>The ring needs atomic access to mapped memory, which is only available on Java 9 and later.</p>
+ *
+ * <p>This class is thread safe</p>
+ *
+ * @author Kasun Piyumal
+ */
+public final class SharedMemoryBridge implements Closeable {
+    private static final Logger logger = Logger.getLogger(SharedMemoryBridge.class.getName());
+
+    /** Default number of bytes for records, 4 MiB */
+    public static final int DEFAULT_CAPACITY = 4 << 20;
+
+    /** Default time the receiver parks between checks of an idle ring, 20 microseconds */
+    public static final long DEFAULT_IDLE_PARK_NANOS = 20_000;
+
+    private static final int MAGIC = 0x45425342;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int CLAIMED_OFFSET = 64;
+    private static final int CONSUMED_OFFSET = 128;
+    private static final int HEADER_SIZE = 192;
+
+    /** Locked by the receiving process. Beyond the end of the file, so that it never blocks reads or writes */
+    private static final long RECEIVER_LOCK_POSITION = Long.MAX_VALUE - 1;
+
+    /** Length of the record and type id */
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+
+    private final Path file;
+    private final EventCodecs codecs;
+    private final FileChannel channel;
+    private final ByteBuffer ring;
+    private final int capacity;
+    private final int mask;
+    private final int maxEventSize;
+    private final ThreadLocal<Writer> writers;
+    private final Forwarder forwarder = new Forwarder();
+    private volatile boolean closed;
+
+    /** Buses this bridge forwards from. Guarded by this, like the fields below */
+    private final List<EventBus> forwarded = new ArrayList<>();
+    private Thread receiver;
+    private FileLock receiverLock;
+
+    /**
+     * Opens a bridge on {@code file} with a ring of {@value #DEFAULT_CAPACITY} bytes, creating the file if it
+     * does not exist
+     *
+     * @param file File shared by the processes
+     * @param codecs Codecs encoding the events
+     * @throws IOException if the file can not be created or mapped
+     */
+    public SharedMemoryBridge(Path file, EventCodecs codecs) throws IOException {
+        this(file, codecs, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens a bridge on {@code file}, creating the file if it does not exist
+     *
+     * @param file File shared by the processes
+     * @param codecs Codecs encoding the events
+     * @param capacity Number of bytes for records, a power of two of at least 1024. An event can take at most half
+     *                 of it
+     * @throws IOException if the file can not be created or mapped
+     * @throws IllegalArgumentException if {@code file} exists but is not a ring of {@code capacity} bytes
+     * @throws UnsupportedOperationException if the JVM is older than Java 9
+     */
+    public SharedMemoryBridge(Path file, EventCodecs codecs, int capacity) throws IOException {
+        if (capacity < 1024 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("capacity must be a power of two of at least 1024, was " + capacity);
+        if (!Atomics.AVAILABLE)
+            throw new UnsupportedOperationException("Shared memory bridges need Java 9 or later");
+        this.file = checkNonNull(file);
+        this.codecs = checkNonNull(codecs);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.maxEventSize = capacity / 2 - RECORD_HEADER_SIZE;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            this.ring = map(channel, file, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.writers = ThreadLocal.withInitial(() -> new Writer(ring));
+    }
+
+    /**
+     * Maps the ring in {@code file}, initializing it if the file is empty. Processes opening the file at the same
+     * time take turns through a lock on the header
+     */
+    private static ByteBuffer map(FileChannel channel, Path file, int capacity) throws IOException {
+        // File locks are held by the whole process, so threads of this one take turns on the class instead
+        synchronized (SharedMemoryBridge.class) {
+            FileLock lock = channel.lock(0, HEADER_SIZE, false);
+            try {
+                long size = channel.size();
+                if (size != 0 && size != HEADER_SIZE + capacity)
+                    throw new IllegalArgumentException(file + " is not a shared memory ring of " + capacity + " bytes");
+                ByteBuffer ring = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity);
+                if (size == 0) {
+                    ring.putInt(CAPACITY_OFFSET, capacity);
+                    ring.putInt(MAGIC_OFFSET, MAGIC);
+                } else if (ring.getInt(MAGIC_OFFSET) != MAGIC || ring.getInt(CAPACITY_OFFSET) != capacity) {
+                    throw new IllegalArgumentException(file + " is not a shared memory ring of " + capacity + " bytes");
+                }
+                return ring;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Forwards every event posted on {@code bus} which has a codec, by registering a subscriber of
+     * {@code Object} on it. The subscriber waits while the ring is full, on whichever thread the bus delivers
+     * events
+     *
+     * @param bus Bus to forward events from
+     */
+    public synchronized void forward(EventBus bus) {
+        checkOpen();
+        if (!forwarded.contains(checkNonNull(bus))) {
+            bus.register(forwarder);
+            forwarded.add(bus);
+        }
+    }
+
+    /**
+     * Writes {@code event} to the ring, waiting while the ring is full
+     *
+     * @param event Event to write
+     * @return {@code true} if the event was written, {@code false} if there is no codec for its class
+     * @throws IllegalArgumentException if the encoded event takes more than half of the ring
+     * @throws IllegalStateException if the bridge is or gets closed
+     */
+    public boolean publish(Object event) {
+        EventCodecs.Registration<?> registration = codecs.forType(event.getClass());
+        if (registration == null)
+            return false;
+
+        Writer writer = writers.get();
+        ByteBuffer encoded = writer.encode(registration, event);
+        int length = RECORD_HEADER_SIZE + encoded.remaining();
+        int size = align(length);
+
+        long claimed;
+        int padding;
+        for (int tries = 0; ; tries++) {
+            checkOpen();
+            claimed = Atomics.getLongAcquire(ring, CLAIMED_OFFSET);
+            int toEnd = capacity - ((int) claimed & mask);
+            padding = toEnd < size ? toEnd : 0;
+            long next = claimed + padding + size;
+            if (next - Atomics.getLongAcquire(ring, CONSUMED_OFFSET) > capacity)
+                backOff(tries, DEFAULT_IDLE_PARK_NANOS);
+            else if (Atomics.compareAndSetLong(ring, CLAIMED_OFFSET, claimed, next))
+                break;
+        }
+
+        int offset = HEADER_SIZE + ((int) claimed & mask);
+        if (padding > 0) {
+            Atomics.setIntRelease(ring, offset, -padding);
+            offset = HEADER_SIZE;
+        }
+        writer.write(offset, registration.typeId, encoded);
+        // Written last, as a non-zero length marks the record as published
+        Atomics.setIntRelease(ring, offset, length);
+        return true;
+    }
+
+    /**
+     * Starts posting the events in the ring to {@code bus}, on a daemon thread which parks for
+     * {@value #DEFAULT_IDLE_PARK_NANOS} nanoseconds between checks while the ring is empty
+     *
+     * @param bus Bus to post the events to
+     * @throws IllegalStateException if this or another bridge on the file is already receiving
+     */
+    public void receive(EventBus bus) {
+        receive(bus, DEFAULT_IDLE_PARK_NANOS);
+    }
+
+    /**
+     * Starts posting the events in the ring to {@code bus}, on a daemon thread. Only one bridge on the file may
+     * receive at a time, in any process. Events are posted in the order they were published
+     *
+     * @param bus Bus to post the events to
+     * @param idleParkNanos Time to park between checks of an empty ring, once spinning and yielding did not find
+     *                      an event. With 0, the thread keeps yielding instead, for the lowest latency
+     * @throws IllegalStateException if this or another bridge on the file is already receiving
+     */
+    public synchronized void receive(EventBus bus, long idleParkNanos) {
+        checkNonNull(bus);
+        checkOpen();
+        if (receiver != null)
+            throw new IllegalStateException("Bridge is already receiving from " + file);
+
+        FileLock lock;
+        try {
+            lock = channel.tryLock(RECEIVER_LOCK_POSITION, 1, false);
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not lock " + file, e);
+        }
+        if (lock == null)
+            throw new IllegalStateException("Another bridge is already receiving from " + file);
+
+        receiverLock = lock;
+        receiver = new Thread(() -> runReceiver(bus, idleParkNanos), "eventbus-bridge-" + file.getFileName());
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    private void runReceiver(EventBus bus, long idleParkNanos) {
+        Mailbox.markDeliveringThread();
+        ByteBuffer view = ring.duplicate();
+        long consumed = Atomics.getLongAcquire(ring, CONSUMED_OFFSET);
+        int tries = 0;
+        while (!closed) {
+            int offset = HEADER_SIZE + ((int) consumed & mask);
+            int length = Atomics.getIntAcquire(ring, offset);
+            if (length == 0) {
+                backOff(tries++, idleParkNanos);
+                continue;
+            }
+
+            tries = 0;
+            int size = length < 0 ? -length : align(length);
+            if (length > 0)
+                deliver(bus, view, offset, length);
+            for (int i = 0; i < size; i += 8)
+                view.putLong(offset + i, 0);
+            consumed += size;
+            Atomics.setLongRelease(ring, CONSUMED_OFFSET, consumed);
+        }
+    }
+
+    private void deliver(EventBus bus, ByteBuffer view, int offset, int length) {
+        int typeId = view.getInt(offset + 4);
+        EventCodecs.Registration<?> registration = codecs.forId(typeId);
+        if (registration == null) {
+            logger.log(Level.WARNING, "Skipping event of unknown type id " + typeId + " in " + file);
+            return;
+        }
+
+        Buffer bounds = view;
+        Object event;
+        try {
+            bounds.limit(offset + length).position(offset + RECORD_HEADER_SIZE);
+            event = registration.codec.decode(view.slice());
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Skipping event of type id " + typeId + " which could not be decoded", e);
+            return;
+        } finally {
+            bounds.limit(view.capacity());
+        }
+
+        ReceivedEvents.post(bus, event, file);
+    }
+
+    /**
+     * Spins, then yields and finally parks for {@code parkNanos}, or keeps yielding if it is 0
+     */
+    private static void backOff(int tries, long parkNanos) {
+        if (tries < SPIN_TRIES)
+            return;
+        if (tries < SPIN_TRIES + YIELD_TRIES || parkNanos == 0)
+            Thread.yield();
+        else
+            LockSupport.parkNanos(parkNanos);
+    }
+
+    private static int align(int length) {
+        return (length + 7) & ~7;
+    }
+
+    private void checkOpen() {
+        if (closed)
+            throw new IllegalStateException("Bridge to " + file + " is closed");
+    }
+
+    /**
+     * Stops forwarding and receiving, waiting for the receiving thread to finish the event it is posting. Events
+     * in the ring stay there for the next receiver. Publishers waiting for room throw
+     * {@link IllegalStateException}
+     */
+    @Override
+    public void close() {
+        Thread current;
+        List<EventBus> buses;
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            current = receiver;
+            buses = new ArrayList<>(forwarded);
+        }
+        for (EventBus bus : buses)
+            bus.unregister(forwarder);
+        if (current != null && current != Thread.currentThread()) {
+            boolean interrupted = false;
+            while (current.isAlive()) {
+                try {
+                    current.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+        try {
+            if (receiverLock != null)
+                receiverLock.release();
+            channel.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not close " + file, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SharedMemoryBridge(" + file + ")";
+    }
+
+    /**
+     * Subscriber of every event on the buses a bridge forwards from
+     */
+    final class Forwarder {
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void forward(Object event) {
+            if (!ReceivedEvents.contains(event))
+                publish(event);
+        }
+    }
+
+    /**
+     * State of a publishing thread: a heap buffer to encode events into before their size is known, and a view of
+     * the ring with a position of its own
+     */
+    private final class Writer {
+        private final ByteBuffer view;
+        private ByteBuffer scratch = ByteBuffer.allocate(256);
+
+        private Writer(ByteBuffer ring) {
+            this.view = ring.duplicate();
+        }
+
+        /**
+         * @return the scratch buffer, holding the encoded event between its position and limit
+         */
+        ByteBuffer encode(EventCodecs.Registration<?> registration, Object event) {
+            while (true) {
+                ByteBuffer buffer = scratch;
+                ((Buffer) buffer).clear();
+                try {
+                    registration.encode(event, buffer);
+                    ((Buffer) buffer).flip();
+                    return buffer;
+                } catch (BufferOverflowException e) {
+                    if (buffer.capacity() >= maxEventSize)
+                        throw new IllegalArgumentException("Event takes more than " + maxEventSize
+                                + " bytes, the most a ring of " + capacity + " bytes can hold: " + event);
+                    scratch = ByteBuffer.allocate(Math.min(buffer.capacity() * 2, maxEventSize));
+                }
+            }
+        }
+
+        void write(int offset, int typeId, ByteBuffer encoded) {
+            view.putInt(offset + 4, typeId);
+            ((Buffer) view).position(offset + RECORD_HEADER_SIZE);
+            view.put(encoded);
+        }
+    }
+
+    /**
+     * Acquire and release accesses and compare-and-set on mapped memory, through the byte buffer view
+     * {@code VarHandle}s of Java 9. They are looked up reflectively, as the library is built for Java 8, and
+     * {@link #AVAILABLE} is {@code false} on older JVMs
+     */
+    private static final class Atomics {
+        private static final MethodHandle GET_INT_ACQUIRE =
+                accessor(int[].class, "GET_ACQUIRE", int.class);
+        private static final MethodHandle SET_INT_RELEASE =
+                accessor(int[].class, "SET_RELEASE", void.class, int.class);
+        private static final MethodHandle GET_LONG_ACQUIRE =
+                accessor(long[].class, "GET_ACQUIRE", long.class);
+        private static final MethodHandle SET_LONG_RELEASE =
+                accessor(long[].class, "SET_RELEASE", void.class, long.class);
+        private static final MethodHandle COMPARE_AND_SET_LONG =
+                accessor(long[].class, "COMPARE_AND_SET", boolean.class, long.class, long.class);
+
+        static final boolean AVAILABLE = GET_INT_ACQUIRE != null && SET_INT_RELEASE != null
+                && GET_LONG_ACQUIRE != null && SET_LONG_RELEASE != null && COMPARE_AND_SET_LONG != null;
+
+        /**
+         * Calls {@code MethodHandles.varHandleExactInvoker(mode, type)} and binds it to
+         * {@code MethodHandles.byteBufferViewVarHandle(viewType, nativeOrder())}
+         *
+         * @return a handle taking the buffer, the byte offset and {@code values}, or {@code null} on Java 8
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static MethodHandle accessor(Class<?> viewType, String mode, Class<?> returnType,
+                                             Class<?>... values) {
+            try {
+                Class<?> varHandle = Class.forName("java.lang.invoke.VarHandle");
+                Class accessMode = Class.forName("java.lang.invoke.VarHandle$AccessMode");
+                Object view = MethodHandles.class.getMethod("byteBufferViewVarHandle", Class.class, ByteOrder.class)
+                        .invoke(null, viewType, ByteOrder.nativeOrder());
+                MethodType type = MethodType.methodType(returnType, ByteBuffer.class, int.class)
+                        .appendParameterTypes(values);
+                MethodHandle invoker = (MethodHandle) MethodHandles.class
+                        .getMethod("varHandleExactInvoker", accessMode, MethodType.class)
+                        .invoke(null, Enum.valueOf(accessMode, mode), type);
+                return invoker.bindTo(varHandle.cast(view));
+            } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+                return null;
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException("Could not look up " + mode + " on mapped memory", e.getCause());
+            }
+        }
+
+        static int getIntAcquire(ByteBuffer buffer, int offset) {
+            try {
+                return (int) GET_INT_ACQUIRE.invokeExact(buffer, offset);
+            } catch (Throwable e) {
+                throw propagate(e);
+            }
+        }
+
+        static void setIntRelease(ByteBuffer buffer, int offset, int value) {
+            try {
+                SET_INT_RELEASE.invokeExact(buffer, offset, value);
+            } catch (Throwable e) {
+                throw propagate(e);
+            }
+        }
+
+        static long getLongAcquire(ByteBuffer buffer, int offset) {
+            try {
+                return (long) GET_LONG_ACQUIRE.invokeExact(buffer, offset);
+            } catch (Throwable e) {
+                throw propagate(e);
+            }
+        }
+
+        static void setLongRelease(ByteBuffer buffer, int offset, long value) {
+            try {
+                SET_LONG_RELEASE.invokeExact(buffer, offset, value);
+            } catch (Throwable e) {
+                throw propagate(e);
+            }
+        }
+
+        static boolean compareAndSetLong(ByteBuffer buffer, int offset, long expected, long value) {
+            try {
+                return (boolean) COMPARE_AND_SET_LONG.invokeExact(buffer, offset, expected, value);
+            } catch (Throwable e) {
+                throw propagate(e);
+            }
+        }
+
+        private static RuntimeException propagate(Throwable e) {
+            if (e instanceof RuntimeException)
+                return (RuntimeException) e;
+            if (e instanceof Error)
+                throw (Error) e;
+            return new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,752 @@
+package xyz.justblink.eventbus;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static xyz.justblink.eventbus.Conditions.checkNonNull;
+
+/**
+ * Links the {@link EventBus}es of processes on the same or different machines over TCP, so that each bus delivers
+ * the events posted on the others to its subscribers
+ *
+ * <p>Every process creates a bridge for its bus. A bridge {@linkplain #bind(SocketAddress) listens} for peers,
+ * {@linkplain #connect(InetSocketAddress) connects} to them, or both, and every connection links two buses both
+ * ways:</p>
+ *
+ * <pre>
+ * // Node A
+ * SocketBridge bridge = new SocketBridge(bus, codecs);
+ * bridge.bind(new InetSocketAddress(7400));
+ *
+ * // Node B
+ * SocketBridge bridge = new SocketBridge(bus, codecs);
+ * bridge.connect(new InetSocketAddress("node-a", 7400));
+ * </pre>
+ *
+ * <h2>Subscriptions</h2>
+ *
+ * <p>A bridge tells its peers which event types have subscribers on its bus, and tells them again after every
+ * {@link EventBus#register(Object)} and {@link EventBus#unregister(Object)} changing that. For every type a peer
+ * subscribes to, the bridge registers a subscriber on its own bus which sends the events to the peer. It is
+ * dispatched, instrumented and charged like a local subscriber, and events it takes are not dead. Only the events
+ * a peer subscribes to are encoded and cross the wire, so posting events nobody else wants costs nothing
+ * extra.</p>
+ *
+ * <p>Event types are identified by the type ids of the bridge's {@link EventCodecs}, which must be the same in
+ * every process and should be registered before the bridge is created. An event is sent by the codec of its exact
+ * class, and events without a codec are never sent. A subscriber of a superclass or an interface subscribes to
+ * every event type with a codec which extends it.</p>
+ *
+ * <h2>Wire</h2>
+ *
+ * <p>Each connection carries frames holding their length, a kind and a type id, followed by the encoded event.
+ * One thread per bridge runs all its connections with a {@link Selector}. Subscribers append frames to a buffer of
+ * the connection and only wake that thread when the buffer was empty. The thread swaps the buffer for an empty one
+ * and writes all frames appended so far with a single system call, so under load an event costs an encoding and a
+ * copy, and throughput is bounded by the network rather than by system calls. A subscriber waits while more than
+ * {@value #SEND_BUFFER_LIMIT} bytes are waiting for a slow peer, like {@link OverflowPolicy#BLOCK}.</p>
+ *
+ * <p>Received events are posted on the bus by the bridge's thread, in the order the peer sent them, so subscribers
+ * receiving them on a bus without an executor should be quick. Like events received by a
+ * {@link SharedMemoryBridge}, they are not sent on by any bridge of the process, so every pair of processes
+ * exchanging events has to be linked directly.</p>
+ *
+ * <h2>Failures</h2>
+ *
+ * <p>When a connection breaks, the subscribers of the peer are unregistered and the events waiting to be sent to
+ * it are dropped, as are events posted until the peer is linked again. A bridge connects again to the peers it
+ * {@linkplain #connect(InetSocketAddress) connected} to, waiting from {@value #MIN_RECONNECT_MILLIS} up to
+ * {@value #MAX_RECONNECT_MILLIS} milliseconds between attempts, after which the peers exchange their subscriptions
+ * again.</p>
+ *
+ * <p>This class is thread safe</p>
+ *
+ * @author Kasun Piyumal
+ */
+public final class SocketBridge implements Closeable {
+    private static final Logger logger = Logger.getLogger(SocketBridge.class.getName());
+
+    /** Number of bytes waiting to be sent to a peer above which subscribers wait, 1 MiB */
+    public static final int SEND_BUFFER_LIMIT = 1 << 20;
+
+    /** Largest frame a bridge sends or accepts, 16 MiB */
+    public static final int MAX_FRAME_SIZE = 16 << 20;
+
+    /** Time to wait before the first attempt to connect again to a peer */
+    public static final long MIN_RECONNECT_MILLIS = 100;
+
+    /** Longest time to wait between attempts to connect again to a peer */
+    public static final long MAX_RECONNECT_MILLIS = 5_000;
+
+    private static final int MAGIC = 0x45425354;
+
+    /** First frame on every connection, carrying {@link #MAGIC} as its type id */
+    private static final byte HELLO = 0;
+    private static final byte EVENT = 1;
+    private static final byte SUBSCRIBE = 2;
+    private static final byte UNSUBSCRIBE = 3;
+
+    /** Length, kind and type id */
+    private static final int FRAME_HEADER_SIZE = 9;
+    private static final int BUFFER_SIZE = 64 << 10;
+
+    private static final Method SEND;
+
+    static {
+        try {
+            SEND = Peer.class.getDeclaredMethod("send", Object.class);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final EventBus bus;
+    private final EventCodecs codecs;
+    private final Selector selector;
+    private final Thread thread;
+    private final Runnable subscriptionListener = this::updateSubscriptions;
+
+    /** Work handed to the bridge's thread by other threads */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /** Peers with frames to write, see {@link Peer#flushRequested} */
+    private final Queue<Peer> flushes = new ConcurrentLinkedQueue<>();
+
+    /** Set while holding the lock of this, so that no task is submitted after the bridge's thread stopped */
+    private volatile boolean closed;
+
+    /** Type ids with subscribers on the bus, as last told to the peers. Guarded by itself, like the peers */
+    private final Set<Integer> subscriptions = new HashSet<>();
+
+    /** Peers which completed the handshake */
+    private final List<Peer> peers = new ArrayList<>();
+
+    /** Accessed by the bridge's thread only, like the links */
+    private final List<ServerSocketChannel> servers = new ArrayList<>();
+    private final List<Link> links = new ArrayList<>();
+
+    /**
+     * Creates a bridge for {@code bus}, which is linked to no peers until {@link #bind(SocketAddress)} or
+     * {@link #connect(InetSocketAddress)} is called
+     *
+     * @param bus Bus to send events from and post received events to
+     * @param codecs Codecs encoding the events
+     * @throws IOException if a selector can not be opened
+     */
+    public SocketBridge(EventBus bus, EventCodecs codecs) throws IOException {
+        this.bus = checkNonNull(bus);
+        this.codecs = checkNonNull(codecs);
+        this.selector = Selector.open();
+        this.thread = new Thread(this::run, "eventbus-socket-bridge-" + bus.getIdentifier());
+        thread.setDaemon(true);
+        bus.addSubscriptionListener(subscriptionListener);
+        updateSubscriptions();
+        thread.start();
+    }
+
+    /**
+     * Accepts peers connecting to {@code address}
+     *
+     * @param address Address to listen on. With port 0, a free port is picked
+     * @return the address the bridge listens on
+     * @throws IOException if the address can not be bound
+     * @throws IllegalStateException if the bridge is closed
+     */
+    public InetSocketAddress bind(SocketAddress address) throws IOException {
+        checkNonNull(address);
+        ServerSocketChannel server = ServerSocketChannel.open();
+        try {
+            server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            server.bind(address);
+            server.configureBlocking(false);
+            InetSocketAddress bound = (InetSocketAddress) server.getLocalAddress();
+            submit(() -> {
+                servers.add(server);
+                try {
+                    server.register(selector, SelectionKey.OP_ACCEPT);
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Could not accept peers on " + bound, e);
+                }
+            });
+            return bound;
+        } catch (IOException | RuntimeException e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Links the bus to the peer listening on {@code address}, connecting again whenever the connection fails or
+     * breaks, until the bridge is closed. Returns right away, without waiting for the connection
+     *
+     * @param address Address of the peer
+     * @throws IllegalStateException if the bridge is closed
+     */
+    public void connect(InetSocketAddress address) {
+        checkNonNull(address);
+        submit(() -> {
+            Link link = new Link(address);
+            links.add(link);
+            link.connect();
+        });
+    }
+
+    private synchronized void submit(Runnable task) {
+        if (closed)
+            throw new IllegalStateException(this + " is closed");
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Tells the peers about event types which gained their first or lost their last subscriber on the bus
+     */
+    private void updateSubscriptions() {
+        SubscriberRegistry registry = bus.getRegistry();
+        synchronized (subscriptions) {
+            for (EventCodecs.Registration<?> registration : codecs.registrations()) {
+                Integer typeId = registration.typeId;
+                boolean subscribed = registry.hasLocalSubscribers(registration.type);
+                if (subscribed ? subscriptions.add(typeId) : subscriptions.remove(typeId)) {
+                    for (Peer peer : peers)
+                        peer.append(subscribed ? SUBSCRIBE : UNSUBSCRIBE, typeId, null, null);
+                }
+            }
+        }
+    }
+
+    private void run() {
+        Mailbox.markDeliveringThread();
+        try {
+            while (!closed) {
+                for (Runnable task; (task = tasks.poll()) != null; )
+                    task.run();
+                selector.select(reconnectTimeout());
+                for (Peer peer; (peer = flushes.poll()) != null; )
+                    flush(peer);
+                for (SelectionKey key : selector.selectedKeys())
+                    handle(key);
+                selector.selectedKeys().clear();
+                reconnect();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.SEVERE, this + " stopped", e);
+        } finally {
+            shutDown();
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid())
+            return;
+        if (key.isAcceptable()) {
+            accept((ServerSocketChannel) key.channel());
+            return;
+        }
+
+        Peer peer = (Peer) key.attachment();
+        try {
+            if (key.isConnectable())
+                peer.finishConnect();
+            if (key.isValid() && key.isReadable())
+                peer.read();
+            if (key.isValid() && key.isWritable())
+                peer.flush();
+        } catch (IOException | RuntimeException e) {
+            disconnect(peer, e);
+        }
+    }
+
+    private void accept(ServerSocketChannel server) {
+        SocketChannel channel = null;
+        try {
+            channel = server.accept();
+            if (channel != null) {
+                channel.configureBlocking(false);
+                new Peer(channel, null).start();
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not accept a peer on " + server.socket().getLocalSocketAddress(), e);
+            closeQuietly(channel);
+        }
+    }
+
+    private void flush(Peer peer) {
+        if (peer.key != null && peer.key.isValid()) {
+            try {
+                peer.flush();
+            } catch (IOException | RuntimeException e) {
+                disconnect(peer, e);
+            }
+        }
+    }
+
+    private void disconnect(Peer peer, Exception cause) {
+        boolean linked = peer.stop();
+        if (cause instanceof EOFException && linked)
+            logger.log(Level.INFO, cause.getMessage());
+        else if (cause != null && linked)
+            logger.log(Level.WARNING, "Lost connection to " + peer, cause);
+        else if (cause != null)
+            logger.log(Level.FINE, "Could not link to " + peer, cause);
+        if (peer.link != null && !closed)
+            peer.link.scheduleReconnect();
+    }
+
+    /**
+     * @return the milliseconds until the next link is due to connect again, or 0 if none is
+     */
+    private long reconnectTimeout() {
+        long timeout = 0;
+        long now = System.nanoTime();
+        for (Link link : links) {
+            if (link.reconnecting) {
+                long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(link.reconnectAt - now));
+                timeout = timeout == 0 ? millis : Math.min(timeout, millis);
+            }
+        }
+        return timeout;
+    }
+
+    private void reconnect() {
+        long now = System.nanoTime();
+        for (Link link : links) {
+            if (link.reconnecting && now - link.reconnectAt >= 0) {
+                link.reconnecting = false;
+                link.connect();
+            }
+        }
+    }
+
+    private void shutDown() {
+        for (Runnable task; (task = tasks.poll()) != null; )
+            task.run();
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Peer) {
+                Peer peer = (Peer) key.attachment();
+                if (peer.linked)
+                    flush(peer);
+                peer.stop();
+            }
+        }
+        for (ServerSocketChannel server : servers)
+            closeQuietly(server);
+        closeQuietly(selector);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null)
+            return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Could not close " + closeable, e);
+        }
+    }
+
+    /**
+     * Unlinks the bus from all peers and stops listening, waiting for the bridge's thread to finish the event it is
+     * posting. Events waiting to be sent are written as far as the sockets take them without waiting, and the rest
+     * are dropped. Subscribers waiting to send return
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        bus.removeSubscriptionListener(subscriptionListener);
+        selector.wakeup();
+        if (thread != Thread.currentThread()) {
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SocketBridge(" + bus.getIdentifier() + ")";
+    }
+
+    /**
+     * A peer this bridge connects to, with the state of connecting again. Accessed by the bridge's thread only
+     */
+    private final class Link {
+        private final InetSocketAddress address;
+        private long delayMillis = MIN_RECONNECT_MILLIS;
+        private boolean reconnecting;
+        private long reconnectAt;
+
+        private Link(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        void connect() {
+            SocketChannel channel = null;
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                Peer peer = new Peer(channel, this);
+                if (channel.connect(address))
+                    peer.start();
+                else
+                    peer.key = channel.register(selector, SelectionKey.OP_CONNECT, peer);
+            } catch (IOException | RuntimeException e) {
+                logger.log(Level.FINE, "Could not connect to " + address, e);
+                closeQuietly(channel);
+                scheduleReconnect();
+            }
+        }
+
+        void scheduleReconnect() {
+            reconnecting = true;
+            reconnectAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+            delayMillis = Math.min(delayMillis * 2, MAX_RECONNECT_MILLIS);
+        }
+
+        void linked() {
+            delayMillis = MIN_RECONNECT_MILLIS;
+        }
+    }
+
+    /**
+     * One connection, from the moment it is accepted or connecting until it breaks
+     *
+     * <p>Frames are appended to {@link #pending} by any thread holding the lock. The bridge's thread swaps it with
+     * {@link #writing} once that has been written, so appending never waits for the network. Everything else is
+     * accessed by the bridge's thread only.</p>
+     */
+    private final class Peer {
+        private final SocketChannel channel;
+        private final Link link;
+        private final SocketAddress address;
+        private SelectionKey key;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition drained = lock.newCondition();
+
+        /** Frames appended since the last swap, in write mode. Guarded by the lock, like the fields below */
+        private ByteBuffer pending = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        /** Whether the bridge's thread has been asked to write {@link #pending} and has not yet emptied it */
+        private boolean flushRequested;
+        private boolean open = true;
+
+        /** Frames being written, in read mode */
+        private ByteBuffer writing = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private ByteBuffer reading = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private boolean linked;
+
+        /** Subscribers sending the events the peer subscribes to, by type id */
+        private final Map<Integer, RemoteSubscriber> remoteSubscribers = new HashMap<>();
+
+        private Peer(SocketChannel channel, Link link) throws IOException {
+            this.channel = channel;
+            this.link = link;
+            this.address = link != null ? link.address : channel.getRemoteAddress();
+            ((Buffer) writing).flip();
+        }
+
+        /**
+         * Sends {@code event}, if it has a codec and was not received from another process
+         */
+        void send(Object event) {
+            if (ReceivedEvents.contains(event))
+                return;
+            EventCodecs.Registration<?> registration = codecs.forType(event.getClass());
+            if (registration != null)
+                append(EVENT, registration.typeId, registration, event);
+        }
+
+        /**
+         * Appends a frame, waiting while too many bytes are pending if it is an event, unless the bridge's thread is
+         * the one appending. Does nothing once the connection is closed
+         *
+         * @param registration Codec of the event, or {@code null} for frames without one
+         * @throws IllegalArgumentException if the frame would be larger than {@value #MAX_FRAME_SIZE} bytes
+         */
+        void append(byte kind, int typeId, EventCodecs.Registration<?> registration, Object event) {
+            lock.lock();
+            try {
+                if (event != null && Thread.currentThread() != thread) {
+                    while (open && pending.position() >= SEND_BUFFER_LIMIT)
+                        drained.awaitUninterruptibly();
+                }
+                if (!open)
+                    return;
+
+                int start = pending.position();
+                while (true) {
+                    try {
+                        pending.putInt(0).put(kind).putInt(typeId);
+                        if (registration != null)
+                            registration.encode(event, pending);
+                        break;
+                    } catch (BufferOverflowException e) {
+                        ((Buffer) pending).position(start);
+                        grow(start, event);
+                    }
+                }
+                int length = pending.position() - start - 4;
+                if (length > MAX_FRAME_SIZE) {
+                    ((Buffer) pending).position(start);
+                    throw tooLarge(event);
+                }
+                pending.putInt(start, length);
+
+                if (!flushRequested) {
+                    flushRequested = true;
+                    flushes.add(this);
+                    selector.wakeup();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Replaces {@link #pending} with a buffer twice its size, keeping its first {@code used} bytes
+         */
+        private void grow(int used, Object event) {
+            if (pending.capacity() - used > MAX_FRAME_SIZE)
+                throw tooLarge(event);
+            ByteBuffer bigger = ByteBuffer.allocateDirect(pending.capacity() * 2);
+            ((Buffer) pending).flip();
+            bigger.put(pending);
+            pending = bigger;
+        }
+
+        private IllegalArgumentException tooLarge(Object event) {
+            return new IllegalArgumentException("Event takes more than " + MAX_FRAME_SIZE
+                    + " bytes, the most a frame can hold: " + event);
+        }
+
+        void start() throws IOException {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            if (key == null)
+                key = channel.register(selector, SelectionKey.OP_READ, this);
+            else
+                key.interestOps(SelectionKey.OP_READ);
+            append(HELLO, MAGIC, null, null);
+        }
+
+        void finishConnect() throws IOException {
+            if (channel.finishConnect())
+                start();
+        }
+
+        /**
+         * Writes pending frames until they run out or the socket buffer fills up, in which case the rest is
+         * written once the socket is writable again
+         */
+        void flush() throws IOException {
+            while (true) {
+                if (!writing.hasRemaining()) {
+                    lock.lock();
+                    try {
+                        if (pending.position() == 0) {
+                            flushRequested = false;
+                            key.interestOps(SelectionKey.OP_READ);
+                            return;
+                        }
+                        ByteBuffer full = pending;
+                        pending = writing;
+                        writing = full;
+                        ((Buffer) pending).clear();
+                        ((Buffer) writing).flip();
+                        drained.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                channel.write(writing);
+                if (writing.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Reads what the socket holds and handles every complete frame
+         */
+        void read() throws IOException {
+            if (channel.read(reading) < 0)
+                throw new EOFException("Connection closed by " + this);
+
+            Buffer bounds = reading;
+            bounds.flip();
+            while (reading.remaining() >= 4) {
+                int start = reading.position();
+                int length = reading.getInt(start);
+                if (length < FRAME_HEADER_SIZE - 4 || length > MAX_FRAME_SIZE)
+                    throw new IOException("Invalid frame of " + length + " bytes from " + this);
+                if (reading.remaining() < 4 + length) {
+                    if (reading.capacity() < 4 + length) {
+                        ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(4 + length, reading.capacity() * 2));
+                        bigger.put(reading);
+                        reading = bigger;
+                        return;
+                    }
+                    break;
+                }
+
+                int limit = reading.limit();
+                bounds.limit(start + 4 + length).position(start + FRAME_HEADER_SIZE);
+                ByteBuffer payload = reading.slice();
+                bounds.limit(limit).position(start + 4 + length);
+                receive(reading.get(start + 4), reading.getInt(start + 5), payload);
+            }
+            reading.compact();
+        }
+
+        private void receive(byte kind, int typeId, ByteBuffer payload) throws IOException {
+            if (!linked) {
+                if (kind != HELLO || typeId != MAGIC)
+                    throw new IOException(this + " is not an event bus bridge");
+                linked();
+                return;
+            }
+
+            switch (kind) {
+                case EVENT:
+                    receiveEvent(typeId, payload);
+                    break;
+                case SUBSCRIBE:
+                    subscribe(typeId);
+                    break;
+                case UNSUBSCRIBE:
+                    RemoteSubscriber subscriber = remoteSubscribers.remove(typeId);
+                    if (subscriber != null)
+                        bus.getRegistry().unregister(subscriber.type, subscriber);
+                    break;
+                default:
+                    throw new IOException("Unexpected frame of kind " + kind + " from " + this);
+            }
+        }
+
+        private void linked() {
+            linked = true;
+            if (link != null)
+                link.linked();
+            synchronized (subscriptions) {
+                peers.add(this);
+                for (Integer typeId : subscriptions)
+                    append(SUBSCRIBE, typeId, null, null);
+            }
+            logger.log(Level.FINE, "Linked to " + this);
+        }
+
+        private void receiveEvent(int typeId, ByteBuffer payload) {
+            EventCodecs.Registration<?> registration = codecs.forId(typeId);
+            if (registration == null) {
+                logger.log(Level.WARNING, "Skipping event of unknown type id " + typeId + " from " + this);
+                return;
+            }
+            Object event;
+            try {
+                event = registration.codec.decode(payload);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Skipping event of type id " + typeId + " which could not be decoded", e);
+                return;
+            }
+            ReceivedEvents.post(bus, event, this);
+        }
+
+        private void subscribe(int typeId) {
+            EventCodecs.Registration<?> registration = codecs.forId(typeId);
+            if (registration == null) {
+                logger.log(Level.WARNING, this + " subscribes to unknown type id " + typeId);
+            } else if (!remoteSubscribers.containsKey(typeId)) {
+                RemoteSubscriber subscriber = new RemoteSubscriber(bus, this, registration.type);
+                remoteSubscribers.put(typeId, subscriber);
+                bus.getRegistry().register(registration.type, subscriber);
+            }
+        }
+
+        /**
+         * Closes the connection, unregisters the subscribers of the peer and releases threads waiting to send
+         *
+         * @return whether the peer had completed the handshake
+         */
+        boolean stop() {
+            lock.lock();
+            try {
+                open = false;
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            synchronized (subscriptions) {
+                peers.remove(this);
+            }
+            for (RemoteSubscriber subscriber : remoteSubscribers.values())
+                bus.getRegistry().unregister(subscriber.type, subscriber);
+            remoteSubscribers.clear();
+            if (key != null)
+                key.cancel();
+            closeQuietly(channel);
+            return linked;
+        }
+
+        @Override
+        public String toString() {
+            return "peer " + address;
+        }
+    }
+
+    /**
+     * Subscriber sending the events of one type to a peer. Events of subclasses are left to the subscriber of their
+     * own type, if the peer subscribes to it
+     */
+    private static final class RemoteSubscriber extends Subscriber {
+        private final Class<?> type;
+
+        private RemoteSubscriber(EventBus bus, Peer peer, Class<?> type) {
+            super(bus, peer, new SubscriberMethod(SEND, type, (target, event) -> {
+                if (event.getClass() == type)
+                    ((Peer) target).send(event);
+            }));
+            this.type = type;
+        }
+
+        @Override
+        boolean isRemote() {
+            return true;
+        }
+    }
+}
@@ -14,9 +14,40 @@ import java.lang.annotation.Target;
  * If there is an occasion where EventBus should call the method from multiple threads (If you want to make the
  * method thread-safe), use {@link AcceptConcurrentEvents} annotation too.
  *
+ * To receive events in chunks instead of one by one, use {@link BatchEvents} annotation too and take a
+ * {@code List} of events as the parameter.
+ *
+ * Subscribers of an event are called in order of their {@link #priority()}, highest first, and subscribers with
+ * the same priority in the order they were registered.
+ *
+ * To receive only the events with certain values of their {@link FilterKey}, such as the trades of a few symbols,
+ * list the values with {@link #keys()} or {@link #keysFrom()}. Events with other values are never handed to the
+ * method, so they cost neither an executor hand-off nor a call.
+ *
  * @author Kasun Piyumal
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface Subscribe {
+
+    /**
+     * @return priority of this subscriber among the subscribers of an event. Subscribers with a higher priority
+     * are called first, or, on a multi-threaded executor, handed to the executor first
+     */
+    int priority() default 0;
+
+    /**
+     * @return values of the event's {@link FilterKey} this method receives. They are converted to the type of the
+     * key, which must be a {@code String}, a primitive type or its wrapper, or an enum. Empty to receive events
+     * whatever their key, unless {@link #keysFrom()} is set
+     */
+    String[] keys() default {};
+
+    /**
+     * @return name of a field or no-argument method of the listener holding the values of the event's
+     * {@link FilterKey} this method receives, as a single value, an array or a {@code Collection}. It is read
+     * when the listener is registered, so that every instance of a class can receive its own keys. Empty to
+     * receive events whatever their key, unless {@link #keys()} is set
+     */
+    String keysFrom() default "";
 }
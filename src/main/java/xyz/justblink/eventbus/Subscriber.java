@@ -1,7 +1,9 @@
 package xyz.justblink.eventbus;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Consists of the subscriber method of a specific object and way to execute it
@@ -12,73 +14,261 @@ import java.lang.reflect.Method;
  * @author Kasun Piyumal
  */
 class Subscriber {
+    private static final AtomicReferenceFieldUpdater<Subscriber, Mailbox> MAILBOX =
+            AtomicReferenceFieldUpdater.newUpdater(Subscriber.class, Mailbox.class, "mailbox");
+
     private final EventBus bus;
     private final Object target;
-    private final Method method;
+    private final SubscriberMethod method;
+    private final SubscriberInvoker invoker;
+    private final int priority;
+
+    /** Created on first use, only when events are delivered through a per-subscriber mailbox */
+    private volatile Mailbox mailbox;
+
+    /** {@code null} unless the bus is instrumented */
+    private volatile SubscriberRecorder recorder;
 
-    Subscriber(EventBus bus, Object target, Method method) {
+    Subscriber(EventBus bus, Object target, SubscriberMethod subscriberMethod) {
         this.bus = bus;
         this.target = target;
-        this.method = method;
-        method.setAccessible(true);
+        this.method = subscriberMethod;
+        this.invoker = subscriberMethod.getInvoker();
+        this.priority = subscriberMethod.getPriority();
     }
 
     /**
      * @param bus The bus to which the event should be dispatched
      * @param target Target subscriber object
-     * @param method Target subscriber method
-     * @return a {@code Subscriber} consisting {@code target} and {@code method}
+     * @param subscriberMethod Target subscriber method
+     * @return a {@code Subscriber} consisting {@code target} and {@code subscriberMethod}
      */
-    static Subscriber create(EventBus bus, Object target, Method method) {
-        return shouldBeThreadSafe(method) ? new ThreadSafeSubscriber(bus, target, method)
-                : new Subscriber(bus, target, method);
+    static Subscriber create(EventBus bus, Object target, SubscriberMethod subscriberMethod) {
+        if (subscriberMethod.isBatch())
+            return new BatchSubscriber(bus, target, subscriberMethod);
+        if (subscriberMethod.isConflating())
+            return new ConflatingSubscriber(bus, target, subscriberMethod);
+        return subscriberMethod.isThreadSafe() ? new Subscriber(bus, target, subscriberMethod)
+                : new SerializedSubscriber(bus, target, subscriberMethod);
     }
 
     /**
-     * Check whether the method should be thread safe by checking the presence of {@link AcceptConcurrentEvents}
-     * annotation
+     * Dispatches the {@code event} to the subscriber using the executor provided initially
      */
-    private static boolean shouldBeThreadSafe(Method method) {
-        return method.getAnnotation(AcceptConcurrentEvents.class) != null;
+    void dispatchEvent(final Object event) {
+        if (bus.isDirectExecutor())
+            deliver(event);
+        else
+            bus.getExecutor().execute(() -> deliver(event));
     }
 
     /**
-     * Dispatches the {@code event} to the subscriber using the executor provided initially
+     * Dispatches a batch of {@code events} for this subscriber, in order, with a single executor task
      */
-    final void dispatchEvent(final Object event) {
-        bus.getExecutor().execute(() -> {
-            try {
-                invokeSubscriberMethod(event);
-            } catch (InvocationTargetException e) {
-                bus.handleSubscriberException(e, context(event));
-            }
-        });
+    void dispatchAll(List<Object> events) {
+        if (bus.isDirectExecutor()) {
+            for (int i = 0; i < events.size(); i++)
+                deliver(events.get(i));
+        } else {
+            bus.getExecutor().execute(() -> {
+                for (int i = 0; i < events.size(); i++)
+                    deliver(events.get(i));
+            });
+        }
     }
 
     /**
-     * Invokes the subscriber method. This method can be overridden to make the invocation
-     * synchronized.
+     * Delivers the {@code event} to the subscriber on the current thread
      */
-    void invokeSubscriberMethod(Object event) throws InvocationTargetException {
-        if (event == null)
-            throw new NullPointerException();
+    void deliver(Object event) {
+        invokeAndHandle(event);
+    }
+
+    /**
+     * Queues the {@code event} in the subscriber's {@link #mailbox()}, to be delivered by a task on the executor
+     */
+    void enqueue(Object event) {
+        mailbox().offer(event);
+    }
 
+    /**
+     * Delivers events queued in the {@code mailbox}. Called by the mailbox's drain task, which is the only
+     * thread polling the mailbox while this runs
+     *
+     * @param mailbox This subscriber's mailbox
+     */
+    void drain(Mailbox mailbox) {
+        Object event;
+        for (int i = 0; i < Mailbox.DRAIN_LIMIT && (event = mailbox.poll()) != null; i++)
+            invokeAndHandle(event);
+    }
+
+    /**
+     * Called when a drain task of the {@code mailbox} finishes with events still queued
+     *
+     * @param mailbox This subscriber's mailbox
+     */
+    void drainPending(Mailbox mailbox) {
+        mailbox.schedule();
+    }
+
+    /**
+     * Calls the subscriber method with {@code argument} on the current thread, passing any exception it throws to
+     * the bus. An event posted with {@link EventBus#postAsync(Object)} is unwrapped and its delivery counted down
+     */
+    final void invokeAndHandle(Object argument) {
+        if (!(argument instanceof TrackedEvent)) {
+            invokeAndReport(argument);
+            return;
+        }
+
+        TrackedEvent tracked = (TrackedEvent) argument;
+        Throwable thrown;
         try {
-            method.invoke(target, event);
-        } catch (IllegalArgumentException e) {
-            throw new Error("Method rejected target/argument: " + event, e);
-        } catch (IllegalAccessException e) {
-            throw new Error("Method became inaccessible: " + event, e);
-        } catch (InvocationTargetException e) {
-            if (e.getCause() instanceof Error) {
-                throw (Error) e.getCause();
-            }
+            thrown = invokeAndReport(tracked.event);
+        } catch (Error e) {
+            tracked.delivered(e);
+            throw e;
+        }
+        tracked.delivered(thrown);
+    }
+
+    /**
+     * Calls the subscriber method like {@link #invokeAndHandle(Object)}, with an argument which is never tracked
+     *
+     * @return the exception thrown by the method, which was passed to the bus, or {@code null}
+     */
+    final Throwable invokeAndReport(Object argument) {
+        SubscriberRecorder recorder = this.recorder;
+        if (recorder != null)
+            return invokeAndRecord(argument, recorder);
+
+        try {
+            invokeSubscriberMethod(argument);
+            return null;
+        } catch (Error e) {
             throw e;
+        } catch (Throwable e) {
+            bus.handleSubscriberException(e, context(argument));
+            return e;
+        }
+    }
+
+    private Throwable invokeAndRecord(Object argument, SubscriberRecorder recorder) {
+        long start = System.nanoTime();
+        try {
+            invokeSubscriberMethod(argument);
+            recorder.delivered(System.nanoTime() - start);
+            return null;
+        } catch (Error e) {
+            recorder.failed(System.nanoTime() - start);
+            throw e;
+        } catch (Throwable e) {
+            recorder.failed(System.nanoTime() - start);
+            bus.handleSubscriberException(e, context(argument));
+            return e;
+        }
+    }
+
+    /**
+     * Replaces the recorder of this subscriber with one from {@code instrumentation}, removing the previous one
+     *
+     * @param instrumentation Instrumentation of the bus, or {@code null} to stop recording
+     */
+    final synchronized void instrument(EventBusInstrumentation instrumentation) {
+        SubscriberRecorder previous = recorder;
+        recorder = instrumentation == null ? null
+                : instrumentation.subscriberAdded(target, method.getMethod(), this::queuedEvents);
+        if (previous != null)
+            previous.removed();
+    }
+
+    private int queuedEvents() {
+        Mailbox current = mailbox;
+        return current == null ? 0 : current.size();
+    }
+
+    /**
+     * @return the mailbox queueing events for this subscriber, drained on the bus' executor
+     */
+    final Mailbox mailbox() {
+        Mailbox current = mailbox;
+        if (current == null) {
+            MAILBOX.compareAndSet(this, null, newMailbox());
+            current = mailbox;
+        }
+        return current;
+    }
+
+    /**
+     * @return a new mailbox for this subscriber, as configured by the bus
+     */
+    Mailbox newMailbox() {
+        return bus.newMailbox(this);
+    }
+
+    /**
+     * Invokes the subscriber method on the current thread
+     */
+    final void invokeSubscriberMethod(Object event) throws Throwable {
+        if (event == null)
+            throw new NullPointerException();
+
+        invoker.invoke(target, event);
+    }
+
+    /**
+     * @return whether the subscriber only receives events with certain values of their {@link FilterKey}
+     */
+    final boolean isFiltered() {
+        return method.isFiltered();
+    }
+
+    /**
+     * @return whether the subscriber forwards events to another process on behalf of a subscriber there, instead
+     * of handling them in this one
+     */
+    boolean isRemote() {
+        return false;
+    }
+
+    /**
+     * @return the values of the event's {@link FilterKey} which the subscriber receives, read from its target for
+     * {@link Subscribe#keysFrom()}
+     */
+    final Object[] filterKeys() {
+        return method.filterKeys(target);
+    }
+
+    /**
+     * @return the {@link Subscribe#priority()} of the subscriber method
+     */
+    final int getPriority() {
+        return priority;
+    }
+
+    final EventBus getBus() {
+        return bus;
+    }
+
+    /**
+     * Reports an event which could not be queued for this subscriber because its mailbox was full
+     */
+    final void reportOverflow(Object event, OverflowPolicy policy, long droppedCount) {
+        SubscriberRecorder recorder = this.recorder;
+        if (recorder != null)
+            recorder.dropped();
+        if (event instanceof TrackedEvent) {
+            TrackedEvent tracked = (TrackedEvent) event;
+            event = tracked.event;
+            tracked.delivered(new EventRejectedException("Mailbox of " + this + " is full, dropped event: " + event));
         }
+        if (!(event instanceof OverflowEvent))
+            bus.reportOverflow(new OverflowEvent(bus, event, target, policy, droppedCount));
     }
 
     private SubscriberExceptionContext context(Object event) {
-        return new SubscriberExceptionContext(bus, event, target, method);
+        return new SubscriberExceptionContext(bus, event, target, method.getMethod());
     }
 
     @Override
@@ -99,20 +289,161 @@ class Subscriber {
     }
 
     /**
-     * Subscriber that synchronizes invocations of a method to ensure that only one thread may enter
-     * the method at a time.
+     * Subscriber of a method without {@link AcceptConcurrentEvents}, which only one thread may enter at a time.
+     *
+     * <p>Instead of taking a lock, every delivery goes through the subscriber's {@link #mailbox()}. A thread
+     * finding the method idle calls it right away. A thread finding it busy queues the event and moves on, and
+     * the busy thread delivers it next, so threads of a pool are never parked on a monitor. On an executor other
+     * than the direct one, the mailbox is drained by a single task, which makes it a serial executor for this
+     * subscriber.</p>
+     */
+    static class SerializedSubscriber extends Subscriber {
+
+        SerializedSubscriber(EventBus bus, Object target, SubscriberMethod subscriberMethod) {
+            super(bus, target, subscriberMethod);
+        }
+
+        @Override
+        void dispatchEvent(Object event) {
+            if (getBus().isDirectExecutor())
+                deliver(event);
+            else
+                enqueue(event);
+        }
+
+        @Override
+        void deliver(Object event) {
+            mailbox().deliverOrOffer(event);
+        }
+
+        /**
+         * Queues the whole batch in the mailbox, whose drain task delivers it, unless the executor is direct
+         */
+        @Override
+        void dispatchAll(List<Object> events) {
+            for (int i = 0; i < events.size(); i++)
+                dispatchEvent(events.get(i));
+        }
+    }
+
+    /**
+     * Subscriber of a method marked with {@link Conflate}, or of a {@link Conflate} event class. It is delivered
+     * events like a {@link SerializedSubscriber}, but through a mailbox holding the latest pending event of each
+     * key, whatever queue the bus would give it otherwise.
      */
-    static final class ThreadSafeSubscriber extends Subscriber {
+    static final class ConflatingSubscriber extends SerializedSubscriber {
+        private final EventKey key;
 
-        ThreadSafeSubscriber(EventBus bus, Object target, Method method) {
-            super(bus, target, method);
+        ConflatingSubscriber(EventBus bus, Object target, SubscriberMethod subscriberMethod) {
+            super(bus, target, subscriberMethod);
+            this.key = EventKey.of(subscriberMethod.getEventType());
         }
 
         @Override
-        void invokeSubscriberMethod(Object event) throws InvocationTargetException {
-            synchronized (this) {
-                super.invokeSubscriberMethod(event);
+        Mailbox newMailbox() {
+            return Mailbox.conflating(this, getBus().getExecutor(), key);
+        }
+    }
+
+    /**
+     * Subscriber of a method marked with {@link BatchEvents}. Events are collected in the subscriber's mailbox and
+     * handed to the method as a {@code List}, once {@link BatchEvents#maxSize()} events are pending or the oldest
+     * pending event has waited {@link BatchEvents#maxLingerMillis()}. Batches are delivered one at a time, in the
+     * order the events were posted.
+     */
+    static final class BatchSubscriber extends Subscriber {
+        private final int maxSize;
+        private final long maxLingerMillis;
+
+        BatchSubscriber(EventBus bus, Object target, SubscriberMethod subscriberMethod) {
+            super(bus, target, subscriberMethod);
+            this.maxSize = subscriberMethod.getBatchSize();
+            this.maxLingerMillis = subscriberMethod.getBatchLingerMillis();
+        }
+
+        @Override
+        void dispatchEvent(Object event) {
+            enqueue(event);
+        }
+
+        @Override
+        void deliver(Object event) {
+            enqueue(event);
+        }
+
+        @Override
+        void dispatchAll(List<Object> events) {
+            for (int i = 0; i < events.size(); i++)
+                enqueue(events.get(i));
+        }
+
+        @Override
+        void enqueue(Object event) {
+            Mailbox mailbox = mailbox();
+            int pending = mailbox.enqueue(event);
+            if (pending == 0)
+                return;
+            if (pending >= maxSize || maxLingerMillis == 0)
+                mailbox.schedule();
+            else if (pending == 1)
+                scheduleAfterLinger(mailbox);
+        }
+
+        /**
+         * Delivers up to {@link #maxSize} queued events as one batch. Events posted with
+         * {@link EventBus#postAsync(Object)} are unwrapped, and all of them fail if the batch does
+         */
+        @Override
+        void drain(Mailbox mailbox) {
+            List<Object> batch = new ArrayList<>(Math.min(maxSize, mailbox.size()));
+            List<TrackedEvent> tracked = null;
+            Object event;
+            while (batch.size() < maxSize && (event = mailbox.poll()) != null) {
+                if (event instanceof TrackedEvent) {
+                    if (tracked == null)
+                        tracked = new ArrayList<>();
+                    tracked.add((TrackedEvent) event);
+                    event = ((TrackedEvent) event).event;
+                }
+                batch.add(event);
+            }
+            if (batch.isEmpty())
+                return;
+            if (tracked == null) {
+                invokeAndReport(batch);
+                return;
             }
+
+            Throwable thrown;
+            try {
+                thrown = invokeAndReport(batch);
+            } catch (Error e) {
+                thrown = e;
+            }
+            for (int i = 0; i < tracked.size(); i++)
+                tracked.get(i).delivered(thrown);
+            if (thrown instanceof Error)
+                throw (Error) thrown;
+        }
+
+        @Override
+        void drainPending(Mailbox mailbox) {
+            if (mailbox.size() >= maxSize || maxLingerMillis == 0)
+                mailbox.schedule();
+            else
+                scheduleAfterLinger(mailbox);
+        }
+
+        /**
+         * Flushes the batch once it has lingered long enough. The shared scheduler thread only triggers the flush:
+         * on a direct executor, the batch would otherwise be delivered on that thread and hold up every other bus,
+         * so it is handed to {@link Executors#deferredExecutor()} instead
+         */
+        private void scheduleAfterLinger(Mailbox mailbox) {
+            Runnable flush = getBus().isDirectExecutor()
+                    ? () -> Executors.deferredExecutor().execute(mailbox::schedule)
+                    : mailbox::schedule;
+            Executors.scheduler().schedule(flush, maxLingerMillis, TimeUnit.MILLISECONDS);
         }
     }
 }
@@ -0,0 +1,30 @@
+package xyz.justblink.eventbus;
+
+import java.util.ServiceLoader;
+
+/**
+ * Subscriber methods declared by a single listener class, resolved at compile time so that registering instances
+ * of the class needs neither scanning it with reflection nor making its methods accessible.
+ *
+ * <p>Implementations are generated by the annotation processor of the {@code eventbus-processor} artifact, which
+ * only needs to be on the annotation processor path of the compiler. It writes one index for every class with
+ * {@link Subscribe} methods it can call directly and lists them in
+ * {@code META-INF/services/xyz.justblink.eventbus.SubscriberIndex}, where they are found with
+ * {@link ServiceLoader} the first time a listener is registered. Classes without an index, such as anonymous
+ * classes or classes compiled without the processor, are still scanned with reflection.</p>
+ *
+ * @author Kasun Piyumal
+ */
+public interface SubscriberIndex {
+
+    /**
+     * @return the listener class described by this index
+     */
+    Class<?> getListenerClass();
+
+    /**
+     * @return the subscriber methods declared by the listener class itself. Methods inherited from superclasses
+     * are described by the indexes of those classes
+     */
+    IndexedSubscriberMethod[] getSubscriberMethods();
+}
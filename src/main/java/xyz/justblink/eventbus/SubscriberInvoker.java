@@ -0,0 +1,21 @@
+package xyz.justblink.eventbus;
+
+/**
+ * Calls a single subscriber method on a target object. Instances are created once per subscriber method, by
+ * {@link Invokers} or by a generated {@link SubscriberIndex}, and shared by every {@link Subscriber} built on that
+ * method
+ *
+ * <p>Exceptions thrown by the subscriber method are propagated as-is, without being wrapped in an
+ * {@code InvocationTargetException}</p>
+ *
+ * @author Kasun Piyumal
+ */
+public interface SubscriberInvoker {
+
+    /**
+     * @param target Object owning the subscriber method. Ignored for static methods
+     * @param event Event to be passed as the only argument of the method
+     * @throws Throwable Anything thrown by the subscriber method
+     */
+    void invoke(Object target, Object event) throws Throwable;
+}
@@ -0,0 +1,52 @@
+package xyz.justblink.eventbus;
+
+/**
+ * Statistics of a subscriber method of a registered object, registered by {@link JmxInstrumentation} as
+ * {@code xyz.justblink.eventbus:type=Subscriber,bus=<identifier>,name=<class.method>,id=<n>}
+ *
+ * <p>Latencies are the time spent in the subscriber method, accurate to about 3%.</p>
+ *
+ * @author Kasun Piyumal
+ */
+public interface SubscriberMXBean {
+
+    /**
+     * @return class name of the registered object
+     */
+    String getSubscriberClass();
+
+    /**
+     * @return signature of the subscriber method
+     */
+    String getMethod();
+
+    /**
+     * @return number of times the method returned normally
+     */
+    long getDeliveredCount();
+
+    /**
+     * @return number of times the method threw an exception
+     */
+    long getExceptionCount();
+
+    /**
+     * @return number of events dropped because the subscriber's queue was full
+     */
+    long getDroppedCount();
+
+    /**
+     * @return number of events waiting in the subscriber's own queue
+     */
+    int getQueuedEvents();
+
+    double getMeanLatencyNanos();
+
+    long getMedianLatencyNanos();
+
+    long get99thPercentileLatencyNanos();
+
+    long get999thPercentileLatencyNanos();
+
+    long getMaxLatencyNanos();
+}
@@ -0,0 +1,328 @@
+package xyz.justblink.eventbus;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Everything the bus needs to know about a single {@link Subscribe} method, resolved once per listener class and
+ * shared by all {@link Subscriber}s created for instances of that class
+ *
+ * @author Kasun Piyumal
+ */
+final class SubscriberMethod {
+    private static final MethodType KEYS_FROM_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<?> declaringClass;
+    private final String name;
+    private final Class<?> parameterType;
+    private final Class<?> eventType;
+    private final SubscriberInvoker invoker;
+    private final boolean threadSafe;
+    private final int priority;
+    private final boolean batch;
+    private final int batchSize;
+    private final long batchLingerMillis;
+
+    /** Keys listed with {@link Subscribe#keys()}, or {@code null} */
+    private final Object[] keys;
+
+    /** Reads {@link Subscribe#keysFrom()} of a listener, or {@code null} */
+    private final MethodHandle keysFrom;
+
+    /** Whether the method only receives the latest pending event of each key, see {@link Conflate} */
+    private final boolean conflating;
+
+    /** Looked up on first use for methods described by a {@link SubscriberIndex} */
+    private volatile Method method;
+
+    /**
+     * @param method The subscriber method. Made accessible by this constructor
+     * @throws IllegalArgumentException if the method is marked with {@link BatchEvents} but does not take a
+     * {@code List} of events
+     */
+    SubscriberMethod(Method method) {
+        BatchEvents batchEvents = method.getAnnotation(BatchEvents.class);
+        this.method = method;
+        this.declaringClass = method.getDeclaringClass();
+        this.name = method.getName();
+        this.parameterType = method.getParameterTypes()[0];
+        this.eventType = batchEvents != null ? batchElementType(method) : parameterType;
+        method.setAccessible(true);
+        this.invoker = Invokers.create(method);
+        this.threadSafe = method.isAnnotationPresent(AcceptConcurrentEvents.class);
+        Subscribe subscribe = method.getAnnotation(Subscribe.class);
+        this.priority = subscribe.priority();
+        this.keys = subscribe.keys().length > 0 ? parseKeys(method, subscribe.keys()) : null;
+        this.keysFrom = subscribe.keysFrom().isEmpty() ? null : keysFrom(method, subscribe.keysFrom());
+        if (keys != null && keysFrom != null)
+            throw new IllegalArgumentException("Method " + method + " sets both keys and keysFrom of @Subscribe");
+        this.batch = batchEvents != null;
+        this.batchSize = batch ? batchEvents.maxSize() : 0;
+        this.batchLingerMillis = batch ? batchEvents.maxLingerMillis() : 0;
+        if (batch && batchSize < 1)
+            throw new IllegalArgumentException("maxSize of @BatchEvents must be at least 1 on method " + method);
+        if (batch && method.isAnnotationPresent(Conflate.class))
+            throw new IllegalArgumentException("Method " + method + " has both @Conflate and @BatchEvents annotations");
+        this.conflating = !batch && (method.isAnnotationPresent(Conflate.class) || conflates(eventType));
+    }
+
+    /**
+     * @param indexed The subscriber method as described by a generated {@link SubscriberIndex}, which is used as
+     *                is, without reflection
+     */
+    SubscriberMethod(IndexedSubscriberMethod indexed) {
+        this.declaringClass = indexed.declaringClass;
+        this.name = indexed.name;
+        this.parameterType = indexed.parameterType;
+        this.eventType = indexed.eventType;
+        this.invoker = indexed.invoker;
+        this.threadSafe = indexed.threadSafe;
+        this.priority = indexed.priority;
+        this.batch = indexed.batch;
+        this.batchSize = indexed.batchSize;
+        this.batchLingerMillis = indexed.batchLingerMillis;
+        this.keys = null;
+        this.keysFrom = null;
+        this.conflating = !batch && conflates(eventType);
+    }
+
+    /**
+     * Describes {@code method}, which takes any event, as a method subscribing to {@code eventType} only and
+     * accepting concurrent events. Used for the subscribers a {@link SocketBridge} registers for its peers
+     *
+     * @param method Method taking an {@code Object}
+     * @param eventType Subscribed event type
+     * @param invoker Calls the method
+     */
+    SubscriberMethod(Method method, Class<?> eventType, SubscriberInvoker invoker) {
+        this.method = method;
+        this.declaringClass = method.getDeclaringClass();
+        this.name = method.getName();
+        this.parameterType = method.getParameterTypes()[0];
+        this.eventType = eventType;
+        this.invoker = invoker;
+        this.threadSafe = true;
+        this.priority = 0;
+        this.batch = false;
+        this.batchSize = 0;
+        this.batchLingerMillis = 0;
+        this.keys = null;
+        this.keysFrom = null;
+        this.conflating = false;
+    }
+
+    private static boolean conflates(Class<?> eventType) {
+        return eventType.isAnnotationPresent(Conflate.class);
+    }
+
+    private Object[] parseKeys(Method method, String[] values) {
+        EventKey key = filterKey(method);
+        Object[] parsed = new Object[values.length];
+        for (int i = 0; i < values.length; i++)
+            parsed[i] = key.parse(values[i]);
+        return parsed;
+    }
+
+    /**
+     * Finds the field or no-argument method named {@code name} in the declaring class of {@code method} or its
+     * superclasses
+     */
+    private MethodHandle keysFrom(Method method, String name) {
+        filterKey(method);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Class<?> type = method.getDeclaringClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Method getter = type.getDeclaredMethod(name);
+                getter.setAccessible(true);
+                return lookup.unreflect(getter).asType(KEYS_FROM_TYPE);
+            } catch (NoSuchMethodException ignored) {
+                // Look for a field
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Can not read keysFrom of method " + method, e);
+            }
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return lookup.unreflectGetter(field).asType(KEYS_FROM_TYPE);
+            } catch (NoSuchFieldException ignored) {
+                // Look in the superclass
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Can not read keysFrom of method " + method, e);
+            }
+        }
+        throw new IllegalArgumentException(MessageFormat.format("Method {0} takes keys from \"{1}\", but {2} has " +
+                "no such field or method without arguments", method, name, method.getDeclaringClass().getName()));
+    }
+
+    private EventKey filterKey(Method method) {
+        EventKey key = EventKey.of(eventType);
+        if (key == null)
+            throw new IllegalArgumentException(MessageFormat.format("Method {0} filters events by key, but {1} " +
+                    "has no @FilterKey", method, eventType.getName()));
+        return key;
+    }
+
+    /**
+     * Resolves {@code E} of a batch subscriber method taking a {@code List<E>}
+     */
+    private static Class<?> batchElementType(Method method) {
+        if (method.getParameterTypes()[0].isAssignableFrom(List.class)) {
+            Type parameterType = method.getGenericParameterTypes()[0];
+            if (parameterType instanceof ParameterizedType) {
+                Type elementType = ((ParameterizedType) parameterType).getActualTypeArguments()[0];
+                if (elementType instanceof WildcardType)
+                    elementType = ((WildcardType) elementType).getUpperBounds()[0];
+                if (elementType instanceof ParameterizedType)
+                    elementType = ((ParameterizedType) elementType).getRawType();
+                if (elementType instanceof Class)
+                    return (Class<?>) elementType;
+            }
+        }
+        throw new IllegalArgumentException(MessageFormat.format("Method {0} has @BatchEvents annotation but " +
+                "does not take a List with a concrete element type, such as List<MyEvent>", method));
+    }
+
+    /**
+     * @return the subscriber method. Methods described by a {@link SubscriberIndex} are only looked up with
+     * reflection when this is called, which the bus does when reporting an exception or instrumenting subscribers
+     */
+    Method getMethod() {
+        Method current = method;
+        if (current == null) {
+            try {
+                current = declaringClass.getDeclaredMethod(name, parameterType);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("Subscriber index is out of date, " + declaringClass.getName()
+                        + " has no method " + name + '(' + parameterType.getName() + ')', e);
+            }
+            method = current;
+        }
+        return current;
+    }
+
+    /**
+     * @return the type of events this method subscribes to
+     */
+    Class<?> getEventType() {
+        return eventType;
+    }
+
+    SubscriberInvoker getInvoker() {
+        return invoker;
+    }
+
+    /**
+     * @return whether the method may be called from several threads at once, as allowed by
+     * {@link AcceptConcurrentEvents}
+     */
+    boolean isThreadSafe() {
+        return threadSafe;
+    }
+
+    /**
+     * @return the {@link Subscribe#priority()} of the method
+     */
+    int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return whether the method only receives events with certain values of their {@link FilterKey}
+     */
+    boolean isFiltered() {
+        return keys != null || keysFrom != null;
+    }
+
+    /**
+     * @param target Listener owning the method
+     * @return the values of the event's {@link FilterKey} which the method receives on {@code target}
+     * @throws IllegalArgumentException if {@link Subscribe#keysFrom()} of {@code target} is {@code null} or
+     * holds {@code null}
+     */
+    Object[] filterKeys(Object target) {
+        if (keys != null)
+            return keys;
+
+        Object value;
+        try {
+            value = (Object) keysFrom.invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Reading the keys of " + this + " failed", e);
+        }
+        Object[] targetKeys;
+        if (value instanceof Collection)
+            targetKeys = ((Collection<?>) value).toArray();
+        else if (value instanceof Object[])
+            targetKeys = ((Object[]) value).clone();
+        else if (value != null && value.getClass().isArray()) {
+            targetKeys = new Object[Array.getLength(value)];
+            for (int i = 0; i < targetKeys.length; i++)
+                targetKeys[i] = Array.get(value, i);
+        } else
+            targetKeys = new Object[]{value};
+        for (Object key : targetKeys) {
+            if (key == null)
+                throw new IllegalArgumentException("Keys of " + this + " on " + target + " include null");
+        }
+        return targetKeys;
+    }
+
+    /**
+     * @return whether the method receives events in batches, as requested by {@link BatchEvents}
+     */
+    boolean isBatch() {
+        return batch;
+    }
+
+    /**
+     * @return whether the method only receives the latest pending event of each key, as requested by
+     * {@link Conflate} on the method or the event class
+     */
+    boolean isConflating() {
+        return conflating;
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    long getBatchLingerMillis() {
+        return batchLingerMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return (declaringClass.hashCode() * 31 + name.hashCode()) * 31 + parameterType.hashCode();
+    }
+
+    /**
+     * Two instances are equal when they refer to the same method, whether they were found with reflection or in a
+     * {@link SubscriberIndex}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof SubscriberMethod) {
+            SubscriberMethod that = (SubscriberMethod) obj;
+            return declaringClass == that.declaringClass && name.equals(that.name)
+                    && parameterType == that.parameterType;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return declaringClass.getName() + '.' + name + '(' + parameterType.getName() + ')';
+    }
+}
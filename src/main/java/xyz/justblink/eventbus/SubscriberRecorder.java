@@ -0,0 +1,39 @@
+package xyz.justblink.eventbus;
+
+/**
+ * Receives measurements of a single subscriber method of a registered object, created by
+ * {@link EventBusInstrumentation#subscriberAdded(Object, java.lang.reflect.Method, java.util.function.IntSupplier)}
+ *
+ * <p>Methods are called on the delivering threads, which may be several at once.</p>
+ *
+ * @author Kasun Piyumal
+ */
+public interface SubscriberRecorder {
+
+    /**
+     * Called after the subscriber method returned normally
+     *
+     * @param latencyNanos Time spent in the subscriber method. For {@link BatchEvents} methods, this is the time
+     *                     taken by the whole batch
+     */
+    void delivered(long latencyNanos);
+
+    /**
+     * Called after the subscriber method threw an exception, before it is passed to the
+     * {@link SubscriberExceptionHandler}
+     *
+     * @param latencyNanos Time spent in the subscriber method
+     */
+    void failed(long latencyNanos);
+
+    /**
+     * Called for every event dropped because the subscriber's queue was full
+     */
+    void dropped();
+
+    /**
+     * Called when the subscriber is unregistered or the instrumentation is replaced. Nothing else is recorded
+     * afterwards, apart from deliveries already in progress
+     */
+    void removed();
+}
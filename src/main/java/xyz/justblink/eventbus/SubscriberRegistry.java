@@ -4,7 +4,11 @@ import java.lang.reflect.Method;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Manages subscribers of the particular {@link EventBus}
@@ -12,18 +16,93 @@ import java.util.concurrent.CopyOnWriteArraySet;
  * @author Kasun Piyumal
  */
 class SubscriberRegistry {
+    private static final Logger logger = Logger.getLogger(SubscriberRegistry.class.getName());
+
+    private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+
+    /**
+     * Returned by {@link #getAllSubscribers(Object)} when an event has filtered subscribers, none of which accepts
+     * its key. Such an event is not dead, it is just of no interest to anyone at the moment
+     */
+    static final Subscriber[] NO_MATCHING_SUBSCRIBERS = new Subscriber[0];
+
+    /** Highest {@link Subscribe#priority()} first. Sorting with it is stable, so ties keep their order */
+    private static final Comparator<Subscriber> BY_PRIORITY =
+            Comparator.comparingInt(Subscriber::getPriority).reversed();
+
+    /**
+     * Subscriber methods of each listener class, including the ones inherited from superclasses, indexed by
+     * event type.
+     *
+     * <p>Scanning a class for {@link Subscribe} methods is far more expensive than creating the subscribers, so
+     * it is only done the first time a class is seen. {@link ClassValue} keeps the entries with the classes
+     * themselves, so a listener class can still be unloaded once nothing else refers to it.</p>
+     *
+     * <p>Classes with a generated {@link SubscriberIndex} are not scanned at all, their methods are taken from
+     * the index.</p>
+     */
+    private static final ClassValue<Map<Class<?>, List<SubscriberMethod>>> subscriberMethods =
+            new ClassValue<Map<Class<?>, List<SubscriberMethod>>>() {
+                @Override
+                protected Map<Class<?>, List<SubscriberMethod>> computeValue(Class<?> type) {
+                    return findAllSubscriberMethods(type);
+                }
+            };
+
+    /**
+     * Each event class followed by all of its superclasses and the interfaces they implement. Events are
+     * delivered to subscribers of any of these types.
+     */
+    private static final ClassValue<Class<?>[]> flattenedHierarchy = new ClassValue<Class<?>[]>() {
+        @Override
+        protected Class<?>[] computeValue(Class<?> type) {
+            Set<Class<?>> types = new LinkedHashSet<>();
+            for (Class<?> currentClass = type; currentClass != null; currentClass = currentClass.getSuperclass()) {
+                types.add(currentClass);
+                addInterfaces(currentClass, types);
+            }
+            return types.toArray(new Class<?>[0]);
+        }
+    };
+
     /** The event bus this registry belongs to. */
     private final EventBus bus;
 
     /**
      * All registered subscribers, indexed by event type.
      *
-     * <p>The {@link CopyOnWriteArraySet} values make it easy and relatively lightweight to get an
-     * immutable snapshot of all current subscribers to an event without any locking.
-     * This doc stub copied from Google's
-     * <a href="https://github.com/google/guava/wiki/EventBusExplained">Guava EventBus</a>.
+     * <p>The {@link TypeSubscribers} values publish an immutable array snapshot of all current subscribers to an
+     * event, which can be handed to the {@link Dispatcher} as is, without any locking or copying. Snapshots are
+     * sorted by {@link Subscribe#priority()} when they are built, so dispatching never sorts.</p>
+     */
+    private final Map<Class<?>, TypeSubscribers> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribers which only receive events with certain keys, see {@link Subscribe#keys()}, indexed by event
+     * type. Each type hashes them by key, so a post only visits the subscribers of its own key
      */
-    private final Map<Class<?>, CopyOnWriteArraySet<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, FilteredSubscribers> filtered = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribers of each concrete event class posted so far, merged across its {@link #flattenedHierarchy}, so
+     * that a post costs a single lookup no matter how many supertypes have subscribers. Like the caches above, it
+     * is a {@link ClassValue}, which keeps the entries with the event classes, so posting events of many short
+     * lived classes does not keep them from being unloaded.
+     *
+     * <p>An entry remembers the snapshots it was merged from and is only used while they are still current, so
+     * registrations for one event type do not invalidate the entries of unrelated types. Registering the first
+     * subscriber of a type bumps {@link #generation} instead, as it adds a snapshot to the hierarchies of other
+     * types, and an entry is only used if it was merged in the current generation. An entry merged while such a
+     * registration races with it has an older generation, so it can not hide the new type.</p>
+     */
+    private final ClassValue<DispatchEntry> dispatchCache = new ClassValue<DispatchEntry>() {
+        @Override
+        protected DispatchEntry computeValue(Class<?> eventClass) {
+            return mergeSubscribers(eventClass);
+        }
+    };
+
+    private final AtomicInteger generation = new AtomicInteger();
 
     SubscriberRegistry(EventBus bus) {
         this.bus = bus;
@@ -40,10 +119,31 @@ class SubscriberRegistry {
         for (Map.Entry<Class<?>, Collection<Subscriber>> entry : listenerMethods.entrySet()) {
             Class<?> type = entry.getKey();
             Collection<Subscriber> methodsInListener = entry.getValue();
+            Collection<Subscriber> filteredMethods = takeFiltered(methodsInListener);
+
+            List<Subscriber> added = new ArrayList<>(methodsInListener.size());
+            if (!methodsInListener.isEmpty()) {
+                TypeSubscribers eventSubscribers = subscribers.get(type);
+                if (eventSubscribers == null) {
+                    eventSubscribers = subscribers.computeIfAbsent(type, aClass -> new TypeSubscribers());
+                    invalidateDispatchCache();
+                }
+                added.addAll(eventSubscribers.addAll(methodsInListener));
+            }
+            if (!filteredMethods.isEmpty()) {
+                FilteredSubscribers filteredSubscribers = filtered.get(type);
+                if (filteredSubscribers == null) {
+                    filteredSubscribers = filtered.computeIfAbsent(type, FilteredSubscribers::new);
+                    invalidateDispatchCache();
+                }
+                added.addAll(filteredSubscribers.addAll(filteredMethods));
+            }
 
-            Collection<Subscriber> eventSubscribers = subscribers.computeIfAbsent(type,
-                    aClass -> new CopyOnWriteArraySet<>());
-            eventSubscribers.addAll(methodsInListener);
+            EventBusInstrumentation instrumentation = bus.getInstrumentation();
+            if (instrumentation != null) {
+                for (Subscriber subscriber : added)
+                    subscriber.instrument(instrumentation);
+            }
         }
     }
 
@@ -57,13 +157,89 @@ class SubscriberRegistry {
         for (Map.Entry<Class<?>, Collection<Subscriber>> entry : listenerMethods.entrySet()) {
             Class<?> type = entry.getKey();
             Collection<Subscriber> listenerMethodsForType = entry.getValue();
+            Collection<Subscriber> filteredMethods = takeFiltered(listenerMethodsForType);
+
+            TypeSubscribers subscribers = this.subscribers.get(type);
 
-            CopyOnWriteArraySet<Subscriber> subscribers = this.subscribers.get(type);
+            if (subscribers != null && !listenerMethodsForType.isEmpty()) {
+                for (Subscriber removed : subscribers.removeAll(listenerMethodsForType))
+                    removed.instrument(null);
+            }
+
+            FilteredSubscribers filteredSubscribers = filtered.get(type);
+            if (filteredSubscribers != null && !filteredMethods.isEmpty()) {
+                for (Subscriber removed : filteredSubscribers.removeAll(filteredMethods))
+                    removed.instrument(null);
+            }
+        }
+    }
+
+    /**
+     * Registers a single subscriber which does not belong to a listener object, such as one forwarding events to
+     * the peer of a {@link SocketBridge}
+     *
+     * @param type Event type of the subscriber
+     * @param subscriber Subscriber to add. Must not be filtered
+     */
+    void register(Class<?> type, Subscriber subscriber) {
+        TypeSubscribers eventSubscribers = subscribers.get(type);
+        if (eventSubscribers == null) {
+            eventSubscribers = subscribers.computeIfAbsent(type, aClass -> new TypeSubscribers());
+            invalidateDispatchCache();
+        }
+        EventBusInstrumentation instrumentation = bus.getInstrumentation();
+        if (!eventSubscribers.addAll(Collections.singleton(subscriber)).isEmpty() && instrumentation != null)
+            subscriber.instrument(instrumentation);
+    }
+
+    /**
+     * Unregisters a subscriber added with {@link #register(Class, Subscriber)}
+     */
+    void unregister(Class<?> type, Subscriber subscriber) {
+        TypeSubscribers eventSubscribers = subscribers.get(type);
+        if (eventSubscribers != null) {
+            for (Subscriber removed : eventSubscribers.removeAll(Collections.singleton(subscriber)))
+                removed.instrument(null);
+        }
+    }
 
-            if (subscribers != null)
-                subscribers.removeAll(listenerMethodsForType);
+    /**
+     * Moves the filtered subscribers out of {@code subscribers}
+     *
+     * @return the filtered subscribers which were removed from {@code subscribers}
+     */
+    private static Collection<Subscriber> takeFiltered(Collection<Subscriber> subscribers) {
+        List<Subscriber> filtered = Collections.emptyList();
+        for (Iterator<Subscriber> iterator = subscribers.iterator(); iterator.hasNext(); ) {
+            Subscriber subscriber = iterator.next();
+            if (subscriber.isFiltered()) {
+                if (filtered.isEmpty())
+                    filtered = new ArrayList<>();
+                filtered.add(subscriber);
+                iterator.remove();
+            }
+        }
+        return filtered;
+    }
 
+    /**
+     * Replaces the recorders of all registered subscribers with ones from {@code instrumentation}
+     *
+     * @param instrumentation Instrumentation of the bus, or {@code null} to stop recording
+     */
+    void instrument(EventBusInstrumentation instrumentation) {
+        for (TypeSubscribers typeSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : typeSubscribers.snapshot())
+                subscriber.instrument(instrumentation);
         }
+        for (FilteredSubscribers filteredSubscribers : filtered.values()) {
+            for (Subscriber subscriber : filteredSubscribers.members())
+                subscriber.instrument(instrumentation);
+        }
+    }
+
+    private void invalidateDispatchCache() {
+        generation.incrementAndGet();
     }
 
     /**
@@ -73,10 +249,43 @@ class SubscriberRegistry {
      * @return all the subscriber methods wrapped in {@link Subscriber} and mapped to event type
      */
     private Map<Class<?>, Collection<Subscriber>> findAllSubscribers(Object listener) {
-        Map<Class<?>, Collection<Subscriber>> subscriberMap = new HashMap<>();
-        Class<?> currentClass = listener.getClass();
+        Map<Class<?>, List<SubscriberMethod>> methods = subscriberMethods.get(listener.getClass());
+        Map<Class<?>, Collection<Subscriber>> subscriberMap = new HashMap<>(methods.size() * 2);
+
+        for (Map.Entry<Class<?>, List<SubscriberMethod>> entry : methods.entrySet()) {
+            List<SubscriberMethod> methodsForType = entry.getValue();
+            Collection<Subscriber> subscribers = new ArrayList<>(methodsForType.size());
+            for (SubscriberMethod method : methodsForType)
+                subscribers.add(Subscriber.create(bus, listener, method));
+            subscriberMap.put(entry.getKey(), subscribers);
+        }
+
+        return subscriberMap;
+    }
+
+    /**
+     * Collects the subscriber methods of {@code type} and its superclasses, from the {@link SubscriberIndex} of
+     * each class if it has one, or by scanning the class otherwise
+     *
+     * @param type Listener class
+     * @return all the subscriber methods of {@code type} mapped to event type
+     */
+    private static Map<Class<?>, List<SubscriberMethod>> findAllSubscriberMethods(Class<?> type) {
+        Map<Class<?>, List<SubscriberMethod>> methodMap = new HashMap<>();
+        Class<?> currentClass = type;
 
         while (currentClass != null) {
+            SubscriberIndex index = Indexes.INDEXES.get(currentClass);
+            if (index != null) {
+                for (IndexedSubscriberMethod indexed : index.getSubscriberMethods()) {
+                    SubscriberMethod subscriberMethod = new SubscriberMethod(indexed);
+                    methodMap.computeIfAbsent(subscriberMethod.getEventType(), aClass -> new ArrayList<>())
+                            .add(subscriberMethod);
+                }
+                currentClass = currentClass.getSuperclass();
+                continue;
+            }
+
             for (Method method : currentClass.getDeclaredMethods()) {
                 if (method.isAnnotationPresent(Subscribe.class) && !method.isSynthetic()) {
                     if (method.getParameterCount() != 1) {
@@ -85,31 +294,403 @@ class SubscriberRegistry {
                                 method, method.getParameterCount()));
                     }
 
-                    Class<?> type = method.getParameterTypes()[0];
-                    Collection<Subscriber> subscribers = subscriberMap.computeIfAbsent(type, aClass -> new ArrayList<>());
-                    subscribers.add(Subscriber.create(bus, listener, method));
+                    SubscriberMethod subscriberMethod = new SubscriberMethod(method);
+                    methodMap.computeIfAbsent(subscriberMethod.getEventType(), aClass -> new ArrayList<>())
+                            .add(subscriberMethod);
                 }
             }
 
             currentClass = currentClass.getSuperclass();
         }
 
-        return subscriberMap;
+        return Collections.unmodifiableMap(methodMap);
     }
 
     /**
      * @param event Event which are going to be dispatched
-     * @return all subscriber methods for the {@code event}
+     * @return all subscriber methods for the {@code event}, including the filtered ones accepting its key, or
+     * {@link #NO_MATCHING_SUBSCRIBERS} if there are filtered subscribers but none accepts it. The array is shared
+     * and must not be modified
      */
-    Iterator<Subscriber> getAllSubscribers(Object event) {
-        CopyOnWriteArraySet<Subscriber> eventSubscribers = this.subscribers.get(event.getClass());
-        if (eventSubscribers != null) {
-            ArrayList<Subscriber> subscribers = new ArrayList<>(eventSubscribers.size());
-            subscribers.addAll(eventSubscribers);
-            return subscribers.iterator();
-        } else {
-            return Collections.emptyIterator();
+    Subscriber[] getAllSubscribers(Object event) {
+        DispatchEntry entry = dispatchEntry(event.getClass());
+        return entry.filtered.length == 0 ? entry.subscribers : matchSubscribers(event, entry);
+    }
+
+    /**
+     * @param eventClass Class of the event
+     * @return all subscriber methods for events of {@code eventClass}, including subscribers of its superclasses
+     * and interfaces, but not the filtered ones. The array is shared and must not be modified
+     */
+    Subscriber[] getSubscribers(Class<?> eventClass) {
+        return dispatchEntry(eventClass).subscribers;
+    }
+
+    /**
+     * @return whether events of {@code eventClass} have filtered subscribers, so their subscribers have to be
+     * looked up with {@link #getAllSubscribers(Object)} for each event
+     */
+    boolean hasFilteredSubscribers(Class<?> eventClass) {
+        return dispatchEntry(eventClass).filtered.length > 0;
+    }
+
+    /**
+     * @return whether events of {@code eventClass} have subscribers in this process, filtered or not, leaving out
+     * the {@linkplain Subscriber#isRemote() remote} ones
+     */
+    boolean hasLocalSubscribers(Class<?> eventClass) {
+        DispatchEntry entry = dispatchEntry(eventClass);
+        for (Subscriber subscriber : entry.subscribers) {
+            if (!subscriber.isRemote())
+                return true;
+        }
+        for (FilteredSubscribers filteredSubscribers : entry.filtered) {
+            if (filteredSubscribers.hasMembers())
+                return true;
         }
+        return false;
     }
 
+    private DispatchEntry dispatchEntry(Class<?> eventClass) {
+        DispatchEntry entry = dispatchCache.get(eventClass);
+        if (entry.generation == generation.get() && entry.isCurrent())
+            return entry;
+
+        dispatchCache.remove(eventClass);
+        return dispatchCache.get(eventClass);
+    }
+
+    /**
+     * Adds the filtered subscribers accepting the key of {@code event} to the unfiltered ones. Allocates nothing
+     * unless subscribers come from more than one source
+     */
+    private static Subscriber[] matchSubscribers(Object event, DispatchEntry entry) {
+        Subscriber[] matched = entry.subscribers;
+        boolean subscribed = matched.length > 0;
+        for (FilteredSubscribers filteredSubscribers : entry.filtered) {
+            subscribed |= filteredSubscribers.hasMembers();
+            Subscriber[] bucket = filteredSubscribers.get(event);
+            if (matched.length == 0) {
+                matched = bucket;
+            } else if (bucket.length > 0) {
+                Subscriber[] union = Arrays.copyOf(matched, matched.length + bucket.length);
+                System.arraycopy(bucket, 0, union, matched.length, bucket.length);
+                matched = sortByPriority(union);
+            }
+        }
+        return matched.length == 0 && subscribed ? NO_MATCHING_SUBSCRIBERS : matched;
+    }
+
+    private DispatchEntry mergeSubscribers(Class<?> eventClass) {
+        int currentGeneration = generation.get();
+        List<TypeSubscribers> sources = new ArrayList<>(2);
+        List<Subscriber[]> snapshots = new ArrayList<>(2);
+        List<FilteredSubscribers> filteredSources = new ArrayList<>(0);
+        Subscriber[] merged = NO_SUBSCRIBERS;
+        for (Class<?> type : flattenedHierarchy.get(eventClass)) {
+            FilteredSubscribers filteredSubscribers = filtered.get(type);
+            if (filteredSubscribers != null)
+                filteredSources.add(filteredSubscribers);
+
+            TypeSubscribers typeSubscribers = this.subscribers.get(type);
+            if (typeSubscribers == null)
+                continue;
+
+            Subscriber[] snapshot = typeSubscribers.snapshot();
+            sources.add(typeSubscribers);
+            snapshots.add(snapshot);
+            if (merged.length == 0) {
+                merged = snapshot;
+            } else if (snapshot.length > 0) {
+                Subscriber[] union = Arrays.copyOf(merged, merged.length + snapshot.length);
+                System.arraycopy(snapshot, 0, union, merged.length, snapshot.length);
+                merged = sortByPriority(union);
+            }
+        }
+        return new DispatchEntry(currentGeneration, sources.toArray(new TypeSubscribers[0]),
+                snapshots.toArray(new Subscriber[0][]), merged, filteredSources.toArray(new FilteredSubscribers[0]));
+    }
+
+    /**
+     * Sorts {@code subscribers} by priority, unless they already are
+     *
+     * @return {@code subscribers}
+     */
+    private static Subscriber[] sortByPriority(Subscriber[] subscribers) {
+        for (int i = 1; i < subscribers.length; i++) {
+            if (subscribers[i - 1].getPriority() < subscribers[i].getPriority()) {
+                Arrays.sort(subscribers, BY_PRIORITY);
+                break;
+            }
+        }
+        return subscribers;
+    }
+
+    private static void addInterfaces(Class<?> type, Set<Class<?>> types) {
+        for (Class<?> implemented : type.getInterfaces()) {
+            if (types.add(implemented))
+                addInterfaces(implemented, types);
+        }
+    }
+
+    /**
+     * Generated {@link SubscriberIndex}es on the class path of the thread registering the first listener, by
+     * listener class. An index which can not be loaded is skipped, so its class is scanned with reflection instead
+     */
+    private static final class Indexes {
+        static final Map<Class<?>, SubscriberIndex> INDEXES = load();
+
+        private static Map<Class<?>, SubscriberIndex> load() {
+            Map<Class<?>, SubscriberIndex> indexes = new HashMap<>();
+            Iterator<SubscriberIndex> iterator = ServiceLoader.load(SubscriberIndex.class).iterator();
+            while (true) {
+                try {
+                    if (!iterator.hasNext())
+                        break;
+                    SubscriberIndex index = iterator.next();
+                    indexes.put(index.getListenerClass(), index);
+                } catch (ServiceConfigurationError | LinkageError e) {
+                    logger.log(Level.WARNING, "Skipping a subscriber index which could not be loaded", e);
+                }
+            }
+            return indexes;
+        }
+    }
+
+    private static final class DispatchEntry {
+        private final int generation;
+        private final TypeSubscribers[] sources;
+        private final Subscriber[][] snapshots;
+        private final Subscriber[] subscribers;
+
+        /** Filtered subscribers of the hierarchy, matched against each event */
+        private final FilteredSubscribers[] filtered;
+
+        private DispatchEntry(int generation, TypeSubscribers[] sources, Subscriber[][] snapshots,
+                              Subscriber[] subscribers, FilteredSubscribers[] filtered) {
+            this.generation = generation;
+            this.sources = sources;
+            this.snapshots = snapshots;
+            this.subscribers = subscribers;
+            this.filtered = filtered;
+        }
+
+        /**
+         * @return whether every snapshot this entry was merged from is still the current one
+         */
+        boolean isCurrent() {
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i].snapshot() != snapshots[i])
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Filtered subscribers of a single event type, hashed by the keys they accept into a {@link TypeSubscribers}
+     * per key. A subscriber accepting several keys is in the set of each of them.
+     *
+     * <p>The keys of a subscriber are read when it is registered and remembered until it is unregistered, so
+     * changing the {@link Subscribe#keysFrom()} member of a registered listener has no effect. Sets are dropped
+     * once their last subscriber is unregistered.</p>
+     */
+    private static final class FilteredSubscribers {
+        private final EventKey key;
+
+        private final Map<Object, TypeSubscribers> byKey = new ConcurrentHashMap<>();
+
+        /** Keys each registered subscriber was added with. Guarded by this */
+        private final Map<Subscriber, Object[]> members = new HashMap<>();
+
+        private volatile boolean hasMembers;
+
+        FilteredSubscribers(Class<?> eventType) {
+            this.key = EventKey.of(eventType);
+        }
+
+        /**
+         * @return the subscribers accepting the key of {@code event}
+         */
+        Subscriber[] get(Object event) {
+            Object value = key.extract(event);
+            if (value == null)
+                return NO_SUBSCRIBERS;
+            TypeSubscribers keySubscribers = byKey.get(value);
+            return keySubscribers == null ? NO_SUBSCRIBERS : keySubscribers.snapshot();
+        }
+
+        boolean hasMembers() {
+            return hasMembers;
+        }
+
+        synchronized List<Subscriber> members() {
+            return new ArrayList<>(members.keySet());
+        }
+
+        /**
+         * @return the subscribers which were added, leaving out the ones already present
+         */
+        synchronized List<Subscriber> addAll(Collection<Subscriber> toAdd) {
+            List<Subscriber> added = new ArrayList<>(toAdd.size());
+            for (Subscriber subscriber : toAdd) {
+                if (members.containsKey(subscriber))
+                    continue;
+                Object[] keys = subscriber.filterKeys();
+                members.put(subscriber, keys);
+                for (Object value : keys) {
+                    byKey.computeIfAbsent(value, k -> new TypeSubscribers())
+                            .addAll(Collections.singleton(subscriber));
+                }
+                added.add(subscriber);
+            }
+            hasMembers = !members.isEmpty();
+            return added;
+        }
+
+        /**
+         * @return the registered subscribers which were removed, which are equal to but not necessarily the same
+         * as the ones in {@code toRemove}
+         */
+        synchronized List<Subscriber> removeAll(Collection<Subscriber> toRemove) {
+            List<Subscriber> removed = new ArrayList<>(toRemove.size());
+            for (Subscriber subscriber : toRemove) {
+                Object[] keys = members.remove(subscriber);
+                if (keys == null)
+                    continue;
+                Subscriber registered = null;
+                for (Object value : keys) {
+                    TypeSubscribers keySubscribers = byKey.get(value);
+                    for (Subscriber member : keySubscribers.removeAll(Collections.singleton(subscriber)))
+                        registered = member;
+                    if (keySubscribers.isEmpty())
+                        byKey.remove(value);
+                }
+                removed.add(registered != null ? registered : subscriber);
+            }
+            hasMembers = !members.isEmpty();
+            return removed;
+        }
+    }
+
+    /**
+     * Set of subscribers of a single event type, published as an immutable array snapshot.
+     *
+     * <p>Registering and unregistering add to or remove from a skip list kept in snapshot order, and bump
+     * {@link #version}, which takes time logarithmic in the number of subscribers. They copy nothing. The first
+     * read after a change finds the snapshot older than the version and copies the skip list into a new one
+     * without taking the monitor of the registrations, so a burst of changes costs a single copy and reads
+     * between changes only cost two volatile reads. Rebuilds racing with each other keep the snapshot of the
+     * latest version. The snapshot is sorted by priority, and subscribers with the same priority are in the order
+     * they were added.</p>
+     */
+    private static final class TypeSubscribers {
+        private static final AtomicReferenceFieldUpdater<TypeSubscribers, Snapshot> SNAPSHOT =
+                AtomicReferenceFieldUpdater.newUpdater(TypeSubscribers.class, Snapshot.class, "snapshot");
+
+        /** Position of each member in {@link #ordered}. Guarded by this */
+        private final Map<Subscriber, Member> members = new HashMap<>();
+
+        /** Members in snapshot order, written under the monitor and read without it */
+        private final ConcurrentSkipListMap<Member, Subscriber> ordered = new ConcurrentSkipListMap<>();
+
+        /** Guarded by this */
+        private long nextOrder;
+
+        /** Bumped after every change of {@link #ordered}, under the monitor */
+        private volatile int version;
+
+        private volatile Snapshot snapshot = new Snapshot(0, NO_SUBSCRIBERS);
+
+        Subscriber[] snapshot() {
+            Snapshot current = snapshot;
+            int currentVersion = version;
+            return current.version == currentVersion ? current.subscribers : publish(current, currentVersion);
+        }
+
+        /**
+         * Publishes a snapshot of {@code version} or later, unless another read already did
+         */
+        private Subscriber[] publish(Snapshot current, int version) {
+            Snapshot next = null;
+            while (current.version - version < 0) {
+                if (next == null) {
+                    // Every change up to version happened before it was read, so the copy includes them
+                    next = new Snapshot(version, ordered.isEmpty() ? NO_SUBSCRIBERS
+                            : ordered.values().toArray(new Subscriber[0]));
+                }
+                if (SNAPSHOT.compareAndSet(this, current, next))
+                    return next.subscribers;
+                current = snapshot;
+            }
+            return current.subscribers;
+        }
+
+        synchronized boolean isEmpty() {
+            return members.isEmpty();
+        }
+
+        /**
+         * @return the subscribers which were added, leaving out the ones already present
+         */
+        synchronized List<Subscriber> addAll(Collection<Subscriber> toAdd) {
+            List<Subscriber> added = new ArrayList<>(toAdd.size());
+            for (Subscriber subscriber : toAdd) {
+                if (members.containsKey(subscriber))
+                    continue;
+                Member member = new Member(subscriber.getPriority(), nextOrder++);
+                members.put(subscriber, member);
+                ordered.put(member, subscriber);
+                added.add(subscriber);
+            }
+            if (!added.isEmpty())
+                version++;
+            return added;
+        }
+
+        /**
+         * @return the registered subscribers which were removed, which are equal to but not necessarily the same
+         * as the ones in {@code toRemove}
+         */
+        synchronized List<Subscriber> removeAll(Collection<Subscriber> toRemove) {
+            List<Subscriber> removed = new ArrayList<>(toRemove.size());
+            for (Subscriber subscriber : toRemove) {
+                Member member = members.remove(subscriber);
+                if (member != null)
+                    removed.add(ordered.remove(member));
+            }
+            if (!removed.isEmpty())
+                version++;
+            return removed;
+        }
+
+        private static final class Snapshot {
+            final int version;
+            final Subscriber[] subscribers;
+
+            Snapshot(int version, Subscriber[] subscribers) {
+                this.version = version;
+                this.subscribers = subscribers;
+            }
+        }
+
+        /**
+         * Place of a subscriber in the snapshot: highest priority first, then in the order they were added
+         */
+        private static final class Member implements Comparable<Member> {
+            final int priority;
+            final long order;
+
+            Member(int priority, long order) {
+                this.priority = priority;
+                this.order = order;
+            }
+
+            @Override
+            public int compareTo(Member other) {
+                int byPriority = Integer.compare(other.priority, priority);
+                return byPriority != 0 ? byPriority : Long.compare(order, other.order);
+            }
+        }
+    }
 }
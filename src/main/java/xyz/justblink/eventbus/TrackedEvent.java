@@ -0,0 +1,67 @@
+package xyz.justblink.eventbus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * An event posted with {@link EventBus#postAsync(Object)}, together with the future returned for it
+ *
+ * <p>Dispatchers, queues and mailboxes carry it in place of the event, and each {@link Subscriber} unwraps it and
+ * counts its delivery down, so tracking an event costs this single object. The future completes on the thread
+ * delivering the event to the last subscriber.</p>
+ *
+ * @author Kasun Piyumal
+ */
+final class TrackedEvent extends CompletableFuture<Void> {
+    private static final AtomicIntegerFieldUpdater<TrackedEvent> PENDING =
+            AtomicIntegerFieldUpdater.newUpdater(TrackedEvent.class, "pending");
+    private static final AtomicReferenceFieldUpdater<TrackedEvent, DeliveryFailedException> FAILURE =
+            AtomicReferenceFieldUpdater.newUpdater(TrackedEvent.class, DeliveryFailedException.class, "failure");
+
+    final Object event;
+
+    /** Subscribers which have not handled the event yet */
+    private volatile int pending;
+
+    /** Created by the first failing subscriber, which is its cause. Later failures are suppressed by it */
+    private volatile DeliveryFailedException failure;
+
+    /**
+     * @param event The posted event
+     * @param subscribers Number of subscribers the event is dispatched to, at least 1
+     */
+    TrackedEvent(Object event, int subscribers) {
+        this.event = event;
+        this.pending = subscribers;
+    }
+
+    /**
+     * @return the posted event if {@code event} is tracked, or else {@code event} itself
+     */
+    static Object unwrap(Object event) {
+        return event instanceof TrackedEvent ? ((TrackedEvent) event).event : event;
+    }
+
+    /**
+     * Counts down the delivery to one subscriber, completing the future after the last one
+     *
+     * @param thrown What the subscriber threw, or {@code null} if it handled the event
+     */
+    void delivered(Throwable thrown) {
+        if (thrown != null) {
+            DeliveryFailedException current = failure;
+            if (current == null && !FAILURE.compareAndSet(this, null, new DeliveryFailedException(event, thrown)))
+                current = failure;
+            if (current != null)
+                current.addSuppressed(thrown);
+        }
+        if (PENDING.decrementAndGet(this) == 0) {
+            DeliveryFailedException current = failure;
+            if (current == null)
+                complete(null);
+            else
+                completeExceptionally(current);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package xyz.justblink.eventbus;
+
+/**
+ * How an {@link AsyncEventBus} created with {@link AsyncEventBus#AsyncEventBus(String, VirtualThreadMode)} uses
+ * virtual threads, which need Java 21 or later
+ *
+ * <p>Virtual threads suit subscribers making blocking calls, such as JDBC or file I/O. A blocked virtual thread
+ * gives its carrier thread to other virtual threads, so a few slow subscribers do not starve the others the way
+ * they would on a fixed thread pool.</p>
+ *
+ * @author Kasun Piyumal
+ */
+public enum VirtualThreadMode {
+    /**
+     * Every delivery to a subscriber runs in a virtual thread of its own, so a subscriber with
+     * {@link AcceptConcurrentEvents} may handle any number of events at once. Subscribers without it still
+     * receive one event at a time, from a virtual thread which delivers every event reaching them while it runs
+     */
+    PER_DELIVERY,
+
+    /**
+     * Events are queued in a mailbox per subscriber, drained by at most one virtual thread at a time, as with
+     * {@link Dispatcher#perSubscriberDispatcher()}. Each subscriber receives events one at a time and in the order
+     * they were posted, and a blocking subscriber only holds up its own events
+     */
+    PER_SUBSCRIBER
+}
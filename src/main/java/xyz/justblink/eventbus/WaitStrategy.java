@@ -0,0 +1,193 @@
+package xyz.justblink.eventbus;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides what the consumer threads of a {@link RingBufferEventBus} do while they wait for the next event. It
+ * trades latency against CPU usage, from {@linkplain #busySpin() busy spinning}, which reacts fastest but keeps a
+ * core busy all the time, to {@linkplain #blocking() blocking}, which uses no CPU while idle but has to wake the
+ * consumer up through the scheduler
+ *
+ * <p>Each bus needs its own instance, so create a new one for every bus.</p>
+ *
+ * @author Kasun Piyumal
+ */
+public abstract class WaitStrategy {
+
+    /**
+     * Returns a strategy that checks for new events in a tight loop. Gives the lowest latency, but each consumer
+     * thread uses a whole core even when the bus is idle. Use only with fewer consumers than free cores
+     *
+     * @return a new busy spin strategy
+     */
+    public static WaitStrategy busySpin() {
+        return new BusySpinWaitStrategy();
+    }
+
+    /**
+     * Returns a strategy that spins for a while and then yields the CPU to other threads between checks. A good
+     * compromise when there are spare cores but they may be needed by other threads
+     *
+     * @return a new yielding strategy
+     */
+    public static WaitStrategy yielding() {
+        return new YieldingWaitStrategy();
+    }
+
+    /**
+     * Returns a strategy that spins, then yields and finally parks the consumer for {@code parkNanos} between
+     * checks. Uses little CPU while idle, at the cost of the park duration (plus timer slack) in latency
+     *
+     * @param parkNanos Time to park between checks once spinning and yielding did not find an event
+     * @return a new parking strategy
+     */
+    public static WaitStrategy parking(long parkNanos) {
+        return new ParkingWaitStrategy(parkNanos);
+    }
+
+    /**
+     * Returns a {@linkplain #parking(long) parking} strategy which parks for 100 microseconds
+     *
+     * @return a new parking strategy
+     */
+    public static WaitStrategy parking() {
+        return parking(TimeUnit.MICROSECONDS.toNanos(100));
+    }
+
+    /**
+     * Returns a strategy that blocks consumers on a condition signalled by producers. Uses no CPU while idle, but
+     * producers have to signal sleeping consumers, which makes it the slowest strategy under load
+     *
+     * @return a new blocking strategy
+     */
+    public static WaitStrategy blocking() {
+        return new BlockingWaitStrategy();
+    }
+
+    /**
+     * Waits until {@code sequence} is published in {@code ring} or the ring is halted
+     *
+     * @param ring Ring buffer the consumer reads from
+     * @param sequence Sequence the consumer wants to process next
+     * @throws InterruptedException if the consumer thread is interrupted while waiting
+     */
+    abstract void waitFor(RingBuffer ring, long sequence) throws InterruptedException;
+
+    /**
+     * @return whether producers have to call {@link #signalAll()} after publishing
+     */
+    boolean isSignalling() {
+        return false;
+    }
+
+    /**
+     * Wakes up all consumers waiting in {@link #waitFor(RingBuffer, long)}. Only called when
+     * {@link #isSignalling()}
+     */
+    void signalAll() {
+    }
+
+    private static final class BusySpinWaitStrategy extends WaitStrategy {
+        @Override
+        void waitFor(RingBuffer ring, long sequence) {
+            while (!ring.isPublished(sequence) && !ring.isHalted()) {
+                // spin
+            }
+        }
+    }
+
+    private static final class YieldingWaitStrategy extends WaitStrategy {
+        private static final int SPIN_TRIES = 100;
+
+        @Override
+        void waitFor(RingBuffer ring, long sequence) {
+            int counter = SPIN_TRIES;
+            while (!ring.isPublished(sequence) && !ring.isHalted()) {
+                if (counter > 0)
+                    --counter;
+                else
+                    Thread.yield();
+            }
+        }
+    }
+
+    private static final class ParkingWaitStrategy extends WaitStrategy {
+        private static final int SPIN_TRIES = 100;
+        private static final int YIELD_TRIES = 100;
+
+        private final long parkNanos;
+
+        private ParkingWaitStrategy(long parkNanos) {
+            this.parkNanos = parkNanos;
+        }
+
+        @Override
+        void waitFor(RingBuffer ring, long sequence) throws InterruptedException {
+            int counter = SPIN_TRIES + YIELD_TRIES;
+            while (!ring.isPublished(sequence) && !ring.isHalted()) {
+                if (counter > YIELD_TRIES) {
+                    --counter;
+                } else if (counter > 0) {
+                    --counter;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(parkNanos);
+                    if (Thread.interrupted())
+                        throw new InterruptedException();
+                }
+            }
+        }
+    }
+
+    private static final class BlockingWaitStrategy extends WaitStrategy {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition published = lock.newCondition();
+
+        /**
+         * Consumers register here before checking the ring a last time, and producers check it after a volatile
+         * publish, so one of the two always sees the other and no wake up is lost
+         */
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        @Override
+        void waitFor(RingBuffer ring, long sequence) throws InterruptedException {
+            if (ring.isPublished(sequence))
+                return;
+
+            lock.lock();
+            try {
+                waiters.incrementAndGet();
+                try {
+                    while (!ring.isPublished(sequence) && !ring.isHalted())
+                        published.await();
+                } finally {
+                    waiters.decrementAndGet();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        boolean isSignalling() {
+            return true;
+        }
+
+        @Override
+        void signalAll() {
+            if (waiters.get() == 0)
+                return;
+
+            lock.lock();
+            try {
+                published.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that posting to a bus with subscribers does not allocate once the bus is warmed up
+ */
+public class AllocationTest {
+    private static final int POSTS = 200_000;
+
+    /** Allowance for the measurement itself, far less than a single allocation per post */
+    private static final long TOLERANCE_BYTES = 16 * 1024;
+
+    public static class Event {
+    }
+
+    public static class Counter {
+        long count;
+
+        @Subscribe
+        public void onEvent(Event event) {
+            count++;
+        }
+    }
+
+    @Test
+    public void immediateDispatcherDoesNotAllocate() {
+        assertPostDoesNotAllocate(new EventBus(Dispatcher.immediateDispatcher()));
+    }
+
+    @Test
+    public void perThreadDispatcherDoesNotAllocate() {
+        assertPostDoesNotAllocate(new EventBus());
+    }
+
+    private static void assertPostDoesNotAllocate(EventBus bus) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported());
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        Counter counter = new Counter();
+        Event event = new Event();
+        bus.register(counter);
+
+        for (int i = 0; i < POSTS; i++)
+            bus.post(event);
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < POSTS; i++)
+            bus.post(event);
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(2 * POSTS, counter.count);
+        assertTrue(allocated < TOLERANCE_BYTES, "posting allocated " + allocated + " bytes");
+    }
+}
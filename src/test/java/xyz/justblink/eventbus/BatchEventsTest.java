@@ -0,0 +1,132 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchEventsTest {
+
+    static class BatchListener {
+        final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch received;
+
+        BatchListener(int expected) {
+            received = new CountDownLatch(expected);
+        }
+
+        @Subscribe
+        @BatchEvents(maxSize = 100, maxLingerMillis = 20)
+        public void onEvents(List<Integer> events) {
+            batches.add(new ArrayList<>(events));
+            for (int i = 0; i < events.size(); i++)
+                received.countDown();
+        }
+    }
+
+    static class ImmediateBatchListener {
+        final List<List<Integer>> batches = new ArrayList<>();
+
+        @Subscribe
+        @BatchEvents(maxSize = 10)
+        public void onEvents(List<? extends Integer> events) {
+            batches.add(new ArrayList<>(events));
+        }
+    }
+
+    static class InvalidBatchListener {
+        @Subscribe
+        @BatchEvents
+        public void onEvents(Integer event) {
+        }
+    }
+
+    @Test
+    public void collectsEventsIntoOrderedBatches() throws InterruptedException {
+        ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(4);
+        try {
+            EventBus bus = new AsyncEventBus(executor);
+            BatchListener listener = new BatchListener(1_000);
+            bus.register(listener);
+
+            for (int i = 0; i < 1_000; i++)
+                bus.post(i);
+            assertTrue(listener.received.await(10, TimeUnit.SECONDS));
+
+            int expected = 0;
+            for (List<Integer> batch : listener.batches) {
+                assertTrue(batch.size() <= 100);
+                for (Integer event : batch)
+                    assertEquals(expected++, (int) event);
+            }
+            assertTrue(listener.batches.size() < 1_000, "events were not batched");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void flushesLingeringBatch() throws InterruptedException {
+        EventBus bus = new EventBus();
+        BatchListener listener = new BatchListener(5);
+        bus.register(listener);
+
+        for (int i = 0; i < 5; i++)
+            bus.post(i);
+
+        assertTrue(listener.received.await(10, TimeUnit.SECONDS));
+        assertEquals(1, listener.batches.size());
+    }
+
+    @Test
+    public void slowLingeringBatchDoesNotHoldUpOtherBuses() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EventBus slowBus = new EventBus("slow");
+        slowBus.register(new Object() {
+            @Subscribe
+            @BatchEvents(maxLingerMillis = 1)
+            public void onEvents(List<Integer> events) throws InterruptedException {
+                blocked.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+        });
+        EventBus bus = new EventBus("fast");
+        BatchListener listener = new BatchListener(1);
+        bus.register(listener);
+
+        try {
+            slowBus.post(0);
+            assertTrue(blocked.await(10, TimeUnit.SECONDS));
+            bus.post(1);
+            assertTrue(listener.received.await(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void deliversRightAwayWithoutLinger() {
+        EventBus bus = new EventBus();
+        ImmediateBatchListener listener = new ImmediateBatchListener();
+        bus.register(listener);
+
+        bus.post(1);
+        bus.post(2);
+
+        assertEquals(2, listener.batches.size());
+    }
+
+    @Test
+    public void rejectsBatchMethodWithoutList() {
+        assertThrows(IllegalArgumentException.class, () -> new EventBus().register(new InvalidBatchListener()));
+    }
+}
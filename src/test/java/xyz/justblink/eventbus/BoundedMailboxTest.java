@@ -0,0 +1,187 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedMailboxTest {
+    private ExecutorService executor;
+
+    /**
+     * Holds the first event until released, so that the following events pile up in its mailbox
+     */
+    static class SlowListener {
+        final List<Integer> events = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Subscribe
+        public void onEvent(Integer event) throws InterruptedException {
+            started.countDown();
+            release.await();
+            events.add(event);
+        }
+    }
+
+    static class OverflowListener {
+        final List<OverflowEvent> overflows = Collections.synchronizedList(new ArrayList<>());
+
+        @Subscribe
+        public void onOverflow(OverflowEvent overflow) {
+            overflows.add(overflow);
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        executor = java.util.concurrent.Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Posts 0, waits until the listener is stuck on it, then posts 1 to 4 into a mailbox of capacity 2
+     */
+    private SlowListener overflow(EventBus bus) throws InterruptedException {
+        SlowListener listener = new SlowListener();
+        bus.register(listener);
+        bus.post(0);
+        assertTrue(listener.started.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i <= 4; i++)
+            bus.post(i);
+        return listener;
+    }
+
+    private static void awaitEvents(SlowListener listener, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (listener.events.size() < count && System.nanoTime() < deadline)
+            Thread.sleep(1);
+        assertEquals(count, listener.events.size());
+    }
+
+    @Test
+    public void dropsNewestEvents() throws InterruptedException {
+        EventBus bus = new AsyncEventBus("bounded", executor, 2, OverflowPolicy.DROP_NEWEST);
+        OverflowListener overflows = new OverflowListener();
+        bus.register(overflows);
+
+        SlowListener listener = overflow(bus);
+        listener.release.countDown();
+        awaitEvents(listener, 3);
+
+        assertEquals(Arrays.asList(0, 1, 2), listener.events);
+        assertEquals(2, overflows.overflows.size());
+        OverflowEvent last = overflows.overflows.get(1);
+        assertEquals(4, last.getEvent());
+        assertEquals(listener, last.getSubscriber());
+        assertEquals(OverflowPolicy.DROP_NEWEST, last.getPolicy());
+        assertEquals(2, last.getDroppedCount());
+    }
+
+    @Test
+    public void dropsOldestEvents() throws InterruptedException {
+        EventBus bus = new AsyncEventBus("bounded", executor, 2, OverflowPolicy.DROP_OLDEST);
+        SlowListener listener = overflow(bus);
+        listener.release.countDown();
+        awaitEvents(listener, 3);
+
+        assertEquals(Arrays.asList(0, 3, 4), listener.events);
+    }
+
+    @Test
+    public void coalescesEqualEvents() throws InterruptedException {
+        EventBus bus = new AsyncEventBus("bounded", executor, 2, OverflowPolicy.COALESCE);
+        SlowListener listener = overflow(bus);
+        bus.post(4);
+        listener.release.countDown();
+        awaitEvents(listener, 3);
+
+        assertEquals(Arrays.asList(0, 3, 4), listener.events);
+    }
+
+    @Test
+    public void rejectsEventsWhenFull() throws InterruptedException {
+        EventBus bus = new AsyncEventBus("bounded", executor, 2, OverflowPolicy.FAIL);
+        SlowListener listener = new SlowListener();
+        bus.register(listener);
+        bus.post(0);
+        assertTrue(listener.started.await(10, TimeUnit.SECONDS));
+        bus.post(1);
+        bus.post(2);
+
+        assertThrows(EventRejectedException.class, () -> bus.post(3));
+        listener.release.countDown();
+        awaitEvents(listener, 3);
+    }
+
+    @Test
+    public void rejectedEventsReachNoSubscriber() {
+        List<Runnable> tasks = new ArrayList<>();
+        EventBus bus = new AsyncEventBus("bounded", tasks::add, 2, OverflowPolicy.FAIL);
+        List<Object> integers = new ArrayList<>();
+        List<Object> numbers = new ArrayList<>();
+        bus.register(new Object() {
+            @Subscribe
+            public void onInteger(Integer event) {
+                integers.add(event);
+            }
+        });
+        bus.register(new Object() {
+            @Subscribe
+            public void onNumber(Number event) {
+                numbers.add(event);
+            }
+        });
+
+        // Only the mailbox of the Number subscriber is full
+        bus.post(1L);
+        bus.post(2L);
+        EventRejectedException thrown = assertThrows(EventRejectedException.class, () -> bus.post(3));
+        assertTrue(thrown.getMessage().contains("rejected event: 3"), thrown.getMessage());
+        while (!tasks.isEmpty())
+            tasks.remove(0).run();
+
+        assertEquals(Collections.emptyList(), integers);
+        assertEquals(Arrays.asList(1L, 2L), numbers);
+    }
+
+    @Test
+    public void blocksPublisherUntilSpaceIsAvailable() throws InterruptedException {
+        EventBus bus = new AsyncEventBus("bounded", executor, 2, OverflowPolicy.BLOCK);
+        SlowListener listener = new SlowListener();
+        bus.register(listener);
+        bus.post(0);
+        assertTrue(listener.started.await(10, TimeUnit.SECONDS));
+        bus.post(1);
+        bus.post(2);
+
+        CountDownLatch posted = new CountDownLatch(1);
+        Thread publisher = new Thread(() -> {
+            bus.post(3);
+            posted.countDown();
+        });
+        publisher.start();
+        assertFalse(posted.await(100, TimeUnit.MILLISECONDS), "publisher did not block on a full mailbox");
+
+        listener.release.countDown();
+        assertTrue(posted.await(10, TimeUnit.SECONDS));
+        awaitEvents(listener, 4);
+        assertEquals(Arrays.asList(0, 1, 2, 3), listener.events);
+    }
+}
@@ -0,0 +1,214 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyModeTest {
+    private static final int THREADS = 8;
+    private static final int EVENTS_PER_THREAD = 20_000;
+
+    static class ConcurrentListener {
+        final CountDownLatch bothInside = new CountDownLatch(2);
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onEvent(String event) throws InterruptedException {
+            bothInside.countDown();
+            bothInside.await(10, TimeUnit.SECONDS);
+        }
+    }
+
+    static class SerializedListener {
+        final AtomicInteger inside = new AtomicInteger();
+        final AtomicInteger received = new AtomicInteger();
+        volatile boolean overlapped;
+
+        @Subscribe
+        public void onEvent(Integer event) {
+            if (inside.incrementAndGet() != 1)
+                overlapped = true;
+            received.incrementAndGet();
+            inside.decrementAndGet();
+        }
+    }
+
+    static class BlockingListener {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger received = new AtomicInteger();
+
+        @Subscribe
+        public void onEvent(String event) throws InterruptedException {
+            started.countDown();
+            release.await();
+            received.incrementAndGet();
+        }
+    }
+
+    static class RecordingListener {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+
+        @Subscribe
+        public void onEvent(Integer event) throws InterruptedException {
+            started.countDown();
+            release.await();
+            threads.add(Thread.currentThread());
+        }
+    }
+
+    private static void awaitCount(AtomicInteger count, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (count.get() < expected && System.nanoTime() < deadline)
+            Thread.sleep(1);
+        assertEquals(expected, count.get());
+    }
+
+    @Test
+    public void concurrentSubscriberIsNotLocked() throws InterruptedException {
+        EventBus bus = new EventBus();
+        ConcurrentListener listener = new ConcurrentListener();
+        bus.register(listener);
+
+        Thread other = new Thread(() -> bus.post("other"));
+        other.start();
+        bus.post("main");
+        other.join();
+
+        assertEquals(0, listener.bothInside.getCount(), "subscriber was not entered by both threads at once");
+    }
+
+    @Test
+    public void serializedSubscriberIsEnteredByOneThreadAtATime() throws InterruptedException {
+        EventBus bus = new EventBus();
+        SerializedListener listener = new SerializedListener();
+        bus.register(listener);
+
+        Thread[] publishers = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            publishers[t] = new Thread(() -> {
+                for (int i = 0; i < EVENTS_PER_THREAD; i++)
+                    bus.post(i);
+            });
+            publishers[t].start();
+        }
+        for (Thread publisher : publishers)
+            publisher.join();
+
+        awaitCount(listener.received, THREADS * EVENTS_PER_THREAD);
+        assertFalse(listener.overlapped, "subscriber was called concurrently");
+    }
+
+    @Test
+    public void drainingPublisherHandsOffAfterCombineLimit() throws InterruptedException {
+        EventBus bus = new EventBus();
+        RecordingListener listener = new RecordingListener();
+        bus.register(listener);
+
+        Thread first = new Thread(() -> bus.post(0));
+        first.start();
+        assertTrue(listener.started.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i < Mailbox.INLINE_CAPACITY; i++)
+            bus.post(i);
+
+        listener.release.countDown();
+        first.join();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (listener.threads.size() < Mailbox.INLINE_CAPACITY && System.nanoTime() < deadline)
+            Thread.sleep(1);
+
+        assertEquals(Mailbox.INLINE_CAPACITY, listener.threads.size());
+        assertEquals(first, listener.threads.get(0));
+        Thread last = listener.threads.get(Mailbox.INLINE_CAPACITY - 1);
+        assertTrue(last.getName().startsWith("eventbus-deferred-"), last.getName());
+    }
+
+    @Test
+    public void publisherWaitsForRoomInAFullQueue() throws InterruptedException {
+        EventBus bus = new EventBus();
+        RecordingListener listener = new RecordingListener();
+        bus.register(listener);
+
+        Thread first = new Thread(() -> bus.post(0));
+        first.start();
+        assertTrue(listener.started.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < Mailbox.INLINE_CAPACITY; i++)
+            bus.post(i);
+        Thread waiting = new Thread(() -> bus.post(-1));
+        waiting.start();
+        waiting.join(50);
+        assertTrue(waiting.isAlive(), "publisher did not wait for room");
+
+        listener.release.countDown();
+        waiting.join(10_000);
+        assertFalse(waiting.isAlive());
+        first.join();
+    }
+
+    @Test
+    public void waitingPublishersSleepUntilRoomIsHandedToThem() throws InterruptedException {
+        EventBus bus = new EventBus();
+        RecordingListener listener = new RecordingListener();
+        bus.register(listener);
+
+        Thread first = new Thread(() -> bus.post(0));
+        first.start();
+        assertTrue(listener.started.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < Mailbox.INLINE_CAPACITY; i++)
+            bus.post(i);
+        List<Thread> waiting = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread publisher = new Thread(() -> bus.post(-1));
+            publisher.start();
+            waiting.add(publisher);
+        }
+        for (Thread publisher : waiting) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (publisher.getState() != Thread.State.WAITING && System.nanoTime() < deadline)
+                Thread.sleep(1);
+            // Blocked until woken, rather than polling with timed parks
+            assertEquals(Thread.State.WAITING, publisher.getState());
+        }
+
+        listener.release.countDown();
+        for (Thread publisher : waiting) {
+            publisher.join(10_000);
+            assertFalse(publisher.isAlive());
+        }
+        first.join();
+        // The rest may be handed off past the combine limit, so it can still be on its way
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (listener.threads.size() < Mailbox.INLINE_CAPACITY + 5 && System.nanoTime() < deadline)
+            Thread.sleep(1);
+        assertEquals(Mailbox.INLINE_CAPACITY + 5, listener.threads.size());
+    }
+
+    @Test
+    public void busySubscriberDoesNotBlockOtherPublishers() throws InterruptedException {
+        EventBus bus = new EventBus();
+        BlockingListener listener = new BlockingListener();
+        bus.register(listener);
+
+        Thread first = new Thread(() -> bus.post("first"));
+        first.start();
+        assertTrue(listener.started.await(10, TimeUnit.SECONDS));
+
+        bus.post("second");
+        assertEquals(0, listener.received.get());
+
+        listener.release.countDown();
+        first.join();
+        assertEquals(2, listener.received.get());
+    }
+}
@@ -0,0 +1,192 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConflationTest {
+
+    static class Quote {
+        @FilterKey
+        final String symbol;
+        final int price;
+
+        Quote(String symbol, int price) {
+            this.symbol = symbol;
+            this.price = price;
+        }
+
+        @Override
+        public String toString() {
+            return symbol + '=' + price;
+        }
+    }
+
+    static class SpecialQuote extends Quote {
+        SpecialQuote(String symbol, int price) {
+            super(symbol, price);
+        }
+
+        @Override
+        public String toString() {
+            return "special " + super.toString();
+        }
+    }
+
+    @Conflate
+    static class Status {
+        final String state;
+
+        Status(String state) {
+            this.state = state;
+        }
+    }
+
+    static class QuoteListener {
+        final List<String> quotes = new ArrayList<>();
+
+        @Subscribe
+        @Conflate
+        public void onQuote(Quote quote) {
+            quotes.add(quote.toString());
+        }
+    }
+
+    static class StatusListener {
+        final List<String> states = new ArrayList<>();
+
+        @Subscribe
+        public void onStatus(Status status) {
+            states.add(status.state);
+        }
+    }
+
+    static class ReentrantListener {
+        final List<String> quotes = new ArrayList<>();
+        EventBus bus;
+
+        @Subscribe
+        @Conflate
+        public void onQuote(Quote quote) {
+            quotes.add(quote.toString());
+            if (quote.price == 1) {
+                bus.post(new Quote("A", 2));
+                bus.post(new Quote("A", 3));
+            }
+        }
+    }
+
+    static class ConflatedBatchListener {
+        @Subscribe
+        @Conflate
+        @BatchEvents
+        public void onQuotes(List<Quote> quotes) {
+        }
+    }
+
+    private static void runAll(List<Runnable> tasks) {
+        while (!tasks.isEmpty())
+            tasks.remove(0).run();
+    }
+
+    @Test
+    public void keepsTheLatestPendingEventOfEachKey() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        EventBus bus = new AsyncEventBus("conflating", executor);
+        QuoteListener listener = new QuoteListener();
+        bus.register(listener);
+
+        bus.post(new Quote("A", 1));
+        bus.post(new Quote("B", 1));
+        bus.post(new Quote("A", 2));
+        bus.post(new Quote("A", 3));
+        bus.post(new Quote("C", 1));
+        bus.post(new Quote("B", 2));
+        assertEquals(1, tasks.size());
+        runAll(tasks);
+
+        assertEquals(Arrays.asList("A=3", "B=2", "C=1"), listener.quotes);
+    }
+
+    @Test
+    public void conflatesEventsWithoutKeyByClass() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        EventBus bus = new AsyncEventBus("conflating", executor);
+        QuoteListener listener = new QuoteListener();
+        bus.register(listener);
+
+        bus.post(new Quote(null, 1));
+        bus.post(new SpecialQuote(null, 1));
+        bus.post(new Quote("A", 1));
+        bus.post(new Quote(null, 2));
+        bus.post(new SpecialQuote(null, 2));
+        runAll(tasks);
+
+        assertEquals(Arrays.asList("null=2", "special null=2", "A=1"), listener.quotes);
+    }
+
+    @Test
+    public void conflatesEventClassesByClass() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        EventBus bus = new AsyncEventBus("conflating", executor, 1, OverflowPolicy.FAIL);
+        StatusListener listener = new StatusListener();
+        bus.register(listener);
+
+        bus.post(new Status("starting"));
+        bus.post(new Status("running"));
+        bus.post(new Status("stopping"));
+        runAll(tasks);
+        bus.post(new Status("stopped"));
+        runAll(tasks);
+
+        assertEquals(Arrays.asList("stopping", "stopped"), listener.states);
+    }
+
+    @Test
+    public void conflatesEventsPostedWhileTheSubscriberIsBusy() {
+        EventBus bus = new EventBus(Dispatcher.immediateDispatcher());
+        ReentrantListener listener = new ReentrantListener();
+        listener.bus = bus;
+        bus.register(listener);
+
+        bus.post(new Quote("A", 1));
+
+        assertEquals(Arrays.asList("A=1", "A=3"), listener.quotes);
+    }
+
+    @Test
+    public void completesReplacedEvents() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        EventBus bus = new AsyncEventBus("conflating", executor, Dispatcher.perSubscriberDispatcher());
+        QuoteListener listener = new QuoteListener();
+        bus.register(listener);
+
+        CompletableFuture<Void> replaced = bus.postAsync(new Quote("A", 1));
+        CompletableFuture<Void> latest = bus.postAsync(new Quote("A", 2));
+        assertTrue(replaced.isDone() && !replaced.isCompletedExceptionally());
+        assertFalse(latest.isDone());
+        runAll(tasks);
+
+        assertTrue(latest.isDone());
+        assertEquals(Arrays.asList("A=2"), listener.quotes);
+    }
+
+    @Test
+    public void rejectsConflatedBatches() {
+        EventBus bus = new EventBus();
+        assertThrows(IllegalArgumentException.class, () -> bus.register(new ConflatedBatchListener()));
+    }
+}
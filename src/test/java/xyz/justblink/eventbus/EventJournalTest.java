@@ -0,0 +1,199 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventJournalTest {
+    private Path directory;
+    private EventCodecs codecs;
+
+    public static class Order {
+        final long id;
+        final String symbol;
+
+        Order(long id, String symbol) {
+            this.id = id;
+            this.symbol = symbol;
+        }
+    }
+
+    static class OrderCodec implements EventCodec<Order> {
+        @Override
+        public void encode(Order event, ByteBuffer buffer) {
+            buffer.putLong(event.id);
+            byte[] symbol = event.symbol.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+            buffer.putInt(symbol.length);
+            buffer.put(symbol);
+        }
+
+        @Override
+        public Order decode(ByteBuffer buffer) {
+            long id = buffer.getLong();
+            byte[] symbol = new byte[buffer.getInt()];
+            buffer.get(symbol);
+            return new Order(id, new String(symbol, java.nio.charset.StandardCharsets.UTF_8));
+        }
+    }
+
+    static class OrderListener {
+        final List<Long> ids = new ArrayList<>();
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onOrder(Order order) {
+            ids.add(order.id);
+        }
+    }
+
+    private static void runAll(List<Runnable> tasks) {
+        while (!tasks.isEmpty())
+            tasks.remove(0).run();
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal");
+        codecs = new EventCodecs();
+        codecs.register(1, Order.class, new OrderCodec());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+                Files.delete(file);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void cleanRestartReplaysNothing() throws IOException {
+        try (EventJournal journal = new EventJournal(directory, codecs, 256, 0)) {
+            EventBus bus = new EventBus(Dispatcher.journaled(journal, Dispatcher.immediateDispatcher()));
+            bus.register(new OrderListener());
+            for (long id = 0; id < 100; id++)
+                bus.post(new Order(id, "SYM" + id));
+            bus.post("not journaled");
+            assertEquals(1, segments().stream().filter(file -> file.toString().endsWith(".segment")).count(),
+                    "delivered segments were kept");
+        }
+        assertEquals(0, segments().size());
+
+        try (EventJournal journal = new EventJournal(directory, codecs, 256, 0)) {
+            assertEquals(0, journal.replay(new EventBus()));
+        }
+    }
+
+    @Test
+    public void crashReplaysOnlyTheUndeliveredTail() throws IOException {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        // Never closed, as if the process died
+        EventJournal crashed = new EventJournal(directory, codecs, 256, 0);
+        EventBus crashedBus = new AsyncEventBus("crashed", executor,
+                Dispatcher.journaled(crashed, Dispatcher.immediateDispatcher()));
+        OrderListener delivered = new OrderListener();
+        crashedBus.register(delivered);
+        for (long id = 0; id < 100; id++)
+            crashedBus.post(new Order(id, "SYM" + id));
+        for (int i = 0; i < 60; i++)
+            tasks.remove(0).run();
+        assertEquals(60, delivered.ids.size());
+        assertFalse(Files.exists(directory.resolve(String.format("%016d.segment", 0))),
+                "delivered segment was kept");
+
+        try (EventJournal journal = new EventJournal(directory, codecs, 256, 0)) {
+            EventBus bus = new EventBus(Dispatcher.journaled(journal, Dispatcher.immediateDispatcher()));
+            OrderListener listener = new OrderListener();
+            bus.register(listener);
+
+            assertEquals(40, journal.replay(bus));
+            for (int i = 0; i < 40; i++)
+                assertEquals(60 + i, (long) listener.ids.get(i));
+            assertEquals(0, journal.replay(bus));
+        }
+        // Replayed events were not journaled again, and were acknowledged once delivered
+        assertEquals(0, segments().size());
+    }
+
+    @Test
+    public void replaysEventsDeliveredAfterClose() throws IOException {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        try (EventJournal journal = new EventJournal(directory, codecs, 256, 0)) {
+            EventBus bus = new AsyncEventBus("closing", executor,
+                    Dispatcher.journaled(journal, Dispatcher.immediateDispatcher()));
+            bus.register(new OrderListener());
+            for (long id = 0; id < 10; id++)
+                bus.post(new Order(id, "SYM" + id));
+            runAll(tasks.subList(0, 5));
+        }
+        runAll(tasks);
+
+        try (EventJournal journal = new EventJournal(directory, codecs, 256, 0)) {
+            EventBus bus = new EventBus();
+            OrderListener listener = new OrderListener();
+            bus.register(listener);
+
+            assertEquals(5, journal.replay(bus));
+            assertEquals(5, (long) listener.ids.get(0));
+        }
+    }
+
+    @Test
+    public void stopsAtTornRecord() throws IOException {
+        try (EventJournal journal = new EventJournal(directory, codecs, 4096, 0)) {
+            for (long id = 0; id < 3; id++)
+                journal.append(new Order(id, "SYM"));
+        }
+
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Corrupts the symbol of the second record, which starts after a 12 byte header and 15 bytes of event
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), 27 + 12 + 12);
+        }
+
+        try (EventJournal journal = new EventJournal(directory, codecs, 4096, 0)) {
+            EventBus bus = new EventBus();
+            OrderListener listener = new OrderListener();
+            bus.register(listener);
+
+            assertEquals(1, journal.replay(bus));
+            assertEquals(0, (long) listener.ids.get(0));
+        }
+    }
+
+    @Test
+    public void rejectsEventsLargerThanASegment() throws IOException {
+        try (EventJournal journal = new EventJournal(directory, codecs, 64, 0)) {
+            assertFalse(journal.append("no codec"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> journal.append(new Order(1, new String(new char[100]).replace('\0', 'x'))));
+            assertTrue(journal.append(new Order(1, "SYM")));
+        }
+    }
+}
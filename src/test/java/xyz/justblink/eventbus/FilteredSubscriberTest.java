@@ -0,0 +1,209 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FilteredSubscriberTest {
+
+    enum Side {
+        BUY, SELL
+    }
+
+    static class Trade {
+        @FilterKey
+        final String symbol;
+        final Side side;
+
+        Trade(String symbol, Side side) {
+            this.symbol = symbol;
+            this.side = side;
+        }
+
+        @Override
+        public String toString() {
+            return symbol + ' ' + side;
+        }
+    }
+
+    static class LargeTrade extends Trade {
+        LargeTrade(String symbol) {
+            super(symbol, Side.BUY);
+        }
+    }
+
+    static class Order {
+        private final Side side;
+
+        Order(Side side) {
+            this.side = side;
+        }
+
+        @FilterKey
+        Side getSide() {
+            return side;
+        }
+    }
+
+    static class Quote {
+        @FilterKey
+        int venue;
+
+        Quote(int venue) {
+            this.venue = venue;
+        }
+    }
+
+    static class Listener {
+        final List<Object> events = new ArrayList<>();
+
+        @Subscribe(keys = {"AAPL", "MSFT"}, priority = 1)
+        public void onTrade(Trade trade) {
+            events.add("keyed:" + trade);
+        }
+
+        @Subscribe
+        public void onAnyTrade(Trade trade) {
+            events.add("any:" + trade);
+        }
+    }
+
+    static class SymbolListener {
+        final Set<String> symbols;
+        final List<Trade> trades = new ArrayList<>();
+
+        SymbolListener(String... symbols) {
+            this.symbols = new HashSet<>(Arrays.asList(symbols));
+        }
+
+        @Subscribe(keysFrom = "symbols")
+        public void onTrade(Trade trade) {
+            trades.add(trade);
+        }
+    }
+
+    static class ParsedKeyListener {
+        final List<Object> events = new ArrayList<>();
+
+        @Subscribe(keys = "SELL")
+        public void onOrder(Order order) {
+            events.add(order.getSide());
+        }
+
+        @Subscribe(keys = {"2", "3"})
+        public void onQuote(Quote quote) {
+            events.add(quote.venue);
+        }
+    }
+
+    static class DeadEventListener {
+        final List<Object> events = new ArrayList<>();
+
+        @Subscribe
+        public void onDeadEvent(DeadEvent event) {
+            events.add(event.getEvent());
+        }
+    }
+
+    static class UnkeyedListener {
+        @Subscribe(keys = "a")
+        public void onString(String event) {
+        }
+    }
+
+    static class BothListener {
+        final String symbol = "AAPL";
+
+        @Subscribe(keys = "AAPL", keysFrom = "symbol")
+        public void onTrade(Trade trade) {
+        }
+    }
+
+    @Test
+    public void deliversOnlyEventsWithListedKeys() {
+        EventBus bus = new EventBus();
+        Listener listener = new Listener();
+        bus.register(listener);
+
+        bus.post(new Trade("AAPL", Side.BUY));
+        bus.post(new Trade("GOOG", Side.BUY));
+        bus.post(new LargeTrade("MSFT"));
+
+        assertEquals(Arrays.asList("keyed:AAPL BUY", "any:AAPL BUY", "any:GOOG BUY", "keyed:MSFT BUY",
+                "any:MSFT BUY"), listener.events);
+    }
+
+    @Test
+    public void readsTheKeysOfEachListener() {
+        EventBus bus = new EventBus();
+        SymbolListener apple = new SymbolListener("AAPL");
+        SymbolListener both = new SymbolListener("AAPL", "MSFT");
+        bus.register(apple);
+        bus.register(both);
+
+        bus.postAll(Arrays.asList(new Trade("AAPL", Side.BUY), new Trade("MSFT", Side.SELL),
+                new Trade("GOOG", Side.BUY)));
+
+        assertEquals(1, apple.trades.size());
+        assertEquals("AAPL", apple.trades.get(0).symbol);
+        assertEquals(2, both.trades.size());
+
+        bus.unregister(both);
+        bus.post(new Trade("MSFT", Side.BUY));
+        bus.post(new Trade("AAPL", Side.SELL));
+
+        assertEquals(2, apple.trades.size());
+        assertEquals(2, both.trades.size());
+    }
+
+    @Test
+    public void convertsListedKeysToTheKeyType() {
+        EventBus bus = new EventBus();
+        ParsedKeyListener listener = new ParsedKeyListener();
+        bus.register(listener);
+
+        bus.post(new Order(Side.BUY));
+        bus.post(new Order(Side.SELL));
+        bus.post(new Quote(1));
+        bus.post(new Quote(3));
+
+        assertEquals(Arrays.asList(Side.SELL, 3), listener.events);
+    }
+
+    @Test
+    public void eventsTurnedDownByFiltersAreNotDead() {
+        EventBus bus = new EventBus();
+        DeadEventListener deadEvents = new DeadEventListener();
+        bus.register(deadEvents);
+        SymbolListener listener = new SymbolListener("AAPL");
+        bus.register(listener);
+
+        Trade ignored = new Trade("GOOG", Side.BUY);
+        bus.post(ignored);
+        bus.postAll(Collections.singletonList(ignored));
+        assertEquals(Collections.emptyList(), deadEvents.events);
+
+        bus.unregister(listener);
+        bus.post(ignored);
+        assertEquals(Collections.singletonList(ignored), deadEvents.events);
+    }
+
+    @Test
+    public void rejectsFiltersWithoutAKey() {
+        EventBus bus = new EventBus();
+
+        IllegalArgumentException unkeyed = assertThrows(IllegalArgumentException.class,
+                () -> bus.register(new UnkeyedListener()));
+        assertTrue(unkeyed.getMessage().contains("has no @FilterKey"), unkeyed.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> bus.register(new BothListener()));
+    }
+}
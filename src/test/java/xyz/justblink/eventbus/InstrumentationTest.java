@@ -0,0 +1,100 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InstrumentationTest {
+
+    static class Listener {
+        @Subscribe
+        public void onString(String event) {
+            if (event.equals("fail"))
+                throw new IllegalStateException(event);
+        }
+    }
+
+    @Test
+    public void exposesStatisticsOverJmx() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        EventBus bus = new EventBus("instrumented");
+        Listener listener = new Listener();
+        bus.register(listener);
+        bus.setInstrumentation(new JmxInstrumentation(server));
+
+        bus.post("first");
+        bus.post("second");
+        bus.post("fail");
+        bus.post(42);
+
+        ObjectName busName = new ObjectName("xyz.justblink.eventbus:type=EventBus,name=\"instrumented\"");
+        assertEquals(4L, server.getAttribute(busName, "PostedCount"));
+        assertEquals(1L, server.getAttribute(busName, "DeadEventCount"));
+        assertEquals(1L, server.getAttribute(busName, "ExceptionCount"));
+        assertEquals(1, server.getAttribute(busName, "SubscriberCount"));
+
+        Set<ObjectName> subscriberNames = server.queryNames(
+                new ObjectName("xyz.justblink.eventbus:type=Subscriber,*"), null);
+        assertEquals(1, subscriberNames.size());
+        ObjectName subscriberName = subscriberNames.iterator().next();
+        assertEquals(2L, server.getAttribute(subscriberName, "DeliveredCount"));
+        assertEquals(1L, server.getAttribute(subscriberName, "ExceptionCount"));
+        assertTrue((Long) server.getAttribute(subscriberName, "MaxLatencyNanos") > 0);
+
+        bus.unregister(listener);
+        assertTrue(server.queryNames(new ObjectName("xyz.justblink.eventbus:type=Subscriber,*"), null).isEmpty());
+        bus.setInstrumentation(null);
+        assertTrue(server.queryNames(new ObjectName("xyz.justblink.eventbus:*"), null).isEmpty());
+    }
+
+    @Test
+    public void countsPostsByEventType() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        EventBus bus = new EventBus("types");
+        bus.register(new Listener());
+        bus.setInstrumentation(new JmxInstrumentation(server));
+
+        bus.post("event");
+        bus.post("event");
+        bus.post(1);
+
+        EventBusMXBean stats = JMX.newMXBeanProxy(server,
+                new ObjectName("xyz.justblink.eventbus:type=EventBus,name=\"types\""), EventBusMXBean.class);
+        Map<String, Long> counts = stats.getPostedCountByEventType();
+        assertEquals(2L, (long) counts.get(String.class.getName()));
+        assertEquals(1L, (long) counts.get(Integer.class.getName()));
+        assertEquals(2, counts.size());
+    }
+
+    @Test
+    public void latencyHistogramIsAccurate() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++)
+            histogram.record(i * 1_000);
+
+        assertEquals(100_000, histogram.count());
+        assertEquals(100_000_000, histogram.max());
+        assertWithin(50_000_000, histogram.percentile(50));
+        assertWithin(99_000_000, histogram.percentile(99));
+        assertWithin(99_900_000, histogram.percentile(99.9));
+        assertWithin(1_000, histogram.percentile(0));
+
+        for (int index = 0; index < 1888; index++) {
+            long value = LatencyHistogram.highestEquivalentValue(index);
+            assertEquals(index, LatencyHistogram.index(value));
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestEquivalentValue(LatencyHistogram.index(Long.MAX_VALUE)));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 32, "expected about " + expected + " but was " + actual);
+    }
+}
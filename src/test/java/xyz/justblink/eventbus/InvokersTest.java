@@ -0,0 +1,74 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InvokersTest {
+
+    public static class PublicListener {
+        final List<Object> events = new ArrayList<>();
+
+        public void on(String event) {
+            events.add(event);
+        }
+
+        public void fail(String event) {
+            throw new IllegalStateException(event);
+        }
+    }
+
+    static class HiddenListener {
+        static final List<Object> STATIC_EVENTS = new ArrayList<>();
+        final List<Object> events = new ArrayList<>();
+
+        private void on(String event) {
+            events.add(event);
+        }
+
+        static void onStatic(String event) {
+            STATIC_EVENTS.add(event);
+        }
+    }
+
+    private static Method method(Class<?> type, String name) throws NoSuchMethodException {
+        Method method = type.getDeclaredMethod(name, String.class);
+        method.setAccessible(true);
+        return method;
+    }
+
+    @Test
+    public void invokesPublicMethod() throws Throwable {
+        PublicListener listener = new PublicListener();
+        SubscriberInvoker invoker = Invokers.create(method(PublicListener.class, "on"));
+        invoker.invoke(listener, "a");
+        assertEquals(1, listener.events.size());
+        assertTrue(invoker.getClass().getName().contains("$$Lambda"), "expected a spun lambda invoker");
+    }
+
+    @Test
+    public void invokesPrivateAndStaticMethods() throws Throwable {
+        HiddenListener listener = new HiddenListener();
+        Invokers.create(method(HiddenListener.class, "on")).invoke(listener, "a");
+        Invokers.create(method(HiddenListener.class, "onStatic")).invoke(null, "b");
+        assertEquals(1, listener.events.size());
+        assertEquals(1, HiddenListener.STATIC_EVENTS.size());
+    }
+
+    @Test
+    public void propagatesExceptionsUnwrapped() throws NoSuchMethodException {
+        Method method = method(PublicListener.class, "fail");
+        for (SubscriberInvoker invoker : new SubscriberInvoker[]{Invokers.create(method), Invokers.reflective(method)}) {
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> invoker.invoke(new PublicListener(), "boom"));
+            assertSame("boom", e.getMessage());
+        }
+    }
+}
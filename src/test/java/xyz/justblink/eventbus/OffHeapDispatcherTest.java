@@ -0,0 +1,134 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffHeapDispatcherTest {
+
+    static class Tick {
+        long sequence;
+        double price;
+        boolean last;
+
+        Tick() {
+        }
+
+        Tick(long sequence) {
+            this.sequence = sequence;
+            this.price = sequence / 2.0;
+        }
+    }
+
+    static class Listener {
+        final List<Object> events = new ArrayList<>();
+        final CountDownLatch received;
+
+        Listener(int expected) {
+            received = new CountDownLatch(expected);
+        }
+
+        @Subscribe
+        public void onTick(Tick tick) {
+            events.add(tick);
+            received.countDown();
+        }
+
+        @Subscribe
+        public void onString(String event) {
+            events.add(event);
+            received.countDown();
+        }
+    }
+
+    private static EventCodecs codecs() {
+        EventCodecs codecs = new EventCodecs();
+        codecs.register(1, Tick.class);
+        return codecs;
+    }
+
+    @Test
+    public void deliversEncodedAndOnHeapEventsInPostOrder() throws InterruptedException {
+        ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(4);
+        try {
+            // Segments holding a handful of ticks, so that the queue runs through many of them
+            EventBus bus = new AsyncEventBus("offHeap", executor, Dispatcher.offHeapDispatcher(codecs(), 64));
+            Listener listener = new Listener(10_000);
+            bus.register(listener);
+
+            Tick posted = new Tick(0);
+            bus.post(posted);
+            for (int i = 1; i < 10_000; i++)
+                bus.post(i % 7 == 0 ? (Object) String.valueOf(i) : new Tick(i));
+
+            assertTrue(listener.received.await(10, TimeUnit.SECONDS));
+            assertNotSame(posted, listener.events.get(0), "encoded events are delivered as decoded copies");
+            for (int i = 0; i < 10_000; i++) {
+                Object event = listener.events.get(i);
+                if (i % 7 == 0 && i > 0) {
+                    assertEquals(String.valueOf(i), event);
+                } else {
+                    Tick tick = (Tick) event;
+                    assertEquals(i, tick.sequence);
+                    assertEquals(i / 2.0, tick.price);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void keepsEventsQueuedUntilTheExecutorRuns() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        Dispatcher dispatcher = Dispatcher.offHeapDispatcher(codecs());
+        EventBus bus = new AsyncEventBus("offHeap", executor, dispatcher);
+        Listener first = new Listener(0);
+        Listener second = new Listener(0);
+        bus.register(first);
+        bus.register(second);
+
+        for (int i = 0; i < 5_000; i++)
+            bus.post(new Tick(i));
+
+        assertEquals(5_000, dispatcher.queuedEvents());
+        assertEquals(1, tasks.size(), "a single drain task is scheduled");
+
+        while (!tasks.isEmpty())
+            tasks.remove(0).run();
+
+        assertEquals(0, dispatcher.queuedEvents());
+        assertEquals(5_000, first.events.size());
+        assertEquals(5_000, second.events.size());
+        assertEquals(4_999, ((Tick) second.events.get(4_999)).sequence);
+    }
+
+    @Test
+    public void drainsEventsPostedBySubscribersOnADirectExecutor() {
+        EventBus bus = new EventBus(Dispatcher.offHeapDispatcher(codecs()));
+        List<Long> sequences = new ArrayList<>();
+        bus.register(new Object() {
+            @Subscribe
+            public void onTick(Tick tick) {
+                sequences.add(tick.sequence);
+                if (tick.sequence < 3)
+                    bus.post(new Tick(tick.sequence + 1));
+            }
+        });
+
+        bus.post(new Tick(0));
+
+        assertEquals(4, sequences.size());
+        assertEquals(3L, (long) sequences.get(3));
+    }
+}
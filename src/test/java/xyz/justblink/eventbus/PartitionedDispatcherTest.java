@@ -0,0 +1,173 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PartitionedDispatcherTest {
+    private static final int KEYS = 64;
+    private static final int EVENTS_PER_KEY = 500;
+
+    static class Order {
+        @FilterKey
+        final Integer account;
+        final int sequence;
+
+        Order(Integer account, int sequence) {
+            this.account = account;
+            this.sequence = sequence;
+        }
+    }
+
+    static class OrderListener {
+        final Map<Integer, List<Integer>> sequences = new ConcurrentHashMap<>();
+        final Map<Integer, AtomicInteger> inside = new ConcurrentHashMap<>();
+        final CountDownLatch done = new CountDownLatch(KEYS * EVENTS_PER_KEY);
+        volatile boolean overlapped;
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onOrder(Order order) {
+            AtomicInteger current = inside.computeIfAbsent(order.account, k -> new AtomicInteger());
+            if (current.incrementAndGet() != 1)
+                overlapped = true;
+            List<Integer> accountSequences = sequences.computeIfAbsent(order.account, k -> new ArrayList<>());
+            synchronized (accountSequences) {
+                accountSequences.add(order.sequence);
+            }
+            current.decrementAndGet();
+            done.countDown();
+        }
+    }
+
+    static class BlockingListener {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch otherDelivered = new CountDownLatch(1);
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onOrder(Order order) throws InterruptedException {
+            if (order.account == 0) {
+                blocked.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            } else {
+                otherDelivered.countDown();
+            }
+        }
+    }
+
+    static class StringListener {
+        final List<String> events = new ArrayList<>();
+        EventBus bus;
+
+        @Subscribe
+        public void onString(String event) {
+            events.add(event);
+            if (event.equals("first"))
+                bus.post("nested");
+        }
+    }
+
+    private static void runAll(List<Runnable> tasks) {
+        while (!tasks.isEmpty())
+            tasks.remove(0).run();
+    }
+
+    @Test
+    public void keepsTheOrderOfEachKeyOnAThreadPool() throws InterruptedException {
+        ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(4);
+        try {
+            EventBus bus = new AsyncEventBus("partitioned", executor, Dispatcher.partitionedDispatcher(4));
+            OrderListener listener = new OrderListener();
+            bus.register(listener);
+
+            for (int i = 0; i < EVENTS_PER_KEY; i++) {
+                for (int account = 0; account < KEYS; account++)
+                    bus.post(new Order(account, i));
+            }
+
+            assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+            assertFalse(listener.overlapped, "events of the same key were delivered concurrently");
+            for (int account = 0; account < KEYS; account++) {
+                List<Integer> sequences = listener.sequences.get(account);
+                synchronized (sequences) {
+                    for (int i = 0; i < EVENTS_PER_KEY; i++)
+                        assertEquals(i, (int) sequences.get(i));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void stealsPartitionsFromABusyWorker() throws InterruptedException {
+        ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(2);
+        try {
+            // Accounts 0 and 2 hash to partitions 0 and 2 of 4, which both belong to the first of 2 workers
+            EventBus bus = new AsyncEventBus("partitioned", executor, Dispatcher.partitionedDispatcher(2, 4));
+            BlockingListener listener = new BlockingListener();
+            bus.register(listener);
+
+            bus.post(new Order(0, 0));
+            assertTrue(listener.blocked.await(10, TimeUnit.SECONDS));
+            bus.post(new Order(2, 0));
+
+            assertTrue(listener.otherDelivered.await(10, TimeUnit.SECONDS));
+            listener.release.countDown();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void partitionsEventsWithoutKeyByClass() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        EventBus bus = new AsyncEventBus("partitioned", executor, Dispatcher.partitionedDispatcher(4));
+        StringListener listener = new StringListener();
+        bus.register(listener);
+
+        bus.post("a");
+        bus.post("b");
+        bus.post("c");
+        assertEquals(1, tasks.size());
+        runAll(tasks);
+
+        assertEquals(Arrays.asList("a", "b", "c"), listener.events);
+    }
+
+    @Test
+    public void queuesReentrantEventsOnADirectExecutor() {
+        EventBus bus = new EventBus(Dispatcher.partitionedDispatcher(4));
+        StringListener listener = new StringListener();
+        listener.bus = bus;
+        bus.register(listener);
+
+        bus.post("first");
+        bus.post("second");
+
+        assertEquals(Arrays.asList("first", "nested", "second"), listener.events);
+    }
+
+    @Test
+    public void rejectsFewerPartitionsThanWorkers() {
+        assertThrows(IllegalArgumentException.class, () -> Dispatcher.partitionedDispatcher(0));
+        assertThrows(IllegalArgumentException.class, () -> Dispatcher.partitionedDispatcher(4, 2));
+    }
+}
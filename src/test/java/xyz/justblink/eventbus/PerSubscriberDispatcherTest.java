@@ -0,0 +1,58 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PerSubscriberDispatcherTest {
+    private static final int EVENTS = 20_000;
+
+    static class OrderedListener {
+        final List<Integer> events = new ArrayList<>();
+        final AtomicInteger inside = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(EVENTS);
+        volatile boolean overlapped;
+
+        @Subscribe
+        public void onEvent(Integer event) {
+            if (inside.incrementAndGet() != 1)
+                overlapped = true;
+            events.add(event);
+            inside.decrementAndGet();
+            done.countDown();
+        }
+    }
+
+    @Test
+    public void deliversInPostOrderOnAThreadPool() throws InterruptedException {
+        ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(8);
+        try {
+            EventBus bus = new AsyncEventBus("ordered", executor, Dispatcher.perSubscriberDispatcher());
+            OrderedListener first = new OrderedListener();
+            OrderedListener second = new OrderedListener();
+            bus.register(first);
+            bus.register(second);
+
+            for (int i = 0; i < EVENTS; i++)
+                bus.post(i);
+
+            for (OrderedListener listener : new OrderedListener[]{first, second}) {
+                assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+                assertFalse(listener.overlapped, "subscriber was called concurrently");
+                for (int i = 0; i < EVENTS; i++)
+                    assertEquals(i, (int) listener.events.get(i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PojoCodecTest {
+
+    static class Instrument {
+        int instrumentId;
+    }
+
+    static class Quote extends Instrument {
+        static int ignoredStatic = 7;
+        transient Object ignoredTransient;
+
+        private final long sequence;
+        double price;
+        float size;
+        short venue;
+        char side;
+        byte flags;
+        boolean firm;
+
+        private Quote() {
+            this(0);
+        }
+
+        Quote(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    static class Nested {
+        String name;
+    }
+
+    private static Quote quote() {
+        Quote quote = new Quote(42);
+        quote.instrumentId = 7;
+        quote.price = 101.25;
+        quote.size = 3.5f;
+        quote.venue = 12;
+        quote.side = 'B';
+        quote.flags = 3;
+        quote.firm = true;
+        return quote;
+    }
+
+    @Test
+    public void encodesAndDecodesAllPrimitiveFields() {
+        PojoCodec<Quote> codec = PojoCodec.of(Quote.class);
+        assertEquals(8 + 8 + 4 + 4 + 2 + 2 + 1 + 1, codec.size());
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        buffer.position(5);
+        codec.encode(quote(), buffer);
+        assertEquals(5 + codec.size(), buffer.position());
+
+        buffer.flip().position(5);
+        Quote decoded = codec.decode(buffer);
+        assertEquals(42, decoded.sequence);
+        assertEquals(7, decoded.instrumentId);
+        assertEquals(101.25, decoded.price);
+        assertEquals(3.5f, decoded.size);
+        assertEquals(12, decoded.venue);
+        assertEquals('B', decoded.side);
+        assertEquals(3, decoded.flags);
+        assertTrue(decoded.firm);
+        assertEquals(buffer.limit(), buffer.position());
+    }
+
+    @Test
+    public void flyweightReadsFieldsInPlace() {
+        PojoCodec<Quote> codec = PojoCodec.of(Quote.class);
+        int price = codec.offsetOf("price");
+        int side = codec.offsetOf("side");
+
+        ByteBuffer buffer = ByteBuffer.allocate(codec.size() * 2);
+        Quote second = quote();
+        second.price = 99.5;
+        codec.encode(quote(), buffer);
+        codec.encode(second, buffer);
+
+        PojoCodec.Flyweight<Quote> flyweight = codec.flyweight();
+        assertEquals(101.25, flyweight.wrap(buffer, 0).getDouble(price));
+        assertEquals(99.5, flyweight.wrap(buffer, codec.size()).getDouble(price));
+        assertEquals('B', flyweight.getChar(side));
+        assertEquals(99.5, flyweight.get().price);
+    }
+
+    @Test
+    public void rejectsUnsupportedEvents() {
+        assertThrows(IllegalArgumentException.class, () -> PojoCodec.of(Nested.class));
+        assertThrows(IllegalArgumentException.class, () -> PojoCodec.of(Quote.class).offsetOf("missing"));
+        assertThrows(BufferOverflowException.class,
+                () -> PojoCodec.of(Quote.class).encode(quote(), ByteBuffer.allocate(4)));
+    }
+}
@@ -0,0 +1,107 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PostAllTest {
+
+    static class Listener {
+        final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch received;
+
+        Listener(int expected) {
+            received = new CountDownLatch(expected);
+        }
+
+        @Subscribe
+        public void onInteger(Integer event) {
+            events.add(event);
+            received.countDown();
+        }
+
+        @Subscribe
+        public void onString(String event) {
+            events.add(event);
+            received.countDown();
+        }
+    }
+
+    static class DeadEventListener {
+        final List<Object> deadEvents = new ArrayList<>();
+
+        @Subscribe
+        public void onDeadEvent(DeadEvent event) {
+            deadEvents.add(event.getEvent());
+        }
+    }
+
+    private static List<Object> events(int count) {
+        List<Object> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            events.add(i % 3 == 0 ? (Object) String.valueOf(i) : i);
+        return events;
+    }
+
+    @Test
+    public void deliversInOrderAndReportsDeadEvents() {
+        EventBus bus = new EventBus();
+        Listener listener = new Listener(0);
+        DeadEventListener deadEvents = new DeadEventListener();
+        bus.register(listener);
+        bus.register(deadEvents);
+
+        bus.postAll(Arrays.asList(1, "two", 3L, 4));
+
+        assertEquals(Arrays.asList(1, "two", 4), listener.events);
+        assertEquals(Collections.singletonList(3L), deadEvents.deadEvents);
+    }
+
+    @Test
+    public void handsTheExecutorOneTaskPerSubscriber() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        EventBus bus = new AsyncEventBus(executor);
+        Listener first = new Listener(0);
+        Listener second = new Listener(0);
+        bus.register(first);
+        bus.register(second);
+
+        List<Object> events = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++)
+            events.add(i);
+        bus.postAll(events);
+        assertEquals(2, tasks.size(), "one task per subscriber");
+
+        while (!tasks.isEmpty())
+            tasks.remove(0).run();
+        assertEquals(events, first.events);
+        assertEquals(events, second.events);
+    }
+
+    @Test
+    public void claimsRingBufferSlotsInBatches() throws InterruptedException {
+        RingBufferEventBus bus = new RingBufferEventBus("batch", 1024);
+        try {
+            List<Object> events = events(10_000);
+            Listener listener = new Listener(events.size());
+            bus.register(listener);
+
+            bus.postAll(events);
+
+            assertTrue(listener.received.await(10, TimeUnit.SECONDS));
+            assertEquals(events, listener.events);
+        } finally {
+            bus.shutdown();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PostAsyncTest {
+
+    static class Listener {
+        final List<Object> events = new ArrayList<>();
+
+        @Subscribe
+        public void onString(String event) {
+            events.add(event);
+        }
+
+        @Subscribe
+        public void onInteger(Integer event) {
+            if (event < 0)
+                throw new IllegalArgumentException("negative " + event);
+            events.add(event);
+        }
+    }
+
+    static class BatchListener {
+        final List<List<String>> batches = new ArrayList<>();
+
+        @Subscribe
+        @BatchEvents(maxSize = 10)
+        public void onStrings(List<String> batch) {
+            batches.add(new ArrayList<>(batch));
+        }
+    }
+
+    private static void runAll(List<Runnable> tasks) {
+        while (!tasks.isEmpty())
+            tasks.remove(0).run();
+    }
+
+    @Test
+    public void completesOnceEverySubscriberHandledTheEvent() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        EventBus bus = new AsyncEventBus("async", executor, Dispatcher.perSubscriberDispatcher());
+        Listener first = new Listener();
+        Listener second = new Listener();
+        bus.register(first);
+        bus.register(second);
+
+        CompletableFuture<Void> future = bus.postAsync("event");
+        assertFalse(future.isDone());
+        assertEquals(2, tasks.size());
+        tasks.remove(0).run();
+        assertFalse(future.isDone(), "completed before the second subscriber handled the event");
+        tasks.remove(0).run();
+
+        assertTrue(future.isDone());
+        assertFalse(future.isCompletedExceptionally());
+        assertEquals(Arrays.asList("event"), first.events);
+        assertEquals(Arrays.asList("event"), second.events);
+    }
+
+    @Test
+    public void aggregatesSubscriberFailures() {
+        List<Throwable> handled = new ArrayList<>();
+        EventBus bus = new EventBus((e, context) -> {
+            assertEquals(-1, context.getEvent());
+            handled.add(e);
+        });
+        bus.register(new Listener());
+        bus.register(new Listener());
+
+        CompletableFuture<Void> future = bus.postAsync(-1);
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        DeliveryFailedException failure = (DeliveryFailedException) thrown.getCause();
+        assertEquals(-1, failure.getEvent());
+        assertEquals(handled, failure.getFailures());
+        assertEquals(2, handled.size());
+    }
+
+    @Test
+    public void completesRightAwayWithoutSubscribers() {
+        EventBus bus = new EventBus();
+        bus.register(new Listener());
+
+        CompletableFuture<Void> future = bus.postAsync(1L);
+
+        assertTrue(future.isDone());
+        assertFalse(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void failsWhenTheEventIsDroppedFromAFullQueue() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        EventBus bus = new AsyncEventBus("bounded", executor, 2, OverflowPolicy.DROP_NEWEST);
+        Listener listener = new Listener();
+        bus.register(listener);
+
+        CompletableFuture<Void> first = bus.postAsync(1);
+        CompletableFuture<Void> second = bus.postAsync(2);
+        CompletableFuture<Void> dropped = bus.postAsync(3);
+        assertTrue(dropped.isCompletedExceptionally());
+        runAll(tasks);
+
+        assertTrue(first.isDone() && !first.isCompletedExceptionally());
+        assertTrue(second.isDone() && !second.isCompletedExceptionally());
+        ExecutionException thrown = assertThrows(ExecutionException.class, dropped::get);
+        assertTrue(thrown.getCause().getCause() instanceof EventRejectedException, thrown.toString());
+        assertEquals(Arrays.asList(1, 2), listener.events);
+    }
+
+    @Test
+    public void completesEventsDeliveredInBatches() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        EventBus bus = new AsyncEventBus("batch", executor, Dispatcher.perSubscriberDispatcher());
+        BatchListener listener = new BatchListener();
+        bus.register(listener);
+
+        CompletableFuture<Void> first = bus.postAsync("a");
+        bus.post("b");
+        CompletableFuture<Void> third = bus.postAsync("c");
+        runAll(tasks);
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c")), listener.batches);
+        assertTrue(first.isDone() && third.isDone());
+        assertSame(null, third.join());
+    }
+}
@@ -0,0 +1,203 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PriorityDispatchTest {
+
+    @EventPriority(Priority.CRITICAL)
+    static class KillSwitch {
+    }
+
+    static class Halt extends KillSwitch {
+    }
+
+    @EventPriority(Priority.LOW)
+    static class Telemetry {
+        final int sequence;
+
+        Telemetry(int sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    static class Trade {
+        final int sequence;
+
+        Trade(int sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    static class OrderedListener {
+        final List<String> calls;
+
+        OrderedListener(List<String> calls) {
+            this.calls = calls;
+        }
+
+        @Subscribe(priority = -1)
+        public void audit(String event) {
+            calls.add("audit");
+        }
+
+        @Subscribe
+        public void handle(String event) {
+            calls.add("handle");
+        }
+
+        @Subscribe(priority = 10)
+        public void validate(String event) {
+            calls.add("validate");
+        }
+    }
+
+    static class RecordingListener {
+        final List<Object> events = new ArrayList<>();
+
+        @Subscribe
+        public void onKillSwitch(KillSwitch event) {
+            events.add(event);
+        }
+
+        @Subscribe
+        public void onTelemetry(Telemetry event) {
+            events.add(event);
+        }
+
+        @Subscribe
+        public void onTrade(Trade event) {
+            events.add(event);
+        }
+    }
+
+    @Test
+    public void callsSubscribersByPriority() {
+        List<String> calls = new ArrayList<>();
+        EventBus bus = new EventBus();
+        bus.register(new OrderedListener(calls));
+        bus.register(new Object() {
+            @Subscribe(priority = 5)
+            public void onObject(Object event) {
+                calls.add("object");
+            }
+        });
+
+        bus.post("event");
+
+        assertEquals(Arrays.asList("validate", "object", "handle", "audit"), calls);
+    }
+
+    @Test
+    public void keepsRegistrationOrderWithinAPriority() {
+        List<String> calls = new ArrayList<>();
+        EventBus bus = new EventBus();
+        for (int i = 0; i < 3; i++) {
+            String name = "listener" + i;
+            bus.register(new Object() {
+                @Subscribe
+                public void onEvent(String event) {
+                    calls.add(name);
+                }
+            });
+        }
+
+        bus.post("event");
+
+        assertEquals(Arrays.asList("listener0", "listener1", "listener2"), calls);
+    }
+
+    @Test
+    public void criticalEventsSkipAheadOfQueuedEvents() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        EventBus bus = new AsyncEventBus("priority", executor, Dispatcher.priorityDispatcher(1));
+        RecordingListener listener = new RecordingListener();
+        bus.register(listener);
+
+        for (int i = 0; i < 10; i++)
+            bus.post(new Telemetry(i));
+        for (int i = 0; i < 10; i++)
+            bus.post(new Trade(i));
+        Halt halt = new Halt();
+        bus.post(halt);
+        assertEquals(1, tasks.size(), "drain tasks are limited by the parallelism");
+
+        while (!tasks.isEmpty())
+            tasks.remove(0).run();
+
+        assertEquals(21, listener.events.size());
+        assertEquals(halt, listener.events.get(0));
+        for (int i = 1; i <= 10; i++)
+            assertTrue(listener.events.get(i) instanceof Trade);
+        for (int i = 11; i < 21; i++)
+            assertEquals(i - 11, ((Telemetry) listener.events.get(i)).sequence);
+    }
+
+    @Test
+    public void servesLowPriorityEventsUnderSustainedTraffic() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        EventBus bus = new AsyncEventBus("priority", executor, Dispatcher.priorityDispatcher(1));
+        RecordingListener listener = new RecordingListener();
+        bus.register(listener);
+
+        bus.post(new Telemetry(0));
+        for (int i = 0; i < 100; i++)
+            bus.post(new Trade(i));
+        while (!tasks.isEmpty())
+            tasks.remove(0).run();
+
+        int telemetryIndex = -1;
+        for (int i = 0; i < listener.events.size(); i++) {
+            if (listener.events.get(i) instanceof Telemetry)
+                telemetryIndex = i;
+        }
+        assertTrue(telemetryIndex >= 0 && telemetryIndex < 16,
+                "low priority event waited behind " + telemetryIndex + " events");
+    }
+
+    static class CountingListener {
+        final AtomicInteger trades = new AtomicInteger();
+
+        @Subscribe
+        @AcceptConcurrentEvents
+        public void onTrade(Trade trade) {
+            trades.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void drainsEventsOfManyPostingThreadsOnADirectExecutor() throws InterruptedException {
+        EventBus bus = new EventBus(Dispatcher.priorityDispatcher(1));
+        CountingListener listener = new CountingListener();
+        bus.register(listener);
+
+        Thread[] publishers = new Thread[4];
+        for (int t = 0; t < publishers.length; t++) {
+            publishers[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++)
+                    bus.post(new Trade(i));
+            });
+            publishers[t].start();
+        }
+        for (Thread publisher : publishers)
+            publisher.join();
+
+        assertEquals(40_000, listener.trades.get());
+    }
+
+    @Test
+    public void rejectsParallelismBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> Dispatcher.priorityDispatcher(0));
+    }
+}
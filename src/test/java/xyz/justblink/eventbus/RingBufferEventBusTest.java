@@ -0,0 +1,160 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RingBufferEventBusTest {
+    private static final int PRODUCERS = 4;
+    private static final int EVENTS_PER_PRODUCER = 50_000;
+
+    static class Counter {
+        final AtomicLong count = new AtomicLong();
+
+        @Subscribe
+        public void onEvent(Long event) {
+            count.incrementAndGet();
+        }
+    }
+
+    static class Recorder {
+        final List<Integer> events = new ArrayList<>();
+
+        @Subscribe
+        public void onEvent(Integer event) {
+            events.add(event);
+        }
+    }
+
+    @Test
+    public void deliversEverythingWithEachWaitStrategy() throws Exception {
+        for (WaitStrategy waitStrategy : new WaitStrategy[]{WaitStrategy.busySpin(), WaitStrategy.yielding(),
+                WaitStrategy.parking(), WaitStrategy.blocking()}) {
+            RingBufferEventBus bus = new RingBufferEventBus("ring", 1024, 2, waitStrategy);
+            Counter counter = new Counter();
+            bus.register(counter);
+
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                Thread producer = new Thread(() -> {
+                    for (long i = 0; i < EVENTS_PER_PRODUCER; i++)
+                        bus.post(i);
+                });
+                producer.start();
+                producers.add(producer);
+            }
+            for (Thread producer : producers)
+                producer.join();
+
+            bus.shutdown();
+            assertTrue(bus.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(PRODUCERS * EVENTS_PER_PRODUCER, counter.count.get());
+        }
+    }
+
+    @Test
+    public void singleConsumerKeepsPostOrder() throws Exception {
+        RingBufferEventBus bus = new RingBufferEventBus("ordered", 64);
+        Recorder recorder = new Recorder();
+        bus.register(recorder);
+
+        for (int i = 0; i < 10_000; i++)
+            bus.post(i);
+        bus.shutdown();
+        assertTrue(bus.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(10_000, recorder.events.size());
+        for (int i = 0; i < recorder.events.size(); i++)
+            assertEquals(i, (int) recorder.events.get(i));
+    }
+
+    @Test
+    public void rejectsEventsAfterShutdown() {
+        RingBufferEventBus bus = new RingBufferEventBus("closed", 8);
+        bus.register(new Counter());
+        bus.shutdown();
+        assertThrows(IllegalStateException.class, () -> bus.post(1L));
+    }
+
+    @Test
+    public void deliversEveryEventAcceptedWhileShuttingDown() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            RingBufferEventBus bus = new RingBufferEventBus("racing", 64, 2, WaitStrategy.yielding());
+            Counter counter = new Counter();
+            bus.register(counter);
+            AtomicLong accepted = new AtomicLong();
+
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                Thread producer = new Thread(() -> {
+                    try {
+                        for (long i = 0; ; i++) {
+                            bus.post(i);
+                            accepted.incrementAndGet();
+                        }
+                    } catch (IllegalStateException e) {
+                        // Shut down
+                    }
+                });
+                producer.start();
+                producers.add(producer);
+            }
+            Thread.sleep(1);
+            bus.shutdown();
+            for (Thread producer : producers)
+                producer.join();
+
+            assertTrue(bus.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(accepted.get(), counter.count.get());
+        }
+    }
+
+    @Test
+    public void consumerPostingToFullRingFailsInsteadOfWaiting() throws Exception {
+        RingBufferEventBus bus = new RingBufferEventBus("reentrant", 2);
+        List<Object> results = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        bus.register(new Object() {
+            @Subscribe
+            public void onEvent(Integer event) {
+                try {
+                    for (long i = 0; i < 4; i++) {
+                        bus.post(i);
+                        results.add(i);
+                    }
+                } catch (IllegalStateException e) {
+                    results.add(e);
+                } finally {
+                    done.countDown();
+                }
+            }
+
+            @Subscribe
+            public void onEvent(Long event) {
+            }
+        });
+
+        bus.post(0);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        bus.shutdown();
+        assertTrue(bus.awaitTermination(10, TimeUnit.SECONDS));
+
+        // The consumer is still delivering the first slot of two, so it can only claim the second one
+        assertEquals(2, results.size());
+        assertEquals(0L, results.get(0));
+        assertTrue(results.get(1) instanceof IllegalStateException, String.valueOf(results.get(1)));
+    }
+
+    @Test
+    public void requiresPowerOfTwoBufferSize() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBufferEventBus("bad", 1000));
+    }
+}
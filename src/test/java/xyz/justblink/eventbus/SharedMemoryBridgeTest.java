@@ -0,0 +1,194 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SharedMemoryBridgeTest {
+    private Path directory;
+
+    static class Tick {
+        long sequence;
+        double price;
+
+        Tick() {
+        }
+
+        Tick(long sequence) {
+            this.sequence = sequence;
+            this.price = sequence / 2.0;
+        }
+    }
+
+    static class Listener {
+        final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch received;
+
+        Listener(int expected) {
+            received = new CountDownLatch(expected);
+        }
+
+        @Subscribe
+        public void onTick(Tick tick) {
+            assertEquals(tick.sequence / 2.0, tick.price);
+            sequences.add(tick.sequence);
+            received.countDown();
+        }
+    }
+
+    /**
+     * Publishes the number of ticks given as the second argument to the bridge on the file given as the first
+     */
+    public static void main(String[] args) throws IOException {
+        EventBus bus = new EventBus();
+        try (SharedMemoryBridge bridge = new SharedMemoryBridge(Paths.get(args[0]), codecs(), 1024)) {
+            bridge.forward(bus);
+            for (long i = 0; i < Long.parseLong(args[1]); i++)
+                bus.post(new Tick(i));
+        }
+    }
+
+    private static EventCodecs codecs() {
+        EventCodecs codecs = new EventCodecs();
+        codecs.register(1, Tick.class);
+        return codecs;
+    }
+
+    private static List<Long> sequence(int count) {
+        List<Long> sequences = new ArrayList<>();
+        for (long i = 0; i < count; i++)
+            sequences.add(i);
+        return sequences;
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("eventbus-bridge");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator)
+                Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void forwardsEventsAroundTheRing() throws Exception {
+        Path file = directory.resolve("ring");
+        EventBus publisherBus = new EventBus();
+        EventBus receiverBus = new EventBus();
+        Listener listener = new Listener(1000);
+        receiverBus.register(listener);
+
+        try (SharedMemoryBridge publisher = new SharedMemoryBridge(file, codecs(), 1024);
+             SharedMemoryBridge receiver = new SharedMemoryBridge(file, codecs(), 1024)) {
+            publisher.forward(publisherBus);
+            receiver.receive(receiverBus);
+            for (int i = 0; i < 1000; i++)
+                publisherBus.post(new Tick(i));
+            publisherBus.post("not encoded");
+
+            assertTrue(listener.received.await(10, TimeUnit.SECONDS));
+        }
+        assertEquals(sequence(1000), listener.sequences);
+    }
+
+    @Test
+    public void keepsEventsForTheNextReceiver() throws Exception {
+        Path file = directory.resolve("ring");
+        try (SharedMemoryBridge publisher = new SharedMemoryBridge(file, codecs(), 1024)) {
+            assertTrue(publisher.publish(new Tick(0)));
+            assertTrue(publisher.publish(new Tick(1)));
+            assertFalse(publisher.publish("not encoded"));
+        }
+
+        EventBus bus = new EventBus();
+        Listener listener = new Listener(2);
+        bus.register(listener);
+        try (SharedMemoryBridge receiver = new SharedMemoryBridge(file, codecs(), 1024)) {
+            receiver.receive(bus);
+            assertTrue(listener.received.await(10, TimeUnit.SECONDS));
+        }
+        assertEquals(sequence(2), listener.sequences);
+    }
+
+    @Test
+    public void allowsOneReceiverPerFile() throws Exception {
+        Path file = directory.resolve("ring");
+        try (SharedMemoryBridge first = new SharedMemoryBridge(file, codecs(), 1024);
+             SharedMemoryBridge second = new SharedMemoryBridge(file, codecs(), 1024)) {
+            first.receive(new EventBus());
+            assertThrows(IllegalStateException.class, () -> second.receive(new EventBus()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new SharedMemoryBridge(file, codecs(), 2048));
+    }
+
+    @Test
+    public void doesNotEchoReceivedEvents() throws Exception {
+        EventBus left = new EventBus();
+        EventBus right = new EventBus();
+        Listener leftListener = new Listener(1);
+        Listener rightListener = new Listener(1);
+        left.register(leftListener);
+        right.register(rightListener);
+
+        try (SharedMemoryBridge leftOut = new SharedMemoryBridge(directory.resolve("left"), codecs(), 1024);
+             SharedMemoryBridge rightIn = new SharedMemoryBridge(directory.resolve("left"), codecs(), 1024);
+             SharedMemoryBridge rightOut = new SharedMemoryBridge(directory.resolve("right"), codecs(), 1024);
+             SharedMemoryBridge leftIn = new SharedMemoryBridge(directory.resolve("right"), codecs(), 1024)) {
+            leftOut.forward(left);
+            rightIn.receive(right);
+            rightOut.forward(right);
+            leftIn.receive(left);
+
+            left.post(new Tick(7));
+            assertTrue(rightListener.received.await(10, TimeUnit.SECONDS));
+            // An echo would arrive about as fast as the event itself
+            Thread.sleep(100);
+        }
+        assertEquals(Collections.singletonList(7L), leftListener.sequences);
+        assertEquals(Collections.singletonList(7L), rightListener.sequences);
+    }
+
+    @Test
+    public void receivesEventsFromAnotherProcess() throws Exception {
+        Path file = directory.resolve("ring");
+        EventBus bus = new EventBus();
+        Listener listener = new Listener(5000);
+        bus.register(listener);
+
+        try (SharedMemoryBridge receiver = new SharedMemoryBridge(file, codecs(), 1024)) {
+            receiver.receive(bus);
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            Process publisher = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    SharedMemoryBridgeTest.class.getName(), file.toString(), "5000")
+                    .redirectErrorStream(true)
+                    .redirectOutput(new File(directory.toFile(), "publisher.log"))
+                    .start();
+
+            assertTrue(publisher.waitFor(30, TimeUnit.SECONDS));
+            assertEquals(0, publisher.exitValue());
+            assertTrue(listener.received.await(10, TimeUnit.SECONDS));
+        }
+        assertEquals(sequence(5000), listener.sequences);
+    }
+}
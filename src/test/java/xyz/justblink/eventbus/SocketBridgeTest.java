@@ -0,0 +1,210 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SocketBridgeTest {
+
+    static class Tick {
+        long sequence;
+        double price;
+
+        Tick() {
+        }
+
+        Tick(long sequence) {
+            this.sequence = sequence;
+            this.price = sequence / 2.0;
+        }
+    }
+
+    static class Trade {
+        long quantity;
+
+        Trade() {
+        }
+
+        Trade(long quantity) {
+            this.quantity = quantity;
+        }
+    }
+
+    static class TickListener {
+        final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch received;
+
+        TickListener(int expected) {
+            received = new CountDownLatch(expected);
+        }
+
+        @Subscribe
+        public void onTick(Tick tick) {
+            assertEquals(tick.sequence / 2.0, tick.price);
+            sequences.add(tick.sequence);
+            received.countDown();
+        }
+    }
+
+    static class TradeListener {
+        @Subscribe
+        public void onTrade(Trade trade) {
+        }
+    }
+
+    static class DeadEventListener {
+        final List<Object> events = new ArrayList<>();
+
+        @Subscribe
+        public void onDeadEvent(DeadEvent event) {
+            events.add(event.getEvent());
+        }
+    }
+
+    private static EventCodecs codecs() {
+        EventCodecs codecs = new EventCodecs();
+        codecs.register(1, Tick.class);
+        codecs.register(2, Trade.class);
+        return codecs;
+    }
+
+    private static InetSocketAddress loopback() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    private static List<Long> sequence(int count) {
+        List<Long> sequences = new ArrayList<>();
+        for (long i = 0; i < count; i++)
+            sequences.add(i);
+        return sequences;
+    }
+
+    /**
+     * Waits until {@code bus} has {@code count} subscribers of {@code type}, which it gains and loses as the
+     * subscriptions of its peers arrive
+     */
+    private static void awaitSubscribers(EventBus bus, Class<?> type, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (bus.getRegistry().getSubscribers(type).length != count) {
+            assertTrue(System.nanoTime() - deadline < 0, "Timed out waiting for subscribers of " + type);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void forwardsEventsOverLoopback() throws Exception {
+        EventBus publisherBus = new EventBus("publisher");
+        EventBus subscriberBus = new EventBus("subscriber");
+        TickListener listener = new TickListener(10_000);
+        subscriberBus.register(listener);
+
+        try (SocketBridge publisher = new SocketBridge(publisherBus, codecs());
+             SocketBridge subscriber = new SocketBridge(subscriberBus, codecs())) {
+            subscriber.connect(publisher.bind(loopback()));
+            awaitSubscribers(publisherBus, Tick.class, 1);
+            for (int i = 0; i < 10_000; i++)
+                publisherBus.post(new Tick(i));
+
+            assertTrue(listener.received.await(10, TimeUnit.SECONDS));
+        }
+        assertEquals(sequence(10_000), listener.sequences);
+    }
+
+    @Test
+    public void onlyForwardsSubscribedTypes() throws Exception {
+        EventBus publisherBus = new EventBus("publisher");
+        EventBus subscriberBus = new EventBus("subscriber");
+        DeadEventListener deadEvents = new DeadEventListener();
+        publisherBus.register(deadEvents);
+        TickListener tickListener = new TickListener(1);
+        subscriberBus.register(tickListener);
+
+        try (SocketBridge publisher = new SocketBridge(publisherBus, codecs());
+             SocketBridge subscriber = new SocketBridge(subscriberBus, codecs())) {
+            subscriber.connect(publisher.bind(loopback()));
+            awaitSubscribers(publisherBus, Tick.class, 1);
+            Trade trade = new Trade(5);
+            publisherBus.post(trade);
+            publisherBus.post(new Tick(0));
+            assertTrue(tickListener.received.await(10, TimeUnit.SECONDS));
+            assertEquals(Collections.singletonList(trade), deadEvents.events);
+
+            TradeListener tradeListener = new TradeListener();
+            subscriberBus.register(tradeListener);
+            awaitSubscribers(publisherBus, Trade.class, 1);
+            subscriberBus.unregister(tickListener);
+            awaitSubscribers(publisherBus, Tick.class, 0);
+            subscriberBus.unregister(tradeListener);
+            awaitSubscribers(publisherBus, Trade.class, 0);
+        }
+    }
+
+    @Test
+    public void doesNotEchoReceivedEvents() throws Exception {
+        EventBus left = new EventBus("left");
+        EventBus right = new EventBus("right");
+        TickListener leftListener = new TickListener(1);
+        TickListener rightListener = new TickListener(1);
+        left.register(leftListener);
+        right.register(rightListener);
+
+        try (SocketBridge leftBridge = new SocketBridge(left, codecs());
+             SocketBridge rightBridge = new SocketBridge(right, codecs())) {
+            rightBridge.connect(leftBridge.bind(loopback()));
+            awaitSubscribers(left, Tick.class, 2);
+            awaitSubscribers(right, Tick.class, 2);
+
+            left.post(new Tick(7));
+            assertTrue(rightListener.received.await(10, TimeUnit.SECONDS));
+            // An echo would arrive about as fast as the event itself
+            Thread.sleep(100);
+        }
+        assertEquals(Collections.singletonList(7L), leftListener.sequences);
+        assertEquals(Collections.singletonList(7L), rightListener.sequences);
+    }
+
+    @Test
+    public void reconnectsToRestartedPeers() throws Exception {
+        EventBus publisherBus = new EventBus("publisher");
+        EventBus subscriberBus = new EventBus("subscriber");
+        TickListener listener = new TickListener(2);
+        subscriberBus.register(listener);
+
+        try (SocketBridge subscriber = new SocketBridge(subscriberBus, codecs())) {
+            InetSocketAddress address;
+            try (SocketBridge publisher = new SocketBridge(publisherBus, codecs())) {
+                address = publisher.bind(loopback());
+                subscriber.connect(address);
+                awaitSubscribers(publisherBus, Tick.class, 1);
+                publisherBus.post(new Tick(0));
+            }
+            assertEquals(0, publisherBus.getRegistry().getSubscribers(Tick.class).length);
+
+            try (SocketBridge publisher = new SocketBridge(publisherBus, codecs())) {
+                publisher.bind(address);
+                awaitSubscribers(publisherBus, Tick.class, 1);
+                publisherBus.post(new Tick(1));
+                assertTrue(listener.received.await(10, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(sequence(2), listener.sequences);
+    }
+
+    @Test
+    public void rejectsLinksOnceClosed() throws Exception {
+        SocketBridge bridge = new SocketBridge(new EventBus(), codecs());
+        bridge.close();
+        assertThrows(IllegalStateException.class, () -> bridge.bind(loopback()));
+        assertThrows(IllegalStateException.class, () -> bridge.connect(loopback()));
+    }
+}
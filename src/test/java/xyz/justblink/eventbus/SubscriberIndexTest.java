@@ -0,0 +1,95 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SubscriberIndexTest {
+
+    /**
+     * Its methods are not annotated, so they can only be found through {@link IndexedListenerIndex}, which is
+     * listed in META-INF/services of the test resources
+     */
+    public static class IndexedListener {
+        final List<Object> events = new ArrayList<>();
+
+        void onString(String event) {
+            events.add(event);
+        }
+
+        void onInteger(Integer event) {
+            if (event < 0)
+                throw new IllegalArgumentException("negative");
+            events.add(event);
+        }
+    }
+
+    public static class IndexedListenerIndex implements SubscriberIndex {
+
+        @Override
+        public Class<?> getListenerClass() {
+            return IndexedListener.class;
+        }
+
+        @Override
+        public IndexedSubscriberMethod[] getSubscriberMethods() {
+            return new IndexedSubscriberMethod[]{
+                    new IndexedSubscriberMethod(IndexedListener.class, "onString", String.class,
+                            (target, event) -> ((IndexedListener) target).onString((String) event), false, 0),
+                    new IndexedSubscriberMethod(IndexedListener.class, "onInteger", Integer.class,
+                            (target, event) -> ((IndexedListener) target).onInteger((Integer) event), false, 5)
+            };
+        }
+    }
+
+    static class ScannedChild extends IndexedListener {
+        @Subscribe
+        public void onLong(Long event) {
+            events.add(event);
+        }
+    }
+
+    @Test
+    public void takesSubscriberMethodsFromTheIndex() {
+        EventBus bus = new EventBus();
+        IndexedListener listener = new IndexedListener();
+        bus.register(listener);
+        bus.register(listener);
+
+        bus.post("event");
+        bus.post(1);
+
+        assertEquals(Arrays.asList("event", 1), listener.events);
+    }
+
+    @Test
+    public void scansClassesWithoutAnIndexAndIndexesTheirSuperclasses() {
+        EventBus bus = new EventBus();
+        ScannedChild listener = new ScannedChild();
+        bus.register(listener);
+
+        bus.post("event");
+        bus.post(2L);
+        bus.unregister(listener);
+        bus.post(3);
+
+        assertEquals(Arrays.asList("event", 2L), listener.events);
+    }
+
+    @Test
+    public void resolvesTheMethodOfAFailingIndexedSubscriber() {
+        AtomicReference<SubscriberExceptionContext> failure = new AtomicReference<>();
+        EventBus bus = new EventBus((t, context) -> failure.set(context));
+        bus.register(new IndexedListener());
+
+        bus.post(-1);
+
+        assertEquals("onInteger", failure.get().getSubscriberMethod().getName());
+        assertEquals(-1, failure.get().getEvent());
+    }
+}
@@ -0,0 +1,166 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SubscriberRegistryTest {
+
+    static class Listener {
+        final List<Object> events = new ArrayList<>();
+
+        @Subscribe
+        public void onString(String event) {
+            events.add(event);
+        }
+    }
+
+    static class ChildListener extends Listener {
+        @Subscribe
+        public void onInteger(Integer event) {
+            events.add(event);
+        }
+    }
+
+    interface MarketEvent {
+    }
+
+    static class Trade implements MarketEvent {
+    }
+
+    static class BlockTrade extends Trade {
+    }
+
+    static class MarketListener {
+        final List<Object> marketEvents = new ArrayList<>();
+        final List<Object> trades = new ArrayList<>();
+
+        @Subscribe
+        public void onMarketEvent(MarketEvent event) {
+            marketEvents.add(event);
+        }
+
+        @Subscribe
+        public void onTrade(Trade event) {
+            trades.add(event);
+        }
+    }
+
+    static class DeadEventListener {
+        final List<Object> deadEvents = new ArrayList<>();
+
+        @Subscribe
+        public void onDeadEvent(DeadEvent event) {
+            deadEvents.add(event.getEvent());
+        }
+    }
+
+    @Test
+    public void deliversToSupertypeSubscribers() {
+        EventBus bus = new EventBus();
+        MarketListener listener = new MarketListener();
+        DeadEventListener deadEvents = new DeadEventListener();
+        bus.register(listener);
+        bus.register(deadEvents);
+
+        bus.post(new Trade());
+        bus.post(new BlockTrade());
+        bus.post(new MarketEvent() { });
+        bus.post("not a market event");
+
+        assertEquals(3, listener.marketEvents.size());
+        assertEquals(2, listener.trades.size());
+        assertEquals(1, deadEvents.deadEvents.size());
+    }
+
+    @Test
+    public void refreshesMergedSubscribersOnRegistration() {
+        EventBus bus = new EventBus();
+        MarketListener first = new MarketListener();
+        MarketListener second = new MarketListener();
+        bus.register(first);
+        bus.post(new BlockTrade());
+
+        bus.register(second);
+        bus.post(new BlockTrade());
+        bus.unregister(first);
+        bus.post(new BlockTrade());
+
+        assertEquals(2, first.trades.size());
+        assertEquals(2, second.trades.size());
+    }
+
+    @Test
+    public void registersEveryInstanceOfAClass() {
+        EventBus bus = new EventBus();
+        Listener first = new Listener();
+        Listener second = new Listener();
+        bus.register(first);
+        bus.register(second);
+
+        bus.post("a");
+        bus.unregister(first);
+        bus.post("b");
+
+        assertEquals(1, first.events.size());
+        assertEquals(2, second.events.size());
+    }
+
+    @Test
+    public void includesInheritedSubscribers() {
+        EventBus bus = new EventBus();
+        ChildListener listener = new ChildListener();
+        bus.register(listener);
+
+        bus.post("a");
+        bus.post(1);
+        bus.unregister(listener);
+        bus.post("b");
+        bus.post(2);
+
+        assertEquals(2, listener.events.size());
+    }
+
+    @Test
+    public void publishesChurnOnLargePopulations() {
+        EventBus bus = new EventBus();
+        List<Listener> listeners = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            Listener listener = new Listener();
+            listeners.add(listener);
+            bus.register(listener);
+        }
+        for (int i = 0; i < listeners.size(); i += 2)
+            bus.unregister(listeners.get(i));
+        bus.register(listeners.get(0));
+
+        bus.post("a");
+
+        for (int i = 0; i < listeners.size(); i++)
+            assertEquals(i == 0 || i % 2 == 1 ? 1 : 0, listeners.get(i).events.size(), "listener " + i);
+    }
+
+    @Test
+    public void refreshesMergedSubscribersWhenASupertypeGetsItsFirstSubscriber() {
+        EventBus bus = new EventBus();
+        Listener unrelated = new Listener();
+        bus.register(unrelated);
+        bus.register(new Object() {
+            @Subscribe
+            public void onTrade(Trade event) {
+            }
+        });
+        bus.post(new BlockTrade());
+
+        MarketListener listener = new MarketListener();
+        bus.register(listener);
+        bus.post(new BlockTrade());
+        bus.post("a");
+
+        assertEquals(1, listener.marketEvents.size());
+        assertEquals(1, unrelated.events.size());
+    }
+}
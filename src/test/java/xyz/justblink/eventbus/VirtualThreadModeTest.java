@@ -0,0 +1,89 @@
+package xyz.justblink.eventbus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VirtualThreadModeTest {
+    private static final int BLOCKING_SUBSCRIBERS = 200;
+
+    static class BlockingListener {
+        final CountDownLatch done;
+        volatile String threadName;
+
+        BlockingListener(CountDownLatch done) {
+            this.done = done;
+        }
+
+        @Subscribe
+        public void onEvent(String event) throws InterruptedException {
+            threadName = Thread.currentThread().getName();
+            Thread.sleep(200);
+            done.countDown();
+        }
+    }
+
+    static class OrderedListener {
+        final List<Integer> events = new ArrayList<>();
+        final CountDownLatch done;
+
+        OrderedListener(int expected) {
+            done = new CountDownLatch(expected);
+        }
+
+        @Subscribe
+        public void onEvent(Integer event) {
+            events.add(event);
+            done.countDown();
+        }
+    }
+
+    @Test
+    public void rejectsJvmWithoutVirtualThreads() {
+        assumeTrue(!Executors.hasVirtualThreads());
+        assertThrows(UnsupportedOperationException.class,
+                () -> new AsyncEventBus("virtual", VirtualThreadMode.PER_DELIVERY));
+    }
+
+    @Test
+    public void blockingSubscribersDoNotWaitForEachOther() throws InterruptedException {
+        assumeTrue(Executors.hasVirtualThreads());
+        for (VirtualThreadMode mode : VirtualThreadMode.values()) {
+            EventBus bus = new AsyncEventBus("virtual", mode);
+            CountDownLatch done = new CountDownLatch(BLOCKING_SUBSCRIBERS);
+            BlockingListener first = new BlockingListener(done);
+            bus.register(first);
+            for (int i = 1; i < BLOCKING_SUBSCRIBERS; i++)
+                bus.register(new BlockingListener(done));
+
+            bus.post("event");
+
+            // Delivered one after another, the subscribers would take 40 seconds
+            assertTrue(done.await(10, TimeUnit.SECONDS), mode + " ran blocking subscribers one after another");
+            assertTrue(first.threadName.startsWith("eventbus-virtual-"), first.threadName);
+        }
+    }
+
+    @Test
+    public void deliversInPostOrderPerSubscriber() throws InterruptedException {
+        assumeTrue(Executors.hasVirtualThreads());
+        EventBus bus = new AsyncEventBus("virtual", VirtualThreadMode.PER_SUBSCRIBER);
+        OrderedListener listener = new OrderedListener(10_000);
+        bus.register(listener);
+
+        for (int i = 0; i < 10_000; i++)
+            bus.post(i);
+
+        assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 10_000; i++)
+            assertEquals(i, (int) listener.events.get(i));
+    }
+}